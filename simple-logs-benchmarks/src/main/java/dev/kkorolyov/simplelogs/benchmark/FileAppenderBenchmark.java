@@ -0,0 +1,47 @@
+package dev.kkorolyov.simplelogs.benchmark;
+
+import dev.kkorolyov.simplelogs.Level;
+import dev.kkorolyov.simplelogs.Logger;
+import dev.kkorolyov.simplelogs.append.Appender;
+import dev.kkorolyov.simplelogs.append.Appenders;
+import dev.kkorolyov.simplelogs.format.Formatters;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures contended logging from 4 threads through a logger with a single {@link Appenders#file(Path, int)} appender.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class FileAppenderBenchmark {
+	private Path file;
+	private Appender appender;
+	private Logger logger;
+
+	@Setup
+	public void setup() throws IOException {
+		file = Files.createTempFile("FileAppenderBenchmark", ".log");
+		appender = Appenders.file(file, Level.INFO);
+		logger = Logger.getLogger("benchmark." + UUID.randomUUID().toString().replace('.', '-'), Level.INFO, Formatters.pattern("%d [%p] %t - %m"), appender);
+	}
+	@TearDown
+	public void tearDown() throws IOException {
+		appender.close();
+		Files.deleteIfExists(file);
+	}
+
+	@Benchmark
+	public void shared() {
+		logger.info("Contended {}", 4);
+	}
+}
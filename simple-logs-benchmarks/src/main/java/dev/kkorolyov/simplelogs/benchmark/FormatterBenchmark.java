@@ -0,0 +1,51 @@
+package dev.kkorolyov.simplelogs.benchmark;
+
+import dev.kkorolyov.simplelogs.Level;
+import dev.kkorolyov.simplelogs.LogEvent;
+import dev.kkorolyov.simplelogs.format.Formatter;
+import dev.kkorolyov.simplelogs.format.Formatters;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures formatting a detached event with each built-in formatter.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatterBenchmark {
+	@Param({"simple", "pattern", "json"})
+	String formatter;
+
+	private Formatter instance;
+	private final StringBuilder out = new StringBuilder();
+	private final LogEvent event = new LogEvent(System.currentTimeMillis(), Level.INFO, new StackTraceElement("some.Class", "method", "Class.java", 49), "Formatted {} of {}", 1, 2);
+
+	@Setup
+	public void setup() {
+		switch (formatter) {
+			case "simple":
+				instance = Formatters.simple();
+				break;
+			case "pattern":
+				instance = Formatters.pattern("%d{HH:mm:ss.SSS} [%-7p] %t %c - %m");
+				break;
+			case "json":
+				instance = Formatters.json();
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown formatter: " + formatter);
+		}
+	}
+
+	@Benchmark
+	public StringBuilder format() {
+		out.setLength(0);
+		instance.format(event, out);
+		return out;
+	}
+}
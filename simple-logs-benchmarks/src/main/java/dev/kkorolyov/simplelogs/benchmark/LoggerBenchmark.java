@@ -0,0 +1,70 @@
+package dev.kkorolyov.simplelogs.benchmark;
+
+import dev.kkorolyov.simplelogs.Level;
+import dev.kkorolyov.simplelogs.Logger;
+import dev.kkorolyov.simplelogs.format.Formatter;
+import dev.kkorolyov.simplelogs.format.Formatters;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures log calls through a logger whose appenders format events but write nothing.
+ * The logger formats with either {@link Formatters#simple()}, which resolves each event's invoker, or a pattern without the invoker.
+ * The logger is the leaf of a hierarchy of {@code depth} ancestor loggers, each with its own appender.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggerBenchmark {
+	/** Number of ancestor loggers with appenders */
+	@Param({"0", "8"})
+	int depth;
+	/** {@code simple} or {@code noInvoker} */
+	@Param({"simple", "noInvoker"})
+	String formatter;
+
+	private Logger logger;
+	private final Object arg = 4;
+	private final Exception exception = new IllegalStateException("benchmark");
+
+	@Setup
+	public void setup(Blackhole blackhole) {
+		Formatter formatter = this.formatter.equals("simple") ? Formatters.simple() : Formatters.pattern("%d %p: %m");
+
+		String name = "benchmark." + UUID.randomUUID().toString().replace('.', '-');
+		for (int i = 0; i < depth; i++) {
+			Logger.getLogger(name, Level.INFO, formatter, new NullAppender(Level.INFO, blackhole));
+			name += ".child";
+		}
+		logger = Logger.getLogger(name, Level.INFO, formatter, new NullAppender(Level.INFO, blackhole));
+	}
+
+	@Benchmark
+	public void disabled() {
+		logger.debug("Disabled {}", arg);
+	}
+
+	@Benchmark
+	public void args0() {
+		logger.info("No args");
+	}
+	@Benchmark
+	public void args1() {
+		logger.info("Arg {}", arg);
+	}
+	@Benchmark
+	public void args5() {
+		logger.info("Args {} {} {} {} {}", arg, arg, arg, arg, arg);
+	}
+
+	@Benchmark
+	public void exception() {
+		logger.exception(Level.INFO, exception);
+	}
+}
@@ -0,0 +1,26 @@
+package dev.kkorolyov.simplelogs.benchmark;
+
+import dev.kkorolyov.simplelogs.LogEvent;
+import dev.kkorolyov.simplelogs.append.Appender;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Formats events into a blackhole, to measure logging without I/O.
+ */
+final class NullAppender extends Appender {
+	private final Blackhole blackhole;
+
+	NullAppender(int threshold, Blackhole blackhole) {
+		super(threshold);
+		this.blackhole = blackhole;
+	}
+
+	@Override
+	protected void write(LogEvent event) {
+		blackhole.consume(event.format());
+	}
+	@Override
+	protected void append(String message) {
+		blackhole.consume(message);
+	}
+}
@@ -0,0 +1,120 @@
+package dev.kkorolyov.simplelogs;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Attaches key-value fields to a single message logged by a {@link Logger}.
+ * Retrieved by {@link Logger#at(int)}, and completed by exactly one {@code log} invocation.
+ * Builders are reused by the logging thread after completion, so should not be retained.
+ * <pre>{@code logger.at(Level.INFO).with("user", id).with("ms", elapsed).log("Handled {}", request);}</pre>
+ */
+public final class EventBuilder {
+	private static final EventBuilder DISABLED = new EventBuilder();
+	private static final ThreadLocal<EventBuilder> builders = ThreadLocal.withInitial(EventBuilder::new);
+	private static final int MAX_RETAINED_FIELDS = 1 << 6;
+
+	private Logger logger;
+	private int level;
+	private String[] keys = new String[4];
+	private Object[] values = new Object[4];
+	private int count;
+
+	private boolean inUse;
+
+	/** @return builder which ignores all fields and messages */
+	static EventBuilder disabled() {
+		return DISABLED;
+	}
+	/**
+	 * @param logger logger to log to
+	 * @param level level to log at
+	 * @return reusable builder owned by the current thread, or a new builder if the current thread's builder is in use
+	 */
+	static EventBuilder acquire(Logger logger, int level) {
+		EventBuilder builder = builders.get();
+		if (builder.inUse) builder = new EventBuilder();	// Building another event within a field
+
+		builder.logger = logger;
+		builder.level = level;
+		builder.inUse = true;
+		return builder;
+	}
+	private void release() {
+		Arrays.fill(values, 0, count, null);
+		count = 0;
+		logger = null;
+		if (keys.length > MAX_RETAINED_FIELDS) {
+			keys = new String[4];
+			values = new Object[4];
+		}
+		inUse = false;
+	}
+
+	private EventBuilder() {}
+
+	/**
+	 * Adds a field.
+	 * {@link Supplier} values are resolved only if and when the event is formatted.
+	 * @param key field key
+	 * @param value field value
+	 * @return this builder
+	 */
+	public EventBuilder with(String key, Object value) {
+		if (this == DISABLED) return this;
+
+		if (count == keys.length) {
+			keys = Arrays.copyOf(keys, count * 2);
+			values = Arrays.copyOf(values, count * 2);
+		}
+		keys[count] = key;
+		values[count] = value;
+		count++;
+
+		return this;
+	}
+
+	/**
+	 * Logs a message without args.
+	 * @see Logger#log(int, String)
+	 */
+	public void log(String message) {
+		if (admits(message)) complete(LogEvent.acquire().init(logger.getFormatter(), level, message));
+	}
+	/**
+	 * Logs a message with a single arg.
+	 * @see Logger#log(int, String, Object)
+	 */
+	public void log(String message, Object arg) {
+		if (admits(message)) complete(LogEvent.acquire().init(logger.getFormatter(), level, message, arg));
+	}
+	/**
+	 * Logs a message with 2 args.
+	 * @see Logger#log(int, String, Object, Object)
+	 */
+	public void log(String message, Object arg0, Object arg1) {
+		if (admits(message)) complete(LogEvent.acquire().init(logger.getFormatter(), level, message, arg0, arg1));
+	}
+	/**
+	 * Logs a message.
+	 * @see Logger#log(int, String, Object...)
+	 */
+	public void log(String message, Object... args) {
+		if (admits(message)) complete(LogEvent.acquire().init(logger.getFormatter(), level, message, args));
+	}
+
+	private boolean admits(String message) {
+		if (this == DISABLED) return false;
+		if (logger.admits(level, message)) return true;
+
+		release();
+		return false;
+	}
+	private void complete(LogEvent event) {
+		try {
+			logger.dispatch(event.fields(keys, values, count));
+		} finally {
+			release();
+		}
+	}
+}
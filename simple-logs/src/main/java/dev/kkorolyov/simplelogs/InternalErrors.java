@@ -0,0 +1,40 @@
+package dev.kkorolyov.simplelogs;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Reports errors within logging itself which cannot be thrown to a caller, e.g. a failing flush on a background thread, or a failed props reload.
+ * Errors are printed to {@code System.err} unless another handler is set.
+ */
+public final class InternalErrors {
+	private static final BiConsumer<String, Throwable> PRINT = (message, e) -> {
+		System.err.println("[simple-logs] " + message);
+		e.printStackTrace();
+	};
+	private static volatile BiConsumer<String, Throwable> handler = PRINT;
+
+	private InternalErrors() {}
+
+	/**
+	 * Reports an error to the current handler.
+	 * If the handler itself fails, both errors are printed to {@code System.err}.
+	 * @param message description of the failed operation
+	 * @param e error
+	 */
+	public static void report(String message, Throwable e) {
+		try {
+			handler.accept(message, e);
+		} catch (RuntimeException handlerError) {
+			PRINT.accept(message, e);
+			PRINT.accept("Error handler failed", handlerError);
+		}
+	}
+
+	/**
+	 * Sets the handler invoked with every reported error.
+	 * @param handler error handler, or {@code null} to print errors to {@code System.err}
+	 */
+	public static void setHandler(BiConsumer<String, Throwable> handler) {
+		InternalErrors.handler = handler != null ? handler : PRINT;
+	}
+}
@@ -0,0 +1,233 @@
+package dev.kkorolyov.simplelogs;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable mapped diagnostic context of key-value pairs, e.g. a request ID, attached to every event logged while it is current.
+ * <p>Each thread has a current context, which events capture by reference when logged, so appenders formatting later or on other threads see the context as it was at logging time without copying it.
+ * New threads start with an empty context, as a pooled thread created while running one task would otherwise keep that task's context for every later task.
+ * Tasks run on other threads should be wrapped with {@link #wrap(Runnable)}, {@link #wrap(Callable)}, or {@link #wrap(Executor)} to run with the context current when they were submitted.</p>
+ * <p>Values are stored by {@link Key} index rather than hashed, so a formatter which resolves its keys once reads a value with an array access.
+ * Updates copy the value array, which is only as long as the highest key index used.</p>
+ */
+public final class LogContext {
+	/** Context without any values */
+	public static final LogContext EMPTY = new LogContext(new Object[0], 0);
+
+	/** Maximum number of distinct keys */
+	public static final int MAX_KEYS = 1 << 10;
+
+	private static final Map<String, Key> keys = new ConcurrentHashMap<>();
+	private static final Key[] indexedKeys = new Key[MAX_KEYS];
+	private static int keyCount;
+
+	private static final ThreadLocal<LogContext> current = new ThreadLocal<>();
+
+	private final Object[] values;
+	private final int size;
+
+	private LogContext(Object[] values, int size) {
+		this.values = values;
+		this.size = size;
+	}
+
+	/**
+	 * Returns the key with a name, registering it on first use.
+	 * @param name key name
+	 * @return key named {@code name}
+	 * @throws IllegalStateException if {@code name} is new and {@value #MAX_KEYS} keys are already registered
+	 */
+	public static Key key(String name) {
+		Key key = keys.get(name);
+		if (key == null) {
+			synchronized (keys) {
+				key = keys.get(name);
+				if (key == null) {
+					if (keyCount >= MAX_KEYS) throw new IllegalStateException("More than " + MAX_KEYS + " context keys: " + name);
+
+					key = new Key(name, keyCount);
+					indexedKeys[keyCount++] = key;
+					keys.put(name, key);
+				}
+			}
+		}
+		return key;
+	}
+
+	/** @return context current in this thread */
+	public static LogContext current() {
+		LogContext context = current.get();
+		return context != null ? context : EMPTY;
+	}
+
+	/**
+	 * Sets a value in this thread's context until the returned scope is closed.
+	 * <pre>try (LogContext.Scope scope = LogContext.put("requestId", id)) {...}</pre>
+	 * @param key key name
+	 * @param value value, or {@code null} to remove {@code key}
+	 * @return scope which restores the previous context when closed
+	 * @see #with(Key, Object)
+	 */
+	public static Scope put(String key, Object value) {
+		return put(key(key), value);
+	}
+	/** @see #put(String, Object) */
+	public static Scope put(Key key, Object value) {
+		return attach(current().with(key, value));
+	}
+	/**
+	 * Sets this thread's context until the returned scope is closed.
+	 * @param context context to set
+	 * @return scope which restores the previous context when closed
+	 */
+	public static Scope attach(LogContext context) {
+		LogContext previous = current.get();
+		current.set(context);
+		return new Scope(previous);
+	}
+
+	/**
+	 * @param task task to wrap
+	 * @return task which runs {@code task} with the context current in this thread
+	 */
+	public static Runnable wrap(Runnable task) {
+		LogContext context = current();
+		return () -> {
+			Scope scope = attach(context);
+			try {
+				task.run();
+			} finally {
+				scope.close();
+			}
+		};
+	}
+	/**
+	 * @param task task to wrap
+	 * @return task which calls {@code task} with the context current in this thread
+	 */
+	public static <T> Callable<T> wrap(Callable<T> task) {
+		LogContext context = current();
+		return () -> {
+			Scope scope = attach(context);
+			try {
+				return task.call();
+			} finally {
+				scope.close();
+			}
+		};
+	}
+	/**
+	 * @param executor executor to wrap
+	 * @return executor which runs each task on {@code executor} with the context current in the submitting thread
+	 */
+	public static Executor wrap(Executor executor) {
+		return task -> executor.execute(wrap(task));
+	}
+
+	/**
+	 * @param key key name
+	 * @param value value, or {@code null} to remove {@code key}
+	 * @return context with {@code key} mapped to {@code value}, and all other values of this context
+	 */
+	public LogContext with(String key, Object value) {
+		return with(key(key), value);
+	}
+	/** @see #with(String, Object) */
+	public LogContext with(Key key, Object value) {
+		Object old = get(key);
+		if (old == value) return this;
+
+		Object[] copy = Arrays.copyOf(values, Math.max(values.length, key.index + 1));
+		copy[key.index] = value;
+
+		int length = copy.length;
+		while (length > 0 && copy[length - 1] == null) length--;	// Trim removed trailing values
+
+		int size = this.size + (old == null ? 1 : 0) - (value == null ? 1 : 0);
+		return size == 0 ? EMPTY : new LogContext(length < copy.length ? Arrays.copyOf(copy, length) : copy, size);
+	}
+
+	/**
+	 * @param key key name
+	 * @return value mapped to {@code key}, or {@code null} if none
+	 */
+	public Object get(String key) {
+		return get(key(key));
+	}
+	/** @see #get(String) */
+	public Object get(Key key) {
+		return key.index < values.length ? values[key.index] : null;
+	}
+
+	/**
+	 * Invokes an action on each key-value pair in this context, in key registration order.
+	 * @param action action to invoke
+	 */
+	public void forEach(BiConsumer<? super Key, Object> action) {
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null) action.accept(indexedKeys[i], values[i]);
+		}
+	}
+
+	/** @return number of key-value pairs in this context */
+	public int size() {
+		return size;
+	}
+	/** @return {@code true} if this context has no values */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("{");
+		forEach((key, value) -> builder.append(builder.length() > 1 ? ", " : "").append(key).append('=').append(value));
+		return builder.append('}').toString();
+	}
+
+	/** A context key, resolved once to an index into context values. */
+	public static final class Key {
+		private final String name;
+		private final int index;
+
+		private Key(String name, int index) {
+			this.name = name;
+			this.index = index;
+		}
+
+		/** @return key name */
+		public String getName() {
+			return name;
+		}
+		/** @return index of this key's value in contexts, unique among all keys and within {@code [0, MAX_KEYS)} */
+		public int getIndex() {
+			return index;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	/** Restores a thread's previous context when closed. */
+	public static final class Scope implements AutoCloseable {
+		private final LogContext previous;
+
+		private Scope(LogContext previous) {
+			this.previous = previous;
+		}
+
+		/** Restores the context current in this thread before this scope was opened. */
+		@Override
+		public void close() {
+			if (previous == null) current.remove();
+			else current.set(previous);
+		}
+	}
+}
@@ -0,0 +1,403 @@
+package dev.kkorolyov.simplelogs;
+
+import dev.kkorolyov.simplelogs.format.Formatter;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * A single logged message, as dispatched by a {@link Logger} to its appenders.
+ * Events are reused by the logging thread after dispatch, so appenders must not retain an event, or invoke its methods from other threads.
+ * Anything needed after dispatch should be copied out, e.g. {@link #getFormatted()} or {@link #detach()}.
+ */
+public final class LogEvent {
+	private static final ThreadLocal<LogEvent> events = ThreadLocal.withInitial(LogEvent::new);
+	private static final int MAX_RETAINED_CAPACITY = 1 << 13;
+
+	private final Object[] fixedArgs = new Object[2];
+	private final StringBuilder formatted = new StringBuilder();
+
+	private Formatter formatter;
+	private long timestamp;
+	private int level;
+	private String thread;
+	private String template;
+	private Object[] args;
+	private int argCount;
+	private String[] keys;
+	private Object[] values;
+	private int fieldCount;
+	private Throwable thrown;
+	private LogContext context = LogContext.EMPTY;
+
+	private Instant instant;
+	private StackTraceElement invoker;
+	private String message;
+	private TraceRenderer.Occurrence trace;	// Shared with detached copies
+	private boolean fullTrace = true;
+	private boolean isFormatted;
+	private String formattedString;
+
+	private boolean detached;
+	private boolean inUse;
+
+	private LogEvent() {}
+	/**
+	 * Constructs a detached event, not dispatched by any logger.
+	 * Detached events may be retained and formatted directly with any {@link Formatter}.
+	 * @param timestamp epoch millisecond at which event was logged
+	 * @param level event level
+	 * @param invoker element invoking logger, may be {@code null}
+	 * @param template unresolved message, with '{}' denoting injection points for each arg in {@code args}
+	 * @param args message args
+	 */
+	public LogEvent(long timestamp, int level, StackTraceElement invoker, String template, Object... args) {
+		init(null, level, template, args);
+		this.timestamp = timestamp;
+		thread = null;
+		context = LogContext.EMPTY;
+		this.invoker = invoker;
+		detached = true;
+	}
+
+	/**
+	 * Returns a detached copy of this event which may be retained and formatted after dispatch, e.g. on another thread.
+	 * The invoker is resolved before copying only if this event's formatter {@link Formatter#usesInvoker() uses it}, while {@link Supplier} args and the stack trace of any throwable are left unresolved.
+	 * The stack trace is still rendered in full at most once, by whichever of this event and its copies is formatted first.
+	 * @return detached copy of this event, or this event if already detached
+	 */
+	public LogEvent detach() {
+		if (detached) return this;
+
+		LogEvent copy = new LogEvent();
+		copy.formatter = formatter;
+		copy.timestamp = timestamp;
+		copy.level = level;
+		copy.thread = thread;
+		copy.template = template;
+		copy.args = argCount == 0 ? null : Arrays.copyOf(args, argCount);
+		copy.argCount = argCount;
+		copy.keys = fieldCount == 0 ? null : Arrays.copyOf(keys, fieldCount);
+		copy.values = fieldCount == 0 ? null : Arrays.copyOf(values, fieldCount);
+		copy.fieldCount = fieldCount;
+		copy.thrown = thrown;
+		copy.context = context;
+		copy.invoker = formatter != null && formatter.usesInvoker() ? getInvoker() : invoker;	// Walk the stack only if needed, else keep any already resolved
+		copy.message = message;
+		copy.trace = trace;	// Share, so that the trace is rendered once
+		copy.fullTrace = fullTrace;
+		copy.detached = true;
+
+		return copy;
+	}
+
+	/** @return reusable event owned by the current thread, or a new event if the current thread's event is in use */
+	static LogEvent acquire() {
+		LogEvent event = events.get();
+		if (event.inUse) event = new LogEvent();	// Logged while resolving an outer event
+
+		event.inUse = true;
+		return event;
+	}
+	/**
+	 * Clears this event's state, making it available for reuse.
+	 */
+	void release() {
+		formatter = null;
+		thread = null;
+		template = null;
+		fixedArgs[0] = fixedArgs[1] = null;
+		args = null;
+		keys = null;
+		values = null;
+		fieldCount = 0;
+		thrown = null;
+		context = LogContext.EMPTY;
+		instant = null;
+		invoker = null;
+		message = null;
+		trace = null;
+		fullTrace = true;
+		formattedString = null;
+		isFormatted = false;
+		formatted.setLength(0);
+		if (formatted.capacity() > MAX_RETAINED_CAPACITY) formatted.trimToSize();
+
+		inUse = false;
+	}
+
+	LogEvent init(Formatter formatter, int level, String template) {
+		return init(formatter, level, template, null, 0);
+	}
+	LogEvent init(Formatter formatter, int level, String template, Object arg) {
+		fixedArgs[0] = arg;
+		return init(formatter, level, template, fixedArgs, 1);
+	}
+	LogEvent init(Formatter formatter, int level, String template, Object arg0, Object arg1) {
+		fixedArgs[0] = arg0;
+		fixedArgs[1] = arg1;
+		return init(formatter, level, template, fixedArgs, 2);
+	}
+	LogEvent init(Formatter formatter, int level, String template, Object[] args) {
+		return init(formatter, level, template, args, args == null ? 0 : args.length);
+	}
+	private LogEvent init(Formatter formatter, int level, String template, Object[] args, int argCount) {
+		this.formatter = formatter;
+		timestamp = System.currentTimeMillis();
+		this.level = level;
+		thread = Thread.currentThread().getName();
+		this.template = template;
+		this.args = args;
+		this.argCount = argCount;
+		context = LogContext.current();
+
+		return this;
+	}
+	/**
+	 * Attaches key-value fields to this event.
+	 * @param keys field keys
+	 * @param values field values, at the same indices as their keys
+	 * @param count number of fields to use from {@code keys} and {@code values}
+	 * @return this event
+	 */
+	LogEvent fields(String[] keys, Object[] values, int count) {
+		this.keys = keys;
+		this.values = values;
+		fieldCount = count;
+
+		return this;
+	}
+
+	/** @return epoch millisecond at which this event was logged */
+	public long getTimestamp() {
+		return timestamp;
+	}
+	/** @return instant at which this event was logged */
+	public Instant getInstant() {
+		if (instant == null) instant = Instant.ofEpochMilli(timestamp);
+		return instant;
+	}
+
+	/** @return event level */
+	public int getLevel() {
+		return level;
+	}
+
+	/**
+	 * Sets the name of the thread which logged this detached event.
+	 * @param thread name of logging thread
+	 * @return this event
+	 * @throws IllegalStateException if this event is not detached
+	 */
+	public LogEvent withThread(String thread) {
+		if (!detached) throw new IllegalStateException("Only detached events may be modified");
+
+		this.thread = thread;
+		return this;
+	}
+	/** @return name of the thread which logged this event, captured when logged, or {@code null} if not known by a detached event */
+	public String getThread() {
+		return thread;
+	}
+
+	/**
+	 * Returns the element which invoked the logger.
+	 * For dispatched events, this is resolved from the current stack on first invocation, and so must first be invoked on the logging thread during dispatch.
+	 * @return element invoking logger, or {@code null} if not known by a detached event
+	 */
+	public StackTraceElement getInvoker() {
+		if (invoker == null && !detached) invoker = Logger.findInvoker();
+		return invoker;
+	}
+
+	/** @return unresolved message, with '{}' denoting injection points for each arg */
+	public String getTemplate() {
+		return template;
+	}
+	/** @return number of message args */
+	public int getArgCount() {
+		return argCount;
+	}
+	/**
+	 * @param i arg index
+	 * @return unresolved message arg at index {@code i}
+	 * @throws IndexOutOfBoundsException if {@code i} is not within {@code [0, getArgCount())}
+	 */
+	public Object getArg(int i) {
+		if (i < 0 || i >= argCount) throw new IndexOutOfBoundsException("arg index " + i + " not within [0, " + argCount + ")");
+		return args[i];
+	}
+
+	/**
+	 * Attaches a throwable, counting an occurrence of its stack trace.
+	 * @param thrown throwable logged by this event
+	 * @return this event
+	 */
+	LogEvent thrown(Throwable thrown) {
+		this.thrown = thrown;
+		trace = thrown != null ? TraceRenderer.record(thrown) : null;
+		fullTrace = true;
+		return this;
+	}
+	/**
+	 * Selects how this event's stack trace is rendered for the appender about to write it: in full if the appender has not recently been given it in full, else as a reference.
+	 * @param appender appender about to write this event
+	 */
+	void selectTrace(Object appender) {
+		if (trace == null) return;
+
+		boolean full = TraceRenderer.isNewTo(appender, trace, timestamp);
+		if (full == fullTrace) return;
+
+		fullTrace = full;
+		message = null;	// Drop renderings of the other form
+		formattedString = null;
+		isFormatted = false;
+		formatted.setLength(0);
+	}
+	/**
+	 * Attaches a throwable to this detached event.
+	 * Its stack trace is always rendered in full, and is not counted as a repeat of any logged trace.
+	 * @param thrown throwable logged by this event
+	 * @return this event
+	 * @throws IllegalStateException if this event is not detached
+	 */
+	public LogEvent withThrown(Throwable thrown) {
+		if (!detached) throw new IllegalStateException("Only detached events may be modified");
+
+		this.thrown = thrown;
+		trace = thrown != null ? TraceRenderer.uncounted(thrown) : null;
+		fullTrace = true;
+		return this;
+	}
+	/** @return throwable logged by this event, or {@code null} if not logging a throwable */
+	public Throwable getThrown() {
+		return thrown;
+	}
+
+	/**
+	 * Attaches a context to this detached event.
+	 * @param context context of this event
+	 * @return this event
+	 * @throws IllegalStateException if this event is not detached
+	 */
+	public LogEvent withContext(LogContext context) {
+		if (!detached) throw new IllegalStateException("Only detached events may be modified");
+
+		this.context = context;
+		return this;
+	}
+	/** @return context current in the logging thread when this event was logged, or {@link LogContext#EMPTY} if constructed detached without a context */
+	public LogContext getContext() {
+		return context;
+	}
+
+	/**
+	 * Attaches key-value fields to this detached event.
+	 * The arrays are retained, not copied.
+	 * @param keys field keys
+	 * @param values field values, at the same indices as their keys
+	 * @param count number of fields to use from {@code keys} and {@code values}
+	 * @return this event
+	 * @throws IllegalStateException if this event is not detached
+	 * @throws IllegalArgumentException if {@code count} is negative or greater than the length of {@code keys} or {@code values}
+	 */
+	public LogEvent withFields(String[] keys, Object[] values, int count) {
+		if (!detached) throw new IllegalStateException("Only detached events may be modified");
+		if (count < 0 || (count > 0 && (count > keys.length || count > values.length))) throw new IllegalArgumentException("count not within bounds of keys and values: " + count);
+
+		return fields(keys, values, count);
+	}
+	/** @return number of key-value fields */
+	public int getFieldCount() {
+		return fieldCount;
+	}
+	/**
+	 * @param i field index
+	 * @return key of field at index {@code i}
+	 * @throws IndexOutOfBoundsException if {@code i} is not within {@code [0, getFieldCount())}
+	 */
+	public String getFieldKey(int i) {
+		if (i < 0 || i >= fieldCount) throw new IndexOutOfBoundsException("field index " + i + " not within [0, " + fieldCount + ")");
+		return keys[i];
+	}
+	/**
+	 * @param i field index
+	 * @return unresolved value of field at index {@code i}
+	 * @throws IndexOutOfBoundsException if {@code i} is not within {@code [0, getFieldCount())}
+	 */
+	public Object getFieldValue(int i) {
+		if (i < 0 || i >= fieldCount) throw new IndexOutOfBoundsException("field index " + i + " not within [0, " + fieldCount + ")");
+		return values[i];
+	}
+
+	/**
+	 * Returns the message with all args resolved.
+	 * {@link Supplier} args are resolved on first invocation.
+	 * If this event logs a throwable, the message is followed by its stack trace, or a reference to an identical stack trace given earlier to the same appender.
+	 * @return resolved message
+	 */
+	public String getMessage() {
+		if (message == null) {
+			if (thrown != null) message = appendMessage(new StringBuilder()).toString();
+			else message = argCount == 0 ? template : MessageTemplate.of(template).render(args, argCount);
+		}
+		return message;
+	}
+	/**
+	 * Appends the resolved message to a builder without creating intermediate strings.
+	 * @param out builder to append to
+	 * @return {@code out}
+	 */
+	public StringBuilder appendMessage(StringBuilder out) {
+		if (message != null) return out.append(message);
+
+		if (argCount == 0) out.append(template);
+		else MessageTemplate.of(template).renderTo(out, args, argCount);
+
+		if (thrown != null) {
+			if (!template.isEmpty()) out.append(System.lineSeparator());
+			if (fullTrace) out.append(trace.full());
+			else trace.appendReference(out);
+		}
+		return out;
+	}
+
+	/** @return formatter of the logger which logged this event, or {@code null} if constructed detached */
+	public Formatter getFormatter() {
+		return formatter;
+	}
+	/**
+	 * Returns this event as formatted by its logger's formatter.
+	 * The event is formatted once on first invocation, and the result is shared by all appenders.
+	 * The returned sequence is only valid during dispatch.
+	 * @return formatted event
+	 * @throws IllegalStateException if this event has no formatter
+	 */
+	public CharSequence format() {
+		if (formatter == null) throw new IllegalStateException("Detached event has no formatter");
+
+		if (!isFormatted) {
+			formatter.format(this, formatted);
+			isFormatted = true;
+		}
+		return formatted;
+	}
+	/** @return formatted event as a string */
+	public String getFormatted() {
+		if (formattedString == null) formattedString = format().toString();
+		return formattedString;
+	}
+
+	@Override
+	public String toString() {
+		return "LogEvent{" +
+				"timestamp=" + timestamp +
+				", level=" + Level.toString(level) +
+				", template='" + template + '\'' +
+				", argCount=" + argCount +
+				", fieldCount=" + fieldCount +
+				'}';
+	}
+}
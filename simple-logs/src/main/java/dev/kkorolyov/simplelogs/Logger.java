@@ -5,34 +5,45 @@ import dev.kkorolyov.simplelogs.append.Appenders;
 import dev.kkorolyov.simplelogs.format.Formatter;
 import dev.kkorolyov.simplelogs.format.Formatters;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.lang.StackWalker.StackFrame;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.Instant;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.StringJoiner;
+import java.util.function.Function;
 import java.util.function.Supplier;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
  * Simple logging interface for multiple levels.
  */
 public class Logger {
-	private static final Map<String, Logger> instances = new HashMap<>();
+	private static final LoggerRegistry registry = new LoggerRegistry();
 
-	private int level;
-	private Formatter formatter;
-	private Set<Appender> appenders = new HashSet<>();
+	private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+	private static final Function<Stream<StackFrame>, Optional<StackTraceElement>> FIND_INVOKER = frames -> frames
+			.skip(1)	// findInvoker()
+			.dropWhile(frame -> !isLogger(frame))	// Frames resolving an event
+			.dropWhile(Logger::isLogger)
+			.findFirst()	// Latest non-Logger invoker
+			.map(StackFrame::toStackTraceElement);
 
-	private Set<Logger> parents = new HashSet<>();
+	private final String name;
+	private final LoggerMetrics metrics = new LoggerMetrics();
+	private volatile Config config = Config.EMPTY;
+
+	private volatile Logger parent;
+	private final Set<Logger> children = new HashSet<>();
+
+	private final Runnable refresher = this::refresh;
 
 	/**
 	 * Applies logging properties defined in a file.
@@ -81,6 +92,37 @@ public class Logger {
 		}
 	}
 
+	/**
+	 * Applies logging properties defined in a file, then reapplies them on a background thread whenever the file changes.
+	 * Each reload builds the configuration of all loggers in the file before publishing any of it, and keeps the previous configuration if the file is invalid.
+	 * Each logger's configuration is replaced as a whole, so logging threads never observe a partially-applied configuration of a single logger.
+	 * Loggers are reconfigured one at a time, so during a reload some loggers may already log by the new configuration while others still log by the previous one.
+	 * @param logProps path to logging properties file
+	 * @return handle which stops watching {@code logProps} when closed
+	 * @see #applyProps(Path)
+	 */
+	public static Closeable watchProps(Path logProps) {
+		try {
+			return (Closeable) Class.forName("dev.kkorolyov.simplelogs.PropsApplier").getDeclaredMethod("watch", Path.class).invoke(null, logProps);
+		} catch (InvocationTargetException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) throw new UncheckedIOException((IOException) cause);
+			throw new RuntimeException(cause);
+		} catch (IllegalAccessException | IllegalArgumentException | NoSuchMethodException | SecurityException | ClassNotFoundException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Exposes the metrics of all loggers and their appenders through the platform MBean server, including loggers and appenders added later.
+	 * Loggers are registered as {@code dev.kkorolyov.simplelogs:type=Logger,name="NAME"}, and appenders as {@code dev.kkorolyov.simplelogs:type=Appender,name="CLASS@ID"}.
+	 * @see LoggerMetrics
+	 * @see dev.kkorolyov.simplelogs.append.AppenderMetrics
+	 */
+	public static void registerMBeans() {
+		MBeans.enable(registry.loggers());
+	}
+
 	/**
 	 * Retrieves the logger associated with the fully-qualified name of the class calling this method.
 	 * If such a logger does not exist, a new logger associated with the calling class name is created with level {@value Level#INFO}, the simple formatter, and an appender to {@code System.err}.
@@ -97,9 +139,9 @@ public class Logger {
 	 * @return logger associated with {@code name}
 	 */
 	public static Logger getLogger(String name) {
-		Logger instance = instances.get(name);
+		Logger instance = registry.get(name);
 
-		return instance != null ? instance : getLogger(name, Level.INFO, Formatters.simple(), Appenders.err(Level.INFO));
+		return instance != null ? instance : register(name, new Logger(name, Level.INFO, Formatters.simple(), null, Appenders.err(Level.INFO)));
 	}
 
 	/**
@@ -122,46 +164,88 @@ public class Logger {
 	 * @return logger associated with {@code name}
 	 */
 	public static Logger getLogger(String name, int level, Formatter formatter, Appender... appenders) {
-		Logger instance = instances.get(name);
+		Logger instance = registry.get(name);
 
 		if (instance == null) {
-			instance = new Logger(level, formatter, appenders);
-			register(name, instance);
-		} else {
-			instance.setLevel(level);
-			instance.setFormatter(formatter);
-			instance.setAppenders(appenders);
+			Logger created = new Logger(name, level, formatter, null, appenders);
+			instance = register(name, created);
+
+			if (instance == created) return created;	// Else registered concurrently
+		}
+		synchronized (registry) {
+			instance.configure(level, formatter, distinct(appenders), instance.config.limiter);
 		}
 		return instance;
 	}
+	/**
+	 * Retrieves the logger associated with {@code name} and replaces its entire configuration in a single update.
+	 * @param name logger name
+	 * @param level logging level
+	 * @param formatter message formatter
+	 * @param limiter rate limiter, or {@code null}
+	 * @param appenders output appenders
+	 * @return logger associated with {@code name}
+	 */
+	static Logger configure(String name, int level, Formatter formatter, RateLimiter limiter, Appender... appenders) {
+		Logger instance = registry.get(name);
 
-	private static void register(String name, Logger logger) {
-		instances.entrySet().parallelStream()
-						 .filter(entry -> entry.getKey().equals("") || name.matches(entry.getKey() + "\\..+"))	// Add all parents to this logger
-						 .forEach(entry -> logger.parents.add(entry.getValue()));
-
-		instances.entrySet().parallelStream()
-						 .filter(entry -> name.equals("") || entry.getKey().matches(name + "\\..+"))	// Add this logger as parent to all child loggers
-						 .forEach(entry -> entry.getValue().parents.add(logger));
+		if (instance == null) {
+			Logger created = new Logger(name, level, formatter, limiter, appenders);
+			instance = register(name, created);
 
-		instances.put(name, logger);
+			if (instance == created) return created;
+		}
+		instance.configure(level, formatter, distinct(appenders), limiter);
+		return instance;
 	}
 
-	private static StackTraceElement findInvoker() {
-		StackTraceElement[] stackTrace = new Throwable().getStackTrace();
+	static StackTraceElement findInvoker() {
+		return STACK_WALKER.walk(FIND_INVOKER)
+				.orElseThrow(() -> new IllegalStateException("Not invoked from outside of Logger class"));	// Should not happen
+	}
+	private static boolean isLogger(StackFrame frame) {
+		String className = frame.getClassName();
+		return className.equals(Logger.class.getName()) || className.equals(EventBuilder.class.getName());
+	}
 
-		for (int i = 2; i < stackTrace.length; i++) {
-			if (!stackTrace[i].getClassName().equals(Logger.class.getName())) return stackTrace[i];	// Return latest non-Logger invoker
+	private Logger(String name, int level, Formatter formatter, RateLimiter limiter, Appender... appenders) {
+		this.name = name;
+		configure(level, formatter, distinct(appenders), limiter);
+	}
+	/**
+	 * Registers a new logger, or detaches it from its appenders if another logger was registered under {@code name} concurrently.
+	 * @return logger registered under {@code name}
+	 */
+	private static Logger register(String name, Logger created) {
+		Logger instance = registry.register(name, created);
+		if (instance != created) {
+			Config config = created.config;
+			created.configure(config.level, config.formatter, Config.EMPTY.appenders, config.limiter);	// Remove threshold listeners and MBean references
 		}
-		throw new IllegalStateException("Not invoked from outside of Logger class");	// Should not happen
+		return instance;
 	}
 
-	private Logger(int level, Formatter formatter, Appender... appenders) {
-		setLevel(level);
-		setFormatter(formatter);
-		setAppenders(appenders);
+	/**
+	 * Logs a message at the {@code FATAL} level.
+	 * @see #log(int, String)
+	 */
+	public void fatal(String message) {
+		log(Level.FATAL, message);
+	}
+	/**
+	 * Logs a message at the {@code FATAL} level.
+	 * @see #log(int, String, Object)
+	 */
+	public void fatal(String message, Object arg) {
+		log(Level.FATAL, message, arg);
+	}
+	/**
+	 * Logs a message at the {@code FATAL} level.
+	 * @see #log(int, String, Object, Object)
+	 */
+	public void fatal(String message, Object arg0, Object arg1) {
+		log(Level.FATAL, message, arg0, arg1);
 	}
-
 	/**
 	 * Logs a message at the {@code FATAL} level.
 	 * @see #log(int, String, Object...)
@@ -170,6 +254,27 @@ public class Logger {
 		log(Level.FATAL, message, args);
 	}
 
+	/**
+	 * Logs a message at the {@code SEVERE} level.
+	 * @see #log(int, String)
+	 */
+	public void severe(String message) {
+		log(Level.SEVERE, message);
+	}
+	/**
+	 * Logs a message at the {@code SEVERE} level.
+	 * @see #log(int, String, Object)
+	 */
+	public void severe(String message, Object arg) {
+		log(Level.SEVERE, message, arg);
+	}
+	/**
+	 * Logs a message at the {@code SEVERE} level.
+	 * @see #log(int, String, Object, Object)
+	 */
+	public void severe(String message, Object arg0, Object arg1) {
+		log(Level.SEVERE, message, arg0, arg1);
+	}
 	/**
 	 * Logs a message at the {@code SEVERE} level.
 	 * @see #log(int, String, Object...)
@@ -178,6 +283,27 @@ public class Logger {
 		log(Level.SEVERE, message, args);
 	}
 
+	/**
+	 * Logs a message at the {@code WARNING} level.
+	 * @see #log(int, String)
+	 */
+	public void warning(String message) {
+		log(Level.WARNING, message);
+	}
+	/**
+	 * Logs a message at the {@code WARNING} level.
+	 * @see #log(int, String, Object)
+	 */
+	public void warning(String message, Object arg) {
+		log(Level.WARNING, message, arg);
+	}
+	/**
+	 * Logs a message at the {@code WARNING} level.
+	 * @see #log(int, String, Object, Object)
+	 */
+	public void warning(String message, Object arg0, Object arg1) {
+		log(Level.WARNING, message, arg0, arg1);
+	}
 	/**
 	 * Logs a message at the {@code WARNING} level.
 	 * @see #log(int, String, Object...)
@@ -186,6 +312,27 @@ public class Logger {
 		log(Level.WARNING, message, args);
 	}
 
+	/**
+	 * Logs a message at the {@code INFO} level.
+	 * @see #log(int, String)
+	 */
+	public void info(String message) {
+		log(Level.INFO, message);
+	}
+	/**
+	 * Logs a message at the {@code INFO} level.
+	 * @see #log(int, String, Object)
+	 */
+	public void info(String message, Object arg) {
+		log(Level.INFO, message, arg);
+	}
+	/**
+	 * Logs a message at the {@code INFO} level.
+	 * @see #log(int, String, Object, Object)
+	 */
+	public void info(String message, Object arg0, Object arg1) {
+		log(Level.INFO, message, arg0, arg1);
+	}
 	/**
 	 * Logs a message at the {@code INFO} level.
 	 * @see #log(int, String, Object...)
@@ -194,6 +341,27 @@ public class Logger {
 		log(Level.INFO, message, args);
 	}
 
+	/**
+	 * Logs a message at the {@code DEBUG} level.
+	 * @see #log(int, String)
+	 */
+	public void debug(String message) {
+		log(Level.DEBUG, message);
+	}
+	/**
+	 * Logs a message at the {@code DEBUG} level.
+	 * @see #log(int, String, Object)
+	 */
+	public void debug(String message, Object arg) {
+		log(Level.DEBUG, message, arg);
+	}
+	/**
+	 * Logs a message at the {@code DEBUG} level.
+	 * @see #log(int, String, Object, Object)
+	 */
+	public void debug(String message, Object arg0, Object arg1) {
+		log(Level.DEBUG, message, arg0, arg1);
+	}
 	/**
 	 * Logs a message at the {@code DEBUG} level.
 	 * @see #log(int, String, Object...)
@@ -212,22 +380,40 @@ public class Logger {
 
 	/**
 	 * Logs a {@link Throwable} at a specified logging level.
+	 * The stack trace is not rendered until the event is formatted, which asynchronous appenders do on their background thread.
+	 * A stack trace identical to one an appender has already been given in full is given to that appender as a short reference to the earlier trace.
 	 * @param e throwable to log
 	 * @param level level to log at
 	 */
 	public void exception(int level, Throwable e) {
-		if (logs(level)) {  // Avoid needlessly formatting exception stack
-			log(level, formatException(e));
-		}
+		Config config = this.config;
+		if (level <= config.effectiveLevel && admits(config, level, e.getClass().getName())) dispatch(config, LogEvent.acquire().init(config.formatter, level, "").thrown(e));
 	}
-	private static String formatException(Throwable e) {
-		StringJoiner joiner = new StringJoiner(System.lineSeparator() + "\tat ", e.toString(), "");
 
-		for (StackTraceElement element : e.getStackTrace()) joiner.add(element.toString());
-
-		return joiner.toString();
+	/**
+	 * Attempts to log a message without args.
+	 * @see #log(int, String, Object...)
+	 */
+	public void log(int level, String message) {
+		Config config = this.config;
+		if (level <= config.effectiveLevel && admits(config, level, message)) dispatch(config, LogEvent.acquire().init(config.formatter, level, message));
+	}
+	/**
+	 * Attempts to log a message with a single arg, without allocating an args array.
+	 * @see #log(int, String, Object...)
+	 */
+	public void log(int level, String message, Object arg) {
+		Config config = this.config;
+		if (level <= config.effectiveLevel && admits(config, level, message)) dispatch(config, LogEvent.acquire().init(config.formatter, level, message, arg));
+	}
+	/**
+	 * Attempts to log a message with 2 args, without allocating an args array.
+	 * @see #log(int, String, Object...)
+	 */
+	public void log(int level, String message, Object arg0, Object arg1) {
+		Config config = this.config;
+		if (level <= config.effectiveLevel && admits(config, level, message)) dispatch(config, LogEvent.acquire().init(config.formatter, level, message, arg0, arg1));
 	}
-
 	/**
 	 * Attempts to log a message.
 	 * The message is logged only if its level is {@code <=} this logger's level and this logger has at least 1 appender able to append the message.
@@ -237,70 +423,158 @@ public class Logger {
 	 * @param args arguments which are lazily resolved to their string representations ({@code Supplier -> get()}, {@code Object -> toString()}) and injected into {@code message} at logging time
 	 */
 	public void log(int level, String message, Object... args) {
-		if (logs(level)) {
-			String formattedMessage = formatter.format(Instant.now(), findInvoker(), level, resolve(message, args));
-
-			appendToAll(level, formattedMessage);
-			for (Logger parent : parents) parent.appendToAll(level, formattedMessage);
-		}
+		Config config = this.config;
+		if (level <= config.effectiveLevel && admits(config, level, message)) dispatch(config, LogEvent.acquire().init(config.formatter, level, message, args));
 	}
 
-	private String resolve(String message, Object... args) {
-		String result = message;
+	/**
+	 * Returns a builder for a message with key-value fields.
+	 * If this logger does not log {@code level}, the returned builder ignores all fields and messages.
+	 * @param level granularity to log at
+	 * @return builder logging to this logger at {@code level}
+	 */
+	public EventBuilder at(int level) {
+		return logs(level) ? EventBuilder.acquire(this, level) : EventBuilder.disabled();
+	}
 
-		if (args != null) {
-			for (Object arg : args) {
-				String replacement;
+	/**
+	 * @param level message level
+	 * @param template unresolved message
+	 * @return {@code true} if this logger's rate limiter, if any, admits the message
+	 */
+	boolean admits(int level, String template) {
+		return admits(config, level, template);
+	}
+	private boolean admits(Config config, int level, String template) {
+		RateLimiter limiter = config.limiter;
+		if (limiter == null || limiter.admits(this, level, template)) return true;
 
-				if (arg == null) replacement = "null";
-				else if (arg instanceof  Supplier) replacement = ((Supplier) arg).get().toString();
-				else replacement = arg.toString();
+		metrics.recordSuppressed();
+		return false;
+	}
 
-				result = result.replaceFirst(Pattern.quote("{}"), Matcher.quoteReplacement(replacement));
+	void dispatch(LogEvent event) {
+		dispatch(config, event);
+	}
+	private void dispatch(Config config, LogEvent event) {
+		metrics.recordEvent(event.getLevel());
+		try {
+			if (event.getThrown() == null) {
+				for (Appender appender : config.dispatched) appender.append(event);
+			} else {
+				for (Appender appender : config.dispatched) {
+					if (appender.logs(event.getLevel())) event.selectTrace(appender);	// Only appenders which write it have seen a trace
+					appender.append(event);
+				}
 			}
+		} finally {
+			event.release();
 		}
-		return result;
-	}
-
-	private void appendToAll(int level, String message) {
-		for (Appender appender : appenders) appender.append(level, message);
 	}
 
 	/**
+	 * Checks against an effective level cached whenever this logger's level, appenders, appender thresholds, or parents change.
 	 * @param level granularity level
 	 * @return {@code true} if {@code level <=} this logger's level and this logger has at least 1 appender which accepts messages of such level
 	 */
 	public boolean logs(int level) {
-		return level <= this.level && hasAcceptingAppender(level);
+		return level <= config.effectiveLevel;
 	}
-	private boolean hasAcceptingAppender(int level) {
-		for (Appender appender : appenders) {
-			if (appender.logs(level)) return true;
-		}
-		for (Logger parent : parents) {
-			for (Appender appender : parent.appenders) {
-				if (appender.logs(level)) return true;
+
+	/**
+	 * Publishes a new configuration snapshot, then refreshes all descendants' snapshots.
+	 * Guarded by the registry, which also guards hierarchy changes.
+	 */
+	private void configure(int level, Formatter formatter, Appender[] appenders, RateLimiter limiter) {
+		synchronized (registry) {
+			Config old = config;
+			if (appenders != old.appenders) {
+				for (Appender appender : appenders) {
+					if (indexOf(old.appenders, appender) < 0) {
+						appender.addThresholdListener(refresher);
+						MBeans.register(appender);
+					}
+				}
+				for (Appender appender : old.appenders) {
+					if (indexOf(appenders, appender) < 0) {
+						appender.removeThresholdListener(refresher);
+						MBeans.unregister(appender);
+					}
+				}
 			}
+			Logger parent = this.parent;
+			config = new Config(level, formatter, appenders, limiter, parent != null ? parent.config : null);
+
+			for (Logger child : children) child.refresh();
+		}
+	}
+	/**
+	 * Recomputes the effective levels of this logger and all its descendants.
+	 */
+	private void refresh() {
+		synchronized (registry) {
+			Config config = this.config;
+			configure(config.level, config.formatter, config.appenders, config.limiter);
+		}
+	}
+
+	/**
+	 * Invoked by the registry when linking loggers.
+	 * @param parent nearest registered ancestor of this logger
+	 */
+	void setParent(Logger parent) {
+		synchronized (registry) {
+			if (this.parent != null) this.parent.children.remove(this);
+			this.parent = parent;
+			if (parent != null) parent.children.add(this);
+
+			refresh();
 		}
-		return false;
+	}
+
+	/** @return name this logger is registered under */
+	public String getName() {
+		return name;
+	}
+	/** @return counters of events logged by this logger */
+	public LoggerMetrics getMetrics() {
+		return metrics;
 	}
 
 	/** @return maximum level of messages logged by this logger */
 	public int getLevel() {
-		return level;
+		return config.level;
 	}
 	/** @param level new logging level */
 	public void setLevel(int level) {
-		this.level = level;
+		synchronized (registry) {
+			Config config = this.config;
+			configure(level, config.formatter, config.appenders, config.limiter);
+		}
+	}
+
+	/** @return current rate limiter, or {@code null} if messages are not rate limited */
+	public RateLimiter getLimiter() {
+		return config.limiter;
+	}
+	/** @param limiter new rate limiter applied to messages within this logger's level before they are formatted; if {@code null}, messages are not rate limited */
+	public void setLimiter(RateLimiter limiter) {
+		synchronized (registry) {
+			Config config = this.config;
+			configure(config.level, config.formatter, config.appenders, limiter);
+		}
 	}
 
 	/** @return current message formatter */
 	public Formatter getFormatter() {
-		return formatter;
+		return config.formatter;
 	}
 	/** @param formatter new message formatter */
 	public void setFormatter(Formatter formatter) {
-		this.formatter = formatter;
+		synchronized (registry) {
+			Config config = this.config;
+			configure(config.level, formatter, config.appenders, config.limiter);
+		}
 	}
 
 	/**
@@ -308,24 +582,93 @@ public class Logger {
 	 * @return {@code true} if this logger did not contain {@code toAdd}
 	 */
 	public boolean addAppender(Appender toAdd) {
-		return appenders.add(toAdd);
+		synchronized (registry) {
+			Config config = this.config;
+			if (indexOf(config.appenders, toAdd) >= 0) return false;
+
+			Appender[] appenders = Arrays.copyOf(config.appenders, config.appenders.length + 1);
+			appenders[appenders.length - 1] = toAdd;
+			configure(config.level, config.formatter, appenders, config.limiter);
+
+			return true;
+		}
 	}
 	/**
 	 * @param toRemove appender to remove
 	 * @return {@code true} if this logger contained {@code toRemove}
 	 */
 	public boolean removeAppender(Appender toRemove) {
-		return appenders.remove(toRemove);
+		synchronized (registry) {
+			Config config = this.config;
+			int i = indexOf(config.appenders, toRemove);
+			if (i < 0) return false;
+
+			Appender[] appenders = new Appender[config.appenders.length - 1];
+			System.arraycopy(config.appenders, 0, appenders, 0, i);
+			System.arraycopy(config.appenders, i + 1, appenders, i, appenders.length - i);
+			configure(config.level, config.formatter, appenders, config.limiter);
+
+			return true;
+		}
 	}
 
 	/** @return all current message appenders */
 	public Iterable<Appender> getAppenders() {
-		return appenders;
+		return Collections.unmodifiableList(Arrays.asList(config.appenders));
 	}
 	/** @param appenders new appenders; if {@code null} or omitted, clears existing appenders */
 	public void setAppenders(Appender... appenders) {
-		this.appenders.clear();
+		synchronized (registry) {
+			Config config = this.config;
+			configure(config.level, config.formatter, distinct(appenders), config.limiter);
+		}
+	}
+
+	private static Appender[] distinct(Appender[] appenders) {
+		return appenders == null ? Config.EMPTY.appenders : Arrays.stream(appenders).distinct().toArray(Appender[]::new);
+	}
+	private static int indexOf(Appender[] appenders, Appender appender) {
+		for (int i = 0; i < appenders.length; i++) {
+			if (appenders[i] == appender) return i;
+		}
+		return -1;
+	}
 
-		if (appenders != null) this.appenders.addAll(Arrays.asList(appenders));
+	/**
+	 * Immutable snapshot of a logger's configuration.
+	 * Every change publishes a new snapshot, so logging threads read a consistent configuration through a single volatile read without locking.
+	 * Each snapshot flattens the appenders of its logger and all ancestors into a single array, so an appender shared along the hierarchy is appended to once.
+	 */
+	private static final class Config {
+		static final Config EMPTY = new Config(Integer.MIN_VALUE, null, new Appender[0], null, null);
+
+		final int level;
+		final Formatter formatter;
+		final Appender[] appenders;
+		final RateLimiter limiter;
+
+		final Appender[] dispatched;	// Own, then ancestor appenders, each appearing once
+		final long effectiveLevel;	// Below every level if there are no appenders
+
+		Config(int level, Formatter formatter, Appender[] appenders, RateLimiter limiter, Config parent) {
+			this.level = level;
+			this.formatter = formatter;
+			this.appenders = appenders;
+			this.limiter = limiter;
+
+			dispatched = parent == null || parent.dispatched.length == 0 ? appenders : flatten(appenders, parent.dispatched);
+
+			int maxThreshold = Integer.MIN_VALUE;
+			for (Appender appender : dispatched) maxThreshold = Math.max(maxThreshold, appender.getThreshold());
+			effectiveLevel = dispatched.length == 0 ? Long.MIN_VALUE : Math.min(level, maxThreshold);
+		}
+		private static Appender[] flatten(Appender[] own, Appender[] inherited) {
+			Appender[] flattened = Arrays.copyOf(own, own.length + inherited.length);
+			int length = own.length;
+			for (Appender appender : inherited) {
+				if (indexOf(own, appender) < 0) flattened[length++] = appender;
+			}
+			return length == flattened.length ? flattened : Arrays.copyOf(flattened, length);
+		}
 	}
 }
@@ -0,0 +1,92 @@
+package dev.kkorolyov.simplelogs;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts events logged by a single {@link Logger}.
+ * Counters are striped {@link LongAdder}s, so logging threads do not contend on updating them.
+ * Events are counted per standard level, with a level between standard levels counted under the next less severe standard level.
+ */
+public final class LoggerMetrics implements LoggerMetricsMXBean {
+	private static final int[] LEVELS = {Level.FATAL, Level.SEVERE, Level.WARNING, Level.INFO, Level.DEBUG, Level.ALL};
+
+	private final LongAdder[] events = new LongAdder[LEVELS.length];
+	private final LongAdder suppressed = new LongAdder();
+
+	LoggerMetrics() {
+		for (int i = 0; i < events.length; i++) events[i] = new LongAdder();
+	}
+
+	void recordEvent(int level) {
+		events[bucket(level)].increment();
+	}
+	void recordSuppressed() {
+		suppressed.increment();
+	}
+
+	private static int bucket(int level) {
+		int i = 0;
+		while (level > LEVELS[i]) i++;	// LEVELS ends at ALL
+		return i;
+	}
+
+	/**
+	 * @param level event level
+	 * @return number of events logged in the same standard level bucket as {@code level}
+	 */
+	public long getEvents(int level) {
+		return events[bucket(level)].sum();
+	}
+	/** @return total number of events logged */
+	@Override
+	public long getEvents() {
+		long total = 0;
+		for (LongAdder counter : events) total += counter.sum();
+		return total;
+	}
+	@Override
+	public long getFatal() {
+		return getEvents(Level.FATAL);
+	}
+	@Override
+	public long getSevere() {
+		return getEvents(Level.SEVERE);
+	}
+	@Override
+	public long getWarning() {
+		return getEvents(Level.WARNING);
+	}
+	@Override
+	public long getInfo() {
+		return getEvents(Level.INFO);
+	}
+	@Override
+	public long getDebug() {
+		return getEvents(Level.DEBUG);
+	}
+	/** @return number of events within the logger's level but suppressed by its rate limiter */
+	@Override
+	public long getSuppressed() {
+		return suppressed.sum();
+	}
+
+	/**
+	 * Returns the current value of every counter.
+	 * Each counter is read independently, so counters updated concurrently may be slightly out of step with each other.
+	 * @return counter values by name, e.g. {@code events.INFO}
+	 */
+	public Map<String, Long> snapshot() {
+		Map<String, Long> snapshot = new LinkedHashMap<>();
+		for (int i = 0; i < LEVELS.length; i++) snapshot.put("events." + Level.toString(LEVELS[i]), events[i].sum());
+		snapshot.put("suppressed", getSuppressed());
+
+		return snapshot;
+	}
+
+	@Override
+	public String toString() {
+		return "LoggerMetrics" + snapshot();
+	}
+}
@@ -0,0 +1,22 @@
+package dev.kkorolyov.simplelogs;
+
+/**
+ * JMX view of {@link LoggerMetrics}.
+ * @see Logger#registerMBeans()
+ */
+public interface LoggerMetricsMXBean {
+	/** @return total number of events logged */
+	long getEvents();
+	/** @return number of events logged at {@code FATAL} */
+	long getFatal();
+	/** @return number of events logged below {@code FATAL}, up to {@code SEVERE} */
+	long getSevere();
+	/** @return number of events logged below {@code SEVERE}, up to {@code WARNING} */
+	long getWarning();
+	/** @return number of events logged below {@code WARNING}, up to {@code INFO} */
+	long getInfo();
+	/** @return number of events logged below {@code INFO}, up to {@code DEBUG} */
+	long getDebug();
+	/** @return number of events suppressed by a rate limiter */
+	long getSuppressed();
+}
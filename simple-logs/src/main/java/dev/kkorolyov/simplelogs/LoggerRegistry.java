@@ -0,0 +1,71 @@
+package dev.kkorolyov.simplelogs;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registers loggers in a tree of {@code .}-delimited name segments.
+ * Registered loggers are looked up by full name without locking, while registration links a logger to its nearest registered ancestor and descendants in time proportional to name depth.
+ */
+final class LoggerRegistry {
+	private final Map<String, Logger> instances = new ConcurrentHashMap<>();
+	private final Node root = new Node();
+
+	/**
+	 * @param name logger name
+	 * @return logger registered under {@code name}, or {@code null} if no such logger
+	 */
+	Logger get(String name) {
+		return instances.get(name);
+	}
+
+	/**
+	 * Registers a logger under a name, unless another logger is already registered under that name.
+	 * A newly registered logger's parent is set to its nearest registered ancestor, and it becomes the parent of each of its nearest registered descendants.
+	 * @param name logger name
+	 * @param logger logger to register
+	 * @return logger registered under {@code name}, which is {@code logger} if no logger was previously registered
+	 */
+	synchronized Logger register(String name, Logger logger) {
+		Logger existing = instances.get(name);
+		if (existing != null) return existing;
+
+		Logger parent = null;
+		Node node = root;
+		if (!name.isEmpty()) {	// Empty name is the root logger
+			for (String segment : name.split("\\.", -1)) {
+				if (node.logger != null) parent = node.logger;
+				node = node.child(segment);
+			}
+		}
+		node.logger = logger;
+		logger.setParent(parent);
+		adopt(node, logger);
+
+		instances.put(name, logger);	// Publish only once linked
+		MBeans.register(logger);
+
+		return logger;
+	}
+	/** @return all registered loggers */
+	Iterable<Logger> loggers() {
+		return instances.values();
+	}
+	/** Sets {@code logger} as the parent of each nearest registered descendant of {@code node} */
+	private static void adopt(Node node, Logger logger) {
+		for (Node child : node.children.values()) {
+			if (child.logger != null) child.logger.setParent(logger);
+			else adopt(child, logger);
+		}
+	}
+
+	private static final class Node {
+		final Map<String, Node> children = new HashMap<>();
+		Logger logger;
+
+		Node child(String segment) {
+			return children.computeIfAbsent(segment, k -> new Node());
+		}
+	}
+}
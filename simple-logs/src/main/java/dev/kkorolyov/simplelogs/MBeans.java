@@ -0,0 +1,86 @@
+package dev.kkorolyov.simplelogs;
+
+import dev.kkorolyov.simplelogs.append.Appender;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Registers logger and appender metrics with the platform MBean server once enabled.
+ * Appenders are counted by the number of logger configurations using them, and are unregistered once no configuration uses them, so replaced appenders are not retained.
+ */
+final class MBeans {
+	private static final String DOMAIN = "dev.kkorolyov.simplelogs";
+
+	private static final Map<Appender, Integer> appenderRefs = new IdentityHashMap<>();
+	private static volatile boolean enabled;
+
+	private MBeans() {}
+
+	/**
+	 * Registers the metrics of some loggers and their appenders, and of all loggers and appenders subsequently passed to {@link #register(Logger)} and {@link #register(Appender)}.
+	 * @param loggers loggers to register
+	 */
+	static synchronized void enable(Iterable<Logger> loggers) {
+		enabled = true;
+
+		for (Logger logger : loggers) register(logger);
+		for (Appender appender : appenderRefs.keySet()) register(name(appender), appender.getMetrics());
+	}
+
+	/** @param logger logger to register, if enabled */
+	static void register(Logger logger) {
+		if (enabled) register("type=Logger,name=" + ObjectName.quote(logger.getName()), logger.getMetrics());
+	}
+	/**
+	 * Counts a logger configuration using an appender, registering it on first use if enabled.
+	 * @param appender appender added to a logger configuration
+	 */
+	static synchronized void register(Appender appender) {
+		if (appenderRefs.merge(appender, 1, Integer::sum) == 1 && enabled) register(name(appender), appender.getMetrics());
+	}
+	/**
+	 * Uncounts a logger configuration using an appender, unregistering it once no longer used.
+	 * @param appender appender removed from a logger configuration
+	 */
+	static synchronized void unregister(Appender appender) {
+		Integer refs = appenderRefs.get(appender);
+		if (refs == null) return;
+
+		if (refs > 1) appenderRefs.put(appender, refs - 1);
+		else {
+			appenderRefs.remove(appender);
+			if (enabled) unregister(name(appender));
+		}
+	}
+	private static String name(Appender appender) {
+		return "type=Appender,name=" + ObjectName.quote(appender.getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(appender)));
+	}
+
+	private static void register(String properties, Object mbean) {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			ObjectName name = new ObjectName(DOMAIN + ":" + properties);
+			if (!server.isRegistered(name)) server.registerMBean(mbean, name);
+		} catch (InstanceAlreadyExistsException ignored) {
+			// Registered concurrently
+		} catch (JMException e) {
+			throw new IllegalStateException("Failed to register MBean: " + properties, e);
+		}
+	}
+	private static void unregister(String properties) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(DOMAIN + ":" + properties));
+		} catch (InstanceNotFoundException ignored) {
+			// Never registered
+		} catch (JMException e) {
+			throw new IllegalStateException("Failed to unregister MBean: " + properties, e);
+		}
+	}
+}
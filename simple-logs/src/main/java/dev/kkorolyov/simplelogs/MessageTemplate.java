@@ -0,0 +1,104 @@
+package dev.kkorolyov.simplelogs;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * A log message parsed into the offsets of its {@value #PLACEHOLDER} placeholders.
+ * Parsed templates are cached by message, so that each message is parsed once and then rendered in a single pass.
+ */
+final class MessageTemplate {
+	static final String PLACEHOLDER = "{}";
+
+	private static final int MAX_CACHED = 1 << 12;
+	private static final int MAX_RETAINED_CAPACITY = 1 << 13;
+
+	private static final Map<String, MessageTemplate> cache = new ConcurrentHashMap<>();
+	private static final ThreadLocal<StringBuilder> builders = ThreadLocal.withInitial(StringBuilder::new);
+
+	private final String message;
+	private final int[] placeholders;
+
+	/**
+	 * @param message message to parse
+	 * @return template parsed from {@code message}, reused for equal messages
+	 */
+	static MessageTemplate of(String message) {
+		MessageTemplate template = cache.get(message);
+
+		if (template == null) {
+			template = new MessageTemplate(message);
+			if (cache.size() < MAX_CACHED) cache.putIfAbsent(message, template);	// Do not grow unbounded on dynamic messages
+		}
+		return template;
+	}
+
+	private MessageTemplate(String message) {
+		this.message = message;
+
+		int[] placeholders = new int[4];
+		int count = 0;
+		for (int i = message.indexOf(PLACEHOLDER); i >= 0; i = message.indexOf(PLACEHOLDER, i + PLACEHOLDER.length())) {
+			if (count == placeholders.length) placeholders = Arrays.copyOf(placeholders, count * 2);
+			placeholders[count++] = i;
+		}
+		this.placeholders = Arrays.copyOf(placeholders, count);
+	}
+
+	/**
+	 * Renders this template with resolved args.
+	 * Placeholders without a matching arg are left as-is, and args without a matching placeholder are ignored.
+	 * @param args args to inject into placeholders, {@link Supplier} args are resolved to the string representations of their supplied values
+	 * @param count number of args to use from {@code args}
+	 * @return message with placeholders replaced by resolved {@code args}
+	 */
+	String render(Object[] args, int count) {
+		if (placeholders.length == 0) return message;
+
+		StringBuilder builder = builders.get();
+		boolean shared = builder.length() == 0;	// In use if rendering re-entered through an arg
+		if (!shared) builder = new StringBuilder(message.length() + 16 * placeholders.length);
+
+		String result = renderTo(builder, args, count).toString();
+
+		if (shared) {
+			builder.setLength(0);
+			if (builder.capacity() > MAX_RETAINED_CAPACITY) builders.remove();
+		}
+		return result;
+	}
+	/**
+	 * Renders this template to a builder.
+	 * @param builder builder to append to
+	 * @param args args to inject into placeholders
+	 * @param count number of args to use from {@code args}
+	 * @return {@code builder}
+	 * @see #render(Object[], int)
+	 */
+	StringBuilder renderTo(StringBuilder builder, Object[] args, int count) {
+		int start = 0;
+		int resolved = Math.min(count, placeholders.length);
+
+		for (int i = 0; i < resolved; i++) {
+			builder.append(message, start, placeholders[i]);
+			appendArg(builder, args[i]);
+			start = placeholders[i] + PLACEHOLDER.length();
+		}
+		return builder.append(message, start, message.length());
+	}
+	private static void appendArg(StringBuilder builder, Object arg) {
+		builder.append(arg instanceof Supplier ? ((Supplier<?>) arg).get() : arg);
+	}
+
+	/** @return number of placeholders in this template */
+	int size() {
+		return placeholders.length;
+	}
+	/** @return message this template was parsed from */
+	@Override
+	public String toString() {
+		return message;
+	}
+}
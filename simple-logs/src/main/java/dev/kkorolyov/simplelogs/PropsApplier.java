@@ -2,61 +2,422 @@ package dev.kkorolyov.simplelogs;
 
 import dev.kkorolyov.simplelogs.append.Appender;
 import dev.kkorolyov.simplelogs.append.Appenders;
+import dev.kkorolyov.simplelogs.append.FileAppender;
+import dev.kkorolyov.simplelogs.append.RollingFileAppender;
 import dev.kkorolyov.simplelogs.format.Formatter;
 import dev.kkorolyov.simplelogs.format.Formatters;
 import dev.kkorolyov.simpleprops.Properties;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
 
 class PropsApplier {
+	private static final String PATTERN = "pattern";
+	private static final String RATE = "rate";
+	private static final String BURST = "burst";
+	private static final String SAMPLE = "sample";
+	private static final String THRESHOLD = "threshold";
+	private static final String[] OPTIONS = {PATTERN, RATE, BURST, SAMPLE};
+	private static final String JSON = "JSON";
+
 	static void apply(Path logProps) throws IOException {
 		apply(Files.newInputStream(logProps));
 	}
 	static void apply(InputStream logProps) throws IOException {
-		Properties props = new Properties(logProps);
-		
-		for (String key : props.keys()) {
-			String[] args = props.getArray(key);
+		for (LoggerConfig config : build(logProps, null)) config.publish();
+	}
+	static Closeable watch(Path logProps) throws IOException {
+		return new Watcher(logProps);
+	}
+
+	/**
+	 * Builds the configuration of every logger in a properties file without applying any of it.
+	 * If building fails, any appenders opened by this build are closed.
+	 * Nothing of a previous build is closed, so that it may keep logging until this build is published.
+	 * @param previous configurations of a previous build by logger name, whose identical writers and rate limiters are reused; if not {@code null}, other files are opened in append mode
+	 */
+	private static List<LoggerConfig> build(InputStream logProps, Map<String, LoggerConfig> previous) throws IOException {
+		Properties props;
+		try (InputStream in = logProps) {
+			props = new Properties(in);
+		}
+		List<LoggerConfig> configs = new ArrayList<>();
 
-			String name = key;
-			int level = resolveLevel(args);
-			Formatter formatter = resolveFormatter(args);
-			Appender[] appenders = resolveAppenders(args, level);
+		try {
+			for (String key : props.keys()) {
+				String[] args = props.getArray(key);
+				int level = resolveLevel(args);
+				LoggerConfig last = previous != null ? previous.get(key) : null;
 
-			Logger.getLogger(name, level, formatter, appenders);
+				configs.add(new LoggerConfig(key, level, resolveFormatter(args), resolveLimiter(args, last), resolveAppenders(args, level, last, previous != null)));
+			}
+		} catch (IOException | RuntimeException e) {
+			Set<Appender> reused = previous != null ? appenders(previous.values()) : Collections.emptySet();
+			for (LoggerConfig config : configs) config.close(reused, previous != null ? limiterOf(previous, config.name) : null);
+			throw e;
 		}
+		return configs;
 	}
 	private static int resolveLevel(String[] args) {
 		return Level.fromString(args[0]);
 	}
 	private static Formatter resolveFormatter(String[] args) {
-		return Formatters.simple();	// TODO Actual work
+		String pattern = findOption(args, PATTERN);
+		if (pattern != null) return Formatters.pattern(pattern);
+
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].equalsIgnoreCase(JSON)) return Formatters.json();
+		}
+		return Formatters.simple();
 	}
-	private static Appender[] resolveAppenders(String[] args, int loggerLevel) throws IOException {
-		List<Appender> results = new ArrayList<>();
+	/** @param last previous configuration of the same logger, whose rate limiter is reused if identical, or {@code null} */
+	private static RateLimiter resolveLimiter(String[] args, LoggerConfig last) {
+		String rate = findOption(args, RATE);
+		String burst = findOption(args, BURST);
+		String sample = findOption(args, SAMPLE);
+		if (rate == null && sample == null) return null;
+
+		double permitsPerSecond = rate != null ? parseRate(rate) : 0;
+		int permitsBurst = burst != null ? Integer.parseInt(burst.trim()) : (int) Math.max(1, Math.ceil(permitsPerSecond));
+		double sampleRate = sample != null ? Double.parseDouble(sample.trim()) : 1;
+
+		RateLimiter reused = last != null ? last.limiter : null;
+		if (reused != null && reused.getPermitsPerSecond() == permitsPerSecond && reused.getBurst() == permitsBurst && reused.getSampleRate() == sampleRate) return reused;	// Keep call site state and a single summary task
 
+		return new RateLimiter(permitsPerSecond, permitsBurst, sampleRate);
+	}
+
+	/** @return value of the first {@code key=value} arg, or {@code null} if no such arg */
+	private static String findOption(String[] args, String key) {
 		for (int i = 1; i < args.length; i++) {
-			switch (args[i].toUpperCase()) {
+			if (isOption(args[i], key)) return args[i].substring(key.length() + 1);
+		}
+		return null;
+	}
+	private static boolean isOption(String arg) {
+		if (arg.equalsIgnoreCase(JSON)) return true;
+
+		for (String key : OPTIONS) {
+			if (isOption(arg, key)) return true;
+		}
+		return false;
+	}
+	private static boolean isOption(String arg, String key) {
+		return arg.length() > key.length() && arg.charAt(key.length()) == '=' && arg.regionMatches(true, 0, key, 0, key.length());
+	}
+	/**
+	 * @param last previous configuration of the same logger, whose appenders are reused for identical writers at the same threshold, or {@code null}
+	 * @param append whether to open files in append mode
+	 * @return writers of a logger by spec
+	 */
+	private static Map<String, Appender> resolveAppenders(String[] args, int loggerLevel, LoggerConfig last, boolean append) throws IOException {
+		Map<String, Appender> results = new LinkedHashMap<>();
+
+		for (int i = 1; i < args.length; i++) {
+			if (isOption(args[i])) continue;
+			int threshold = resolveThreshold(args[i], loggerLevel);
+
+			Appender reused = last != null ? last.appenders.get(args[i]) : null;
+			if (reused != null && reused.getThreshold() == threshold) {	// Never mutated, as it stays published until this build is
+				results.put(args[i], reused);
+				continue;
+			}
+			String[] split = args[i].split("\\?", 2);	// Optional options after '?'
+			switch (split[0].toUpperCase()) {
 				case "ERR":
-					results.add(Appenders.err(loggerLevel));	// TODO Parse custom thresholds
+					checkStreamOptions(args[i]);
+					results.put(args[i], Appenders.err(threshold));
 					break;
 				case "OUT":
-					results.add(Appenders.out(loggerLevel));
+					checkStreamOptions(args[i]);
+					results.put(args[i], Appenders.out(threshold));
 					break;
 				default:
-					Path file = Paths.get(args[i]);
-					Path parent = file.getParent();
-					if (parent != null) Files.createDirectories(parent);
+					results.put(args[i], resolveFile(args[i], threshold, last, append));
+			}
+		}
+		return results;
+	}
+	/** @return threshold of a writer from its {@code threshold} option, or {@code loggerLevel} if it has none */
+	private static int resolveThreshold(String arg, int loggerLevel) {
+		String[] split = arg.split("\\?", 2);
+		if (split.length < 2) return loggerLevel;
+
+		for (String option : split[1].split("&")) {
+			String[] keyValue = option.split("=", 2);
+			if (keyValue.length > 1 && keyValue[0].trim().equalsIgnoreCase(THRESHOLD)) return Level.fromString(keyValue[1].trim());
+		}
+		return loggerLevel;
+	}
+	/** @throws IllegalArgumentException if a stream writer has any option other than {@code threshold} */
+	private static void checkStreamOptions(String arg) {
+		String[] split = arg.split("\\?", 2);
+		if (split.length < 2) return;
+
+		for (String option : split[1].split("&")) {
+			if (!option.split("=", 2)[0].trim().equalsIgnoreCase(THRESHOLD)) throw new IllegalArgumentException("Unknown stream option: " + option);
+		}
+	}
+	private static Appender resolveFile(String arg, int threshold, LoggerConfig last, boolean append) throws IOException {
+		String[] split = arg.split("\\?", 2);	// Optional rolling options after '?'
+
+		Path file = Paths.get(split[0]);
+		Path parent = file.getParent();
+		if (parent != null) Files.createDirectories(parent);
+
+		if (last != null) flushPrevious(file, last);
 
-					results.add(Appenders.file(file, loggerLevel));
+		if (split.length < 2) return append ? openFile(file, threshold, 0) : Appenders.file(file, threshold);
+
+		long size = 0, time = 0;
+		int keep = RollingFileAppender.DEFAULT_MAX_ARCHIVES;
+		int index = 0;
+		for (String option : split[1].split("&")) {
+			String[] keyValue = option.split("=", 2);
+			String value = keyValue.length > 1 ? keyValue[1].trim() : "";
+
+			switch (keyValue[0].trim().toLowerCase()) {
+				case "size":
+					size = parseSize(value);
+					break;
+				case "time":
+					time = parseDuration(value);
+					break;
+				case "keep":
+					keep = Integer.parseInt(value);
+					break;
+				case "index":
+					index = Integer.parseInt(value);
+					break;
+				case THRESHOLD:
+					break;	// Already resolved
+				default:
+					throw new IllegalArgumentException("Unknown file appender option: " + option);
 			}
 		}
-		return results.toArray(new Appender[results.size()]);
+		if (index > 0) {
+			if (size > 0 || time > 0) throw new IllegalArgumentException("Rolling files cannot be indexed: " + arg);
+			return append ? openFile(file, threshold, index) : Appenders.indexedFile(file, threshold, index);
+		}
+		return Appenders.rollingFile(file, threshold, size, time, keep);	// Always appends
+	}
+	private static Appender openFile(Path file, int threshold, int index) throws IOException {
+		return new FileAppender(file, threshold, FileAppender.DEFAULT_BUFFER_SIZE, FileAppender.DEFAULT_FLUSH_INTERVAL, FileAppender.DEFAULT_FLUSH_LEVEL, false, true, index);
+	}
+	/**
+	 * Flushes a logger's previous appender to a file whose options changed, so that little is left buffered to append after the new appender's first writes.
+	 * The previous appender keeps logging until the new configuration is published, and is closed only then.
+	 */
+	private static void flushPrevious(Path file, LoggerConfig last) {
+		Path target = file.toAbsolutePath().normalize();
+
+		for (Appender appender : last.appenders.values()) {
+			if (appender instanceof FileAppender && ((FileAppender) appender).getPath().toAbsolutePath().normalize().equals(target)) appender.flush();
+		}
+	}
+
+	/** @return rate limiter of the configuration of {@code logger} in {@code configs}, or {@code null} */
+	private static RateLimiter limiterOf(Map<String, LoggerConfig> configs, String logger) {
+		LoggerConfig config = configs.get(logger);
+		return config != null ? config.limiter : null;
+	}
+	/** @return identity set of all appenders of {@code configs} */
+	private static Set<Appender> appenders(Collection<LoggerConfig> configs) {
+		Set<Appender> set = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (LoggerConfig config : configs) set.addAll(config.appenders.values());
+		return set;
+	}
+
+	private static long parseSize(String size) {
+		String upper = size.toUpperCase();
+		int end = upper.endsWith("B") ? upper.length() - 1 : upper.length();
+		long unit = 1;
+
+		switch (end > 0 ? upper.charAt(end - 1) : ' ') {
+			case 'K':
+				unit = 1L << 10;
+				end--;
+				break;
+			case 'M':
+				unit = 1L << 20;
+				end--;
+				break;
+			case 'G':
+				unit = 1L << 30;
+				end--;
+				break;
+		}
+		return Long.parseLong(upper.substring(0, end).trim()) * unit;
+	}
+	/** @return permits per second parsed from {@code N[/s|/m|/h|/d]} */
+	private static double parseRate(String rate) {
+		String[] split = rate.split("/", 2);
+		double permits = Double.parseDouble(split[0].trim());
+
+		return split.length < 2 ? permits : permits * TimeUnit.SECONDS.toMillis(1) / parseDuration("1" + split[1].trim());
+	}
+	private static long parseDuration(String duration) {
+		String lower = duration.toLowerCase();
+		int end = lower.length();
+		while (end > 0 && Character.isLetter(lower.charAt(end - 1))) end--;
+
+		long amount = Long.parseLong(lower.substring(0, end).trim());
+		switch (lower.substring(end)) {
+			case "ms":
+			case "":
+				return amount;
+			case "s":
+				return TimeUnit.SECONDS.toMillis(amount);
+			case "m":
+				return TimeUnit.MINUTES.toMillis(amount);
+			case "h":
+				return TimeUnit.HOURS.toMillis(amount);
+			case "d":
+				return TimeUnit.DAYS.toMillis(amount);
+			default:
+				throw new IllegalArgumentException("Unknown duration unit: " + duration);
+		}
+	}
+
+	/** Configuration of a single logger, built before being published to the logger as a whole */
+	private static final class LoggerConfig {
+		final String name;
+		final int level;
+		final Formatter formatter;
+		final RateLimiter limiter;
+		final Map<String, Appender> appenders;	// By writer spec
+
+		LoggerConfig(String name, int level, Formatter formatter, RateLimiter limiter, Map<String, Appender> appenders) {
+			this.name = name;
+			this.level = level;
+			this.formatter = formatter;
+			this.limiter = limiter;
+			this.appenders = appenders;
+		}
+
+		void publish() {
+			Logger.configure(name, level, formatter, limiter, appenders.values().toArray(new Appender[0]));
+		}
+		/**
+		 * Closes all appenders except those in {@code keep}, and stops the rate limiter unless it is {@code keepLimiter}.
+		 * @param keep appenders to leave open
+		 * @param keepLimiter rate limiter to leave running, or {@code null}
+		 */
+		void close(Set<Appender> keep, RateLimiter keepLimiter) {
+			if (limiter != null && limiter != keepLimiter) limiter.stop();
+
+			for (Appender appender : appenders.values()) {
+				if (keep.contains(appender)) continue;
+				try {
+					appender.close();
+				} catch (RuntimeException e) {
+					InternalErrors.report("Failed to close appender " + appender, e);	// Keep closing remaining appenders
+				}
+			}
+		}
+	}
+
+	/**
+	 * Applies a properties file, then reapplies it on a daemon thread whenever it is created or modified.
+	 * Each reload builds the configuration of every logger in the file before publishing any of it, and keeps the previous configuration if building fails.
+	 * Loggers are then published one at a time, so logging threads may briefly observe some loggers reconfigured and others not.
+	 * Loggers dropped from the file are reset to {@code INFO} with no appenders.
+	 * A logger's writers whose spec is unchanged, and its rate limiter if unchanged, are kept across reloads.
+	 * Other appenders of the previous load keep logging until every logger is published, and are closed only then; files reopened by a reload are appended to rather than truncated.
+	 */
+	private static final class Watcher implements Closeable {
+		private static final long SETTLE_MS = 50;
+
+		private final Path file;
+		private final WatchService watchService;
+		private Map<String, LoggerConfig> applied = new HashMap<>();
+
+		Watcher(Path file) throws IOException {
+			this.file = file.toAbsolutePath();
+			Path dir = this.file.getParent();
+
+			watchService = dir.getFileSystem().newWatchService();
+			try {
+				dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+				reload();	// Fail fast on an invalid initial file
+			} catch (IOException | RuntimeException e) {
+				watchService.close();
+				throw e;
+			}
+
+			Thread thread = new Thread(this::watch, "simple-logs-props-watcher");
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		private void watch() {
+			try {
+				while (true) {
+					boolean changed = poll(watchService.take());
+					if (!changed) continue;
+
+					WatchKey key;
+					while ((key = watchService.poll(SETTLE_MS, TimeUnit.MILLISECONDS)) != null) poll(key);	// Coalesce bursts of writes
+
+					try {
+						reload();
+					} catch (IOException | RuntimeException e) {
+						InternalErrors.report("Failed to reload " + file + ", keeping previous configuration", e);
+					}
+				}
+			} catch (InterruptedException | ClosedWatchServiceException e) {
+				// Closed
+			}
+		}
+		private boolean poll(WatchKey key) {
+			boolean changed = false;
+			for (WatchEvent<?> event : key.pollEvents()) {
+				if (file.getFileName().equals(event.context())) changed = true;
+			}
+			key.reset();
+
+			return changed;
+		}
+
+		private void reload() throws IOException {
+			Map<String, LoggerConfig> configs = new HashMap<>();
+			for (LoggerConfig config : build(Files.newInputStream(file), applied.isEmpty() ? null : applied)) configs.put(config.name, config);
+
+			for (LoggerConfig config : configs.values()) config.publish();
+
+			Set<Appender> kept = appenders(configs.values());
+			for (LoggerConfig config : applied.values()) {	// Only now that nothing logs to replaced appenders
+				if (!configs.containsKey(config.name)) Logger.configure(config.name, Level.INFO, Formatters.simple(), null);
+				config.close(kept, limiterOf(configs, config.name));
+			}
+			applied = configs;
+		}
+
+		/** Stops watching the file, leaving the last applied configuration in place */
+		@Override
+		public void close() throws IOException {
+			watchService.close();
+		}
 	}
 }
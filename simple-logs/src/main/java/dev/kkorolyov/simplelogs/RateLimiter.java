@@ -0,0 +1,198 @@
+package dev.kkorolyov.simplelogs;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the messages logged from each call site of a {@link Logger} by a token bucket and random sampling.
+ * Call sites are identified by message template, so admitting a message costs no stack walk, and is decided before any formatting.
+ * Decisions are lock-free: sampling is a thread-local random draw, and each call site's bucket is a single atomic timestamp.
+ * <p>Suppressed messages are counted per call site, and a summary of each call site's suppressed messages is periodically logged through the logger which last suppressed a message from it.</p>
+ */
+public final class RateLimiter {
+	/** Default interval in ms between suppressed message summaries */
+	public static final long DEFAULT_SUMMARY_INTERVAL = 10_000;
+	/** Message of suppressed message summaries */
+	public static final String SUMMARY_MESSAGE = "Suppressed {} messages like: {}";
+
+	private static final int MAX_CALL_SITES = 1 << 12;
+	private static final String OVERFLOW_TEMPLATE = "<other>";
+
+	private static final ScheduledExecutorService summarizer = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "simple-logs-limiter");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final double permitsPerSecond;
+	private final int burst;
+	private final double sampleRate;
+	private final long interval;	// ns per permit
+	private final long tolerance;	// ns a call site may run ahead of its rate
+
+	private final Map<String, CallSite> callSites = new ConcurrentHashMap<>();
+	private final CallSite overflow = new CallSite(OVERFLOW_TEMPLATE);
+	private final ScheduledFuture<?> summaries;
+
+	/**
+	 * Constructs a new rate limiter which summarizes suppressed messages every {@value #DEFAULT_SUMMARY_INTERVAL} ms.
+	 * @see #RateLimiter(double, int, double, long)
+	 */
+	public RateLimiter(double permitsPerSecond, int burst, double sampleRate) {
+		this(permitsPerSecond, burst, sampleRate, DEFAULT_SUMMARY_INTERVAL);
+	}
+	/**
+	 * Constructs a new rate limiter.
+	 * @param permitsPerSecond sustained messages per second admitted from each call site; if {@code <= 0}, messages are not rate limited
+	 * @param burst maximum messages admitted from a call site at once after being idle
+	 * @param sampleRate probability in {@code [0, 1]} of admitting each message before rate limiting
+	 * @param summaryInterval interval in ms between suppressed message summaries
+	 * @throws IllegalArgumentException if {@code burst < 1}, {@code sampleRate} is not within {@code [0, 1]}, or {@code summaryInterval <= 0}
+	 */
+	public RateLimiter(double permitsPerSecond, int burst, double sampleRate, long summaryInterval) {
+		if (burst < 1) throw new IllegalArgumentException("burst must be > 0: " + burst);
+		if (!(sampleRate >= 0 && sampleRate <= 1)) throw new IllegalArgumentException("sampleRate must be within [0, 1]: " + sampleRate);
+		if (summaryInterval <= 0) throw new IllegalArgumentException("summaryInterval must be > 0: " + summaryInterval);
+
+		this.permitsPerSecond = permitsPerSecond;
+		this.burst = burst;
+		this.sampleRate = sampleRate;
+		interval = permitsPerSecond > 0 ? Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond)) : 0;
+		tolerance = interval * (burst - 1);
+
+		WeakReference<RateLimiter> ref = new WeakReference<>(this);	// Do not keep discarded limiters alive
+		summaries = summarizer.scheduleWithFixedDelay(() -> summarize(ref), summaryInterval, summaryInterval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Decides whether to admit a message, counting it as suppressed if not.
+	 * @param logger logger logging the message
+	 * @param level message level
+	 * @param template unresolved message, identifying its call site
+	 * @return {@code true} if the message should be logged
+	 */
+	boolean admits(Logger logger, int level, String template) {
+		boolean sampled = sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+		if (sampled && interval <= 0) return true;
+
+		CallSite callSite = callSite(template);
+		if (sampled && callSite.tryAcquire(System.nanoTime(), interval, tolerance)) return true;
+
+		callSite.suppress(logger, level);
+		return false;
+	}
+	private CallSite callSite(String template) {
+		if (template == null) return overflow;
+		CallSite callSite = callSites.get(template);
+
+		if (callSite == null) {
+			if (callSites.size() >= MAX_CALL_SITES) return overflow;	// Do not grow unbounded on dynamic messages
+			callSite = callSites.computeIfAbsent(template, CallSite::new);
+		}
+		return callSite;
+	}
+
+	/** @return total number of suppressed messages not yet summarized */
+	public long getSuppressed() {
+		long suppressed = overflow.suppressed.sum();
+		for (CallSite callSite : callSites.values()) suppressed += callSite.suppressed.sum();
+
+		return suppressed;
+	}
+
+	/**
+	 * Logs a summary of each call site's messages suppressed since the last summary.
+	 */
+	public void summarize() {
+		for (CallSite callSite : callSites.values()) callSite.summarize();
+		overflow.summarize();
+	}
+	/**
+	 * Logs a final summary, then stops periodic summaries.
+	 * Used once a limiter is replaced, rather than waiting for it to be garbage collected.
+	 */
+	void stop() {
+		summaries.cancel(false);
+		summarize();
+	}
+	private static void summarize(WeakReference<RateLimiter> ref) {
+		RateLimiter limiter = ref.get();
+		if (limiter == null) throw new CancellationException("Rate limiter discarded");	// Cancels further summaries
+
+		try {
+			limiter.summarize();
+		} catch (RuntimeException e) {
+			InternalErrors.report("Failed to summarize suppressed messages", e);	// Keep summarizing
+		}
+	}
+
+	/** @return sustained messages per second admitted from each call site */
+	public double getPermitsPerSecond() {
+		return permitsPerSecond;
+	}
+	/** @return maximum messages admitted from a call site at once */
+	public int getBurst() {
+		return burst;
+	}
+	/** @return probability of admitting each message before rate limiting */
+	public double getSampleRate() {
+		return sampleRate;
+	}
+
+	@Override
+	public String toString() {
+		return "RateLimiter{" +
+				"permitsPerSecond=" + permitsPerSecond +
+				", burst=" + burst +
+				", sampleRate=" + sampleRate +
+				'}';
+	}
+
+	private static final class CallSite {
+		final String template;
+		final AtomicLong nextPermit = new AtomicLong(Long.MIN_VALUE);	// Theoretical arrival time of the next message, in ns
+		final LongAdder suppressed = new LongAdder();
+		volatile Logger logger;
+		volatile int level;
+
+		CallSite(String template) {
+			this.template = template;
+		}
+
+		/** Admits a message if this call site is within its rate, as in the generic cell rate algorithm */
+		boolean tryAcquire(long now, long interval, long tolerance) {
+			for (;;) {
+				long next = nextPermit.get();
+				long start = next == Long.MIN_VALUE ? now : Math.max(next, now);
+				if (start - now > tolerance) return false;
+
+				if (nextPermit.compareAndSet(next, start + interval)) return true;
+			}
+		}
+
+		void suppress(Logger logger, int level) {
+			suppressed.increment();
+			if (this.logger != logger) this.logger = logger;
+			if (this.level != level) this.level = level;
+		}
+
+		void summarize() {
+			Logger logger = this.logger;
+			int level = this.level;
+			long count = suppressed.sumThenReset();
+
+			if (count > 0 && logger != null && logger.logs(level)) {
+				logger.dispatch(LogEvent.acquire().init(logger.getFormatter(), level, SUMMARY_MESSAGE, count, template));
+			}
+		}
+	}
+}
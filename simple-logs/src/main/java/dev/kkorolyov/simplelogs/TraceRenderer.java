@@ -0,0 +1,146 @@
+package dev.kkorolyov.simplelogs;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Renders throwables as stack traces, deduplicated by fingerprint.
+ * A fingerprint hashes the class and stack frames of a throwable and each of its causes, so throwables thrown from the same place share a fingerprint regardless of their messages.
+ * Occurrences of each fingerprint are counted when logged, and each distinct trace is tagged with a trace ID.
+ * Each destination, e.g. an appender, is given a trace in full the first time it sees it, and a single-line reference to that trace on later occurrences.
+ * A destination is given a trace in full again once {@value #REPRINT_INTERVAL} ms have passed since it was last given it in full.
+ */
+final class TraceRenderer {
+	/** Minimum time in ms between full renderings of the same trace to the same destination */
+	static final long REPRINT_INTERVAL = 600_000;
+
+	private static final int MAX_TRACES = 1 << 12;
+	private static final int MAX_CAUSES = 64;
+	private static final String LINE_SEPARATOR = System.lineSeparator();
+
+	private static final Map<Long, AtomicLong> counts = new ConcurrentHashMap<>();
+	private static final Map<Object, Map<Long, AtomicLong>> printed = new WeakHashMap<>();	// Time each trace was last given in full, by destination
+
+	private TraceRenderer() {}
+
+	/**
+	 * Counts a logged occurrence of a throwable's trace.
+	 * @param e logged throwable
+	 * @return occurrence of {@code e}, rendered on demand
+	 */
+	static Occurrence record(Throwable e) {
+		long fingerprint = fingerprint(e);
+
+		AtomicLong count = counts.get(fingerprint);
+		if (count == null) {
+			if (counts.size() >= MAX_TRACES) return new Occurrence(e, fingerprint, 0);	// Do not grow unbounded on dynamic traces
+			count = counts.computeIfAbsent(fingerprint, k -> new AtomicLong());
+		}
+		return new Occurrence(e, fingerprint, count.incrementAndGet());
+	}
+	/**
+	 * @param e throwable not logged, e.g. one read back from a log
+	 * @return occurrence of {@code e} which is always given in full
+	 */
+	static Occurrence uncounted(Throwable e) {
+		return new Occurrence(e, fingerprint(e), 0);
+	}
+	/**
+	 * Decides whether a destination should be given an occurrence in full, and if so, records that it was.
+	 * @param destination destination of {@code occurrence}, held weakly
+	 * @param occurrence logged occurrence
+	 * @param timestamp epoch millisecond at which {@code occurrence} was logged
+	 * @return {@code true} if {@code destination} has not been given this trace in full within {@value #REPRINT_INTERVAL} ms of {@code timestamp}
+	 */
+	static boolean isNewTo(Object destination, Occurrence occurrence, long timestamp) {
+		if (occurrence.count == 0) return true;
+
+		Map<Long, AtomicLong> destinationPrinted;
+		synchronized (printed) {
+			destinationPrinted = printed.computeIfAbsent(destination, k -> new ConcurrentHashMap<>());
+		}
+		AtomicLong last = destinationPrinted.get(occurrence.fingerprint);
+		if (last == null) {
+			if (destinationPrinted.size() >= MAX_TRACES) return true;
+			if ((last = destinationPrinted.putIfAbsent(occurrence.fingerprint, new AtomicLong(timestamp))) == null) return true;
+		}
+		long at = last.get();
+		return timestamp - at >= REPRINT_INTERVAL && last.compareAndSet(at, timestamp);
+	}
+
+	/**
+	 * @param e throwable
+	 * @return hash of the class and stack frames of {@code e} and each of its causes
+	 */
+	static long fingerprint(Throwable e) {
+		long hash = 1;
+
+		int depth = 0;
+		for (Throwable t = e; t != null && depth < MAX_CAUSES; t = t.getCause(), depth++) {
+			hash = mix(hash, t.getClass().getName().hashCode());
+			for (StackTraceElement element : t.getStackTrace()) hash = mix(hash, element.hashCode());
+		}
+		return hash;
+	}
+	private static long mix(long hash, int value) {
+		return (hash ^ value) * 0x9E3779B97F4A7C15L;
+	}
+
+	private static String id(long fingerprint) {
+		return Integer.toHexString((int) (fingerprint ^ (fingerprint >>> 32)));
+	}
+
+	private static StringBuilder renderFull(Throwable e, String id, StringBuilder out) {
+		out.append(e).append(" (trace #").append(id).append(')');
+
+		StackTraceElement[] enclosing = e.getStackTrace();
+		for (StackTraceElement element : enclosing) out.append(LINE_SEPARATOR).append("\tat ").append(element);
+
+		int depth = 1;
+		for (Throwable cause = e.getCause(); cause != null && cause != e && depth < MAX_CAUSES; cause = cause.getCause(), depth++) {
+			StackTraceElement[] trace = cause.getStackTrace();
+
+			int common = 0;
+			while (common < trace.length && common < enclosing.length
+					&& trace[trace.length - 1 - common].equals(enclosing[enclosing.length - 1 - common])) {
+				common++;
+			}
+			out.append(LINE_SEPARATOR).append("Caused by: ").append(cause);
+			for (int i = 0; i < trace.length - common; i++) out.append(LINE_SEPARATOR).append("\tat ").append(trace[i]);
+			if (common > 0) out.append(LINE_SEPARATOR).append("\t... ").append(common).append(" more");
+
+			enclosing = trace;
+		}
+		return out;
+	}
+
+	/** A logged occurrence of a trace, rendered in full at most once, however many events and destinations share it */
+	static final class Occurrence {
+		private final Throwable thrown;
+		private final long fingerprint;
+		private final long count;	// 0 if not counted
+		private String full;
+
+		private Occurrence(Throwable thrown, long fingerprint, long count) {
+			this.thrown = thrown;
+			this.fingerprint = fingerprint;
+			this.count = count;
+		}
+
+		/** @return full rendering of this occurrence's throwable */
+		synchronized String full() {
+			if (full == null) full = renderFull(thrown, id(fingerprint), new StringBuilder()).toString();
+			return full;
+		}
+		/**
+		 * Appends a single-line reference to this occurrence's trace.
+		 * @param out builder to append to
+		 * @return {@code out}
+		 */
+		StringBuilder appendReference(StringBuilder out) {
+			return out.append(thrown).append(" (same as trace #").append(id(fingerprint)).append(", count ").append(count).append(')');
+		}
+	}
+}
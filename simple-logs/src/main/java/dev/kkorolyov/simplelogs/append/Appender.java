@@ -1,22 +1,72 @@
 package dev.kkorolyov.simplelogs.append;
 
+import dev.kkorolyov.simplelogs.LogEvent;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
 /**
  * Appends log messages to an output.
  */
 public abstract class Appender {
-	private int threshold;
+	private final Set<Runnable> thresholdListeners = new CopyOnWriteArraySet<>();
+	private final AppenderMetrics metrics = new AppenderMetrics(this);
+	private volatile int threshold;
 
 	public Appender(int threshold) {
 		setThreshold(threshold);
 	}
 
+	/**
+	 * Appends an event to this appender's output if the event's level is within this appender's threshold.
+	 * @param event logged event
+	 */
+	public final void append(LogEvent event) {
+		if (!logs(event.getLevel())) return;
+
+		if (AppenderMetrics.sample()) {
+			long start = System.nanoTime();
+			write(event);
+			metrics.recordLatency(System.nanoTime() - start);
+		} else {
+			write(event);
+		}
+		metrics.recordAccepted();
+	}
+	/**
+	 * Writes an event which has passed this appender's threshold.
+	 * Defaults to {@link #write(int, String)} with the event's formatted string; override to write the event without creating intermediate strings.
+	 * @param event logged event, valid only for the duration of this call
+	 */
+	protected void write(LogEvent event) {
+		write(event.getLevel(), event.getFormatted());
+	}
+
 	/**
 	 * Appends a message to this appender's output if the message's level is within this appender's threshold.
 	 * @param level message level
 	 * @param message logged message
 	 */
 	public final void append(int level, String message) {
-		if (logs(level)) append(message);
+		if (!logs(level)) return;
+
+		if (AppenderMetrics.sample()) {
+			long start = System.nanoTime();
+			write(level, message);
+			metrics.recordLatency(System.nanoTime() - start);
+		} else {
+			write(level, message);
+		}
+		metrics.recordAccepted();
+	}
+	/**
+	 * Writes a message which has passed this appender's threshold.
+	 * Defaults to {@link #append(String)}; override to make use of the message's level.
+	 * @param level message level
+	 * @param message logged message
+	 */
+	protected void write(int level, String message) {
+		append(message);
 	}
 	/**
 	 * Appends a message using the implemented appending scheme.
@@ -24,6 +74,26 @@ public abstract class Appender {
 	 */
 	protected abstract void append(String message);
 
+	/**
+	 * Flushes any messages buffered by this appender to its output.
+	 * Does nothing by default.
+	 */
+	public void flush() {}
+	/**
+	 * Flushes and releases any resources held by this appender.
+	 * Does nothing by default.
+	 */
+	public void close() {}
+
+	/** @return counters of events written by this appender */
+	public final AppenderMetrics getMetrics() {
+		return metrics;
+	}
+	/** @return number of events awaiting a background write; {@code 0} by default */
+	int queueDepth() {
+		return 0;
+	}
+
 	/**
 	 * @param level granularity level
 	 * @return {@code true} if this appender accepts messages of a certain level
@@ -39,5 +109,19 @@ public abstract class Appender {
 	/** @param threshold maximum level of log messages accepted by this appender */
 	public final void setThreshold(int threshold) {
 		this.threshold = threshold;
+
+		for (Runnable listener : thresholdListeners) listener.run();
+	}
+
+	/**
+	 * Adds a listener invoked whenever this appender's threshold changes.
+	 * @param listener listener to add
+	 */
+	public final void addThresholdListener(Runnable listener) {
+		thresholdListeners.add(listener);
+	}
+	/** @param listener listener to remove */
+	public final void removeThresholdListener(Runnable listener) {
+		thresholdListeners.remove(listener);
 	}
 }
@@ -0,0 +1,126 @@
+package dev.kkorolyov.simplelogs.append;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts events written by a single {@link Appender}, and samples how long writing them takes.
+ * Counters are striped {@link LongAdder}s, so appending threads do not contend on updating them.
+ * <p>Write latency is timed for 1 in {@value #LATENCY_SAMPLE_RATE} writes, and recorded in a histogram of power-of-2 nanosecond buckets.</p>
+ */
+public final class AppenderMetrics implements AppenderMetricsMXBean {
+	/** Writes per latency sample */
+	public static final int LATENCY_SAMPLE_RATE = 64;
+	/** Number of latency histogram buckets; bucket {@code i} counts latencies within {@code [2^(i-1), 2^i)} ns, with the last bucket also counting all longer latencies */
+	public static final int LATENCY_BUCKETS = 40;
+
+	private final Appender appender;
+
+	private final LongAdder accepted = new LongAdder();	// Passed threshold, including dropped
+	private final LongAdder bytes = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder[] latencies = new LongAdder[LATENCY_BUCKETS];
+
+	AppenderMetrics(Appender appender) {
+		this.appender = appender;
+		for (int i = 0; i < latencies.length; i++) latencies[i] = new LongAdder();
+	}
+
+	/** @return {@code true} if the current write should be timed */
+	static boolean sample() {
+		return ThreadLocalRandom.current().nextInt(LATENCY_SAMPLE_RATE) == 0;
+	}
+	void recordAccepted() {
+		accepted.increment();
+	}
+	void recordLatency(long nanos) {
+		latencies[Math.min(64 - Long.numberOfLeadingZeros(Math.max(nanos, 0)), LATENCY_BUCKETS - 1)].increment();
+	}
+	void recordBytes(long count) {
+		bytes.add(count);
+	}
+	void recordDropped() {
+		dropped.increment();
+	}
+
+	/** @return number of events which passed the appender's threshold and were not {@link #getDropped() dropped} */
+	@Override
+	public long getWritten() {
+		return Math.max(accepted.sum() - dropped.sum(), 0);	// Summed separately, so may briefly lag a concurrent drop
+	}
+	/** @return number of bytes written to the appender's output, if known */
+	@Override
+	public long getBytes() {
+		return bytes.sum();
+	}
+	/** @return number of events discarded instead of written, e.g. due to a full buffer or a closed appender */
+	@Override
+	public long getDropped() {
+		return dropped.sum();
+	}
+	/** @return number of events awaiting a background write */
+	@Override
+	public int getQueueDepth() {
+		return appender.queueDepth();
+	}
+
+	/** @return number of sampled writes per latency bucket */
+	public long[] getLatencyCounts() {
+		long[] counts = new long[LATENCY_BUCKETS];
+		for (int i = 0; i < counts.length; i++) counts[i] = latencies[i].sum();
+		return counts;
+	}
+	/**
+	 * @param percentile percentile within {@code [0, 100]}
+	 * @return upper bound in ns of the latency bucket containing {@code percentile} of sampled writes, or {@code 0} if no writes have been sampled
+	 */
+	public long getLatency(double percentile) {
+		long[] counts = getLatencyCounts();
+		long total = 0;
+		for (long count : counts) total += count;
+		if (total == 0) return 0;
+
+		long rank = (long) Math.ceil(total * Math.min(Math.max(percentile, 0), 100) / 100);
+		int i = 0;
+		for (long seen = counts[0]; seen < rank; seen += counts[++i]);
+
+		return 1L << i;
+	}
+	@Override
+	public long getLatencyP50() {
+		return getLatency(50);
+	}
+	@Override
+	public long getLatencyP99() {
+		return getLatency(99);
+	}
+	@Override
+	public long getLatencyMax() {
+		return getLatency(100);
+	}
+
+	/**
+	 * Returns the current value of every counter.
+	 * Each counter is read independently, so counters updated concurrently may be slightly out of step with each other.
+	 * @return counter values by name
+	 */
+	public Map<String, Long> snapshot() {
+		Map<String, Long> snapshot = new LinkedHashMap<>();
+		snapshot.put("written", getWritten());
+		snapshot.put("bytes", getBytes());
+		snapshot.put("dropped", getDropped());
+		snapshot.put("queueDepth", (long) getQueueDepth());
+		snapshot.put("latency.p50", getLatencyP50());
+		snapshot.put("latency.p99", getLatencyP99());
+		snapshot.put("latency.max", getLatencyMax());
+
+		return snapshot;
+	}
+
+	@Override
+	public String toString() {
+		return "AppenderMetrics" + snapshot();
+	}
+}
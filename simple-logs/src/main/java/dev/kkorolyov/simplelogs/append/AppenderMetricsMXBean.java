@@ -0,0 +1,21 @@
+package dev.kkorolyov.simplelogs.append;
+
+/**
+ * JMX view of {@link AppenderMetrics}.
+ */
+public interface AppenderMetricsMXBean {
+	/** @return number of events which passed the appender's threshold and were not dropped */
+	long getWritten();
+	/** @return number of bytes written to the appender's output, if known */
+	long getBytes();
+	/** @return number of events discarded instead of written */
+	long getDropped();
+	/** @return number of events awaiting a background write */
+	int getQueueDepth();
+	/** @return median sampled write latency in ns, rounded up to a power of 2 */
+	long getLatencyP50();
+	/** @return 99th percentile sampled write latency in ns, rounded up to a power of 2 */
+	long getLatencyP99();
+	/** @return maximum sampled write latency in ns, rounded up to a power of 2 */
+	long getLatencyMax();
+}
@@ -1,7 +1,7 @@
 package dev.kkorolyov.simplelogs.append;
 
 import java.io.FileNotFoundException;
-import java.io.PrintWriter;
+import java.io.IOException;
 import java.nio.file.Path;
 
 /**
@@ -33,21 +33,104 @@ public class Appenders {
 		};
 	}
 
+	/**
+	 * @param delegate appender to append to on a background thread
+	 * @return new appender which asynchronously appends to {@code delegate}, blocking when its buffer is full
+	 * @see AsyncAppender
+	 */
+	public static Appender async(Appender delegate) {
+		return new AsyncAppender(delegate);
+	}
+	/**
+	 * @param delegate appender to append to on a background thread
+	 * @param capacity maximum number of pending messages
+	 * @param policy action taken when appending to a full buffer
+	 * @return new appender which asynchronously appends to {@code delegate}
+	 * @see AsyncAppender
+	 */
+	public static Appender async(Appender delegate, int capacity, AsyncAppender.OverflowPolicy policy) {
+		return new AsyncAppender(delegate, capacity, policy);
+	}
+
+	/**
+	 * @param delegate appender to append to
+	 * @return new appender which collapses bursts of identical events before appending to {@code delegate}
+	 * @see CollapsingAppender
+	 */
+	public static Appender collapsing(Appender delegate) {
+		return new CollapsingAppender(delegate);
+	}
+
+	/**
+	 * @param target appender to dump recorded events to
+	 * @param threshold initial appender threshold, i.e. maximum level of recorded events
+	 * @return new appender which records the most recent events in memory, and dumps them to {@code target} on a {@link FlightRecorderAppender#DEFAULT_DUMP_LEVEL} event or throwable
+	 * @see FlightRecorderAppender
+	 */
+	public static Appender flightRecorder(Appender target, int threshold) {
+		return new FlightRecorderAppender(target, threshold);
+	}
+
 	/**
 	 * @param path path to file
 	 * @param threshold initial appender threshold
-	 * @return new appender which appends to the file at {@code path}
+	 * @return new appender which appends to the file at {@code path} in batches, writing immediately only for messages at or above {@link FileAppender#DEFAULT_FLUSH_LEVEL}
 	 * @throws FileNotFoundException if the file at {@code path} does not exist or results in some other issue when opened
+	 * @see FileAppender
 	 */
 	public static Appender file(Path path, int threshold) throws FileNotFoundException {
-		return new Appender(threshold) {
-			PrintWriter writer = new PrintWriter(path.toFile());
-
-			@Override
-			public void append(String message) {
-				writer.println(message);
-				writer.flush();
-			}
-		};
+		try {
+			return new FileAppender(path, threshold);
+		} catch (FileNotFoundException e) {
+			throw e;
+		} catch (IOException e) {
+			FileNotFoundException wrapped = new FileNotFoundException(path + ": " + e);	// Keep the original signature
+			wrapped.initCause(e);
+			throw wrapped;
+		}
+	}
+	/**
+	 * @param path path to file
+	 * @param threshold initial appender threshold
+	 * @param indexInterval number of events per index entry
+	 * @return new appender which appends to the file at {@code path} like {@link #file(Path, int)}, and writes a sparse time index of it readable with an {@link IndexedFileReader}
+	 * @throws IOException if an I/O error occurs opening the file at {@code path} or its index
+	 * @see FileAppender
+	 */
+	public static Appender indexedFile(Path path, int threshold, int indexInterval) throws IOException {
+		return new FileAppender(path, threshold, FileAppender.DEFAULT_BUFFER_SIZE, FileAppender.DEFAULT_FLUSH_INTERVAL, FileAppender.DEFAULT_FLUSH_LEVEL, false, false, indexInterval);
+	}
+	/**
+	 * @param path path to file
+	 * @param threshold initial appender threshold
+	 * @return new appender which appends events to the file at {@code path} as compact binary records, readable with a {@link BinaryFileReader}
+	 * @throws IOException if an I/O error occurs opening the file at {@code path}
+	 * @see BinaryFileAppender
+	 */
+	public static Appender binaryFile(Path path, int threshold) throws IOException {
+		return new BinaryFileAppender(path, threshold);
+	}
+	/**
+	 * @param path path to ring file
+	 * @param threshold initial appender threshold
+	 * @return new appender which appends formatted events to a memory-mapped ring at {@code path}, consumable from another process with a {@link MappedRingReader}
+	 * @throws IOException if an I/O error occurs creating or mapping the file at {@code path}
+	 * @see MappedRingAppender
+	 */
+	public static Appender mappedRing(Path path, int threshold) throws IOException {
+		return new MappedRingAppender(path, threshold);
+	}
+	/**
+	 * @param path path to file
+	 * @param threshold initial appender threshold
+	 * @param maxSize size in bytes after which the file is rolled over; if {@code <= 0}, the file is not rolled over by size
+	 * @param interval length in ms of the time window at the end of which the file is rolled over; if {@code <= 0}, the file is not rolled over by time
+	 * @param maxArchives maximum number of compressed archives to keep
+	 * @return new appender which appends to the file at {@code path} and rolls it over to compressed archives
+	 * @throws IOException if an I/O error occurs opening the file at {@code path}
+	 * @see RollingFileAppender
+	 */
+	public static Appender rollingFile(Path path, int threshold, long maxSize, long interval, int maxArchives) throws IOException {
+		return new RollingFileAppender(path, threshold, maxSize, interval, maxArchives);
 	}
 }
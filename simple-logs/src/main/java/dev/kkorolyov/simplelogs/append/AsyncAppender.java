@@ -0,0 +1,293 @@
+package dev.kkorolyov.simplelogs.append;
+
+import dev.kkorolyov.simplelogs.InternalErrors;
+import dev.kkorolyov.simplelogs.LogEvent;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Appends messages to a delegate appender on a background thread.
+ * Appending threads only enqueue messages into a bounded, lock-free ring buffer, which is drained to the delegate by a dedicated daemon thread.
+ * Events are enqueued as detached events, so that they are formatted, and their stack traces rendered, on the background thread.
+ * Remaining messages are drained when this appender is closed, or on JVM shutdown.
+ * An appender which is discarded without being closed stops its thread once it has nothing left to drain.
+ */
+public final class AsyncAppender extends Appender {
+	/** Default ring buffer capacity */
+	public static final int DEFAULT_CAPACITY = 1 << 13;
+
+	private static final long IDLE_PARK_NANOS = 10_000_000;
+	private static final long FULL_PARK_NANOS = 1_000;
+	private static final AtomicInteger threadCount = new AtomicInteger();
+
+	private static final Set<AsyncAppender> open = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			List<AsyncAppender> appenders;
+			synchronized (open) {
+				appenders = new ArrayList<>(open);
+			}
+			for (AsyncAppender appender : appenders) appender.close();
+		}, "simple-logs-async-shutdown"));
+	}
+
+	private final Appender delegate;
+	private final OverflowPolicy policy;
+
+	private final int mask;
+	private final AtomicLongArray sequences;
+	private final int[] levels;
+	private final Object[] messages;	// Formatted strings, or detached events to format on drain
+	private final AtomicLong head = new AtomicLong();
+	private final AtomicLong tail = new AtomicLong();
+	private final AtomicLong completed = new AtomicLong();
+
+	private final Thread drainer;
+	private volatile boolean draining;
+	private final AtomicBoolean closed = new AtomicBoolean();
+	private final AtomicInteger writers = new AtomicInteger();	// Threads between checking closed and enqueuing
+
+	/**
+	 * Constructs a new async appender with the delegate's threshold, {@value #DEFAULT_CAPACITY} capacity, and a {@link OverflowPolicy#BLOCK} policy.
+	 * @see #AsyncAppender(Appender, int, OverflowPolicy)
+	 */
+	public AsyncAppender(Appender delegate) {
+		this(delegate, DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+	}
+	/**
+	 * Constructs a new async appender with the delegate's threshold.
+	 * @param delegate appender messages are drained to
+	 * @param capacity maximum number of pending messages, rounded up to the next power of 2
+	 * @param policy action taken when appending to a full buffer
+	 * @throws IllegalArgumentException if {@code capacity < 1}
+	 */
+	public AsyncAppender(Appender delegate, int capacity, OverflowPolicy policy) {
+		super(delegate.getThreshold());
+		if (capacity < 1) throw new IllegalArgumentException("capacity must be > 0: " + capacity);
+
+		this.delegate = delegate;
+		this.policy = policy;
+
+		int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+		mask = size - 1;
+		sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) sequences.set(i, i);
+		levels = new int[size];
+		messages = new Object[size];
+
+		WeakReference<AsyncAppender> ref = new WeakReference<>(this);	// Do not keep a discarded appender alive
+		drainer = new Thread(() -> drain(ref), "simple-logs-async-" + threadCount.getAndIncrement());
+		drainer.setDaemon(true);
+		drainer.start();
+
+		open.add(this);
+	}
+
+	/**
+	 * Enqueues a detached copy of an event, to be formatted on the background thread.
+	 * @param event logged event
+	 */
+	@Override
+	protected void write(LogEvent event) {
+		enqueue(event.getLevel(), event);
+	}
+	@Override
+	protected void write(int level, String message) {
+		enqueue(level, message);
+	}
+	private void enqueue(int level, Object message) {
+		writers.incrementAndGet();
+		try {
+			if (closed.get()) {
+				getMetrics().recordDropped();
+				return;
+			}
+			if (message instanceof LogEvent) message = ((LogEvent) message).detach();
+
+			offerOrOverflow(level, message);
+		} finally {
+			writers.decrementAndGet();
+		}
+		if (!draining) LockSupport.unpark(drainer);
+	}
+	private void offerOrOverflow(int level, Object message) {
+		while (!offer(level, message)) {
+			switch (policy) {
+				case DROP_NEWEST:
+					getMetrics().recordDropped();
+					return;
+				case DROP_OLDEST:
+					if (poll(false)) {
+						completed.incrementAndGet();
+						getMetrics().recordDropped();
+					}
+					break;
+				case BLOCK:
+					LockSupport.unpark(drainer);
+					LockSupport.parkNanos(this, FULL_PARK_NANOS);	// Drained by close() if closed meanwhile
+					break;
+			}
+		}
+	}
+	/**
+	 * Enqueues a message at this appender's threshold level.
+	 * @param message logged message
+	 */
+	@Override
+	protected void append(String message) {
+		write(getThreshold(), message);
+	}
+
+	/**
+	 * Blocks until all messages enqueued before this call are drained, then flushes the delegate.
+	 */
+	@Override
+	public void flush() {
+		long target = tail.get();
+		while (completed.get() < target && drainer.isAlive()) {
+			LockSupport.unpark(drainer);
+			LockSupport.parkNanos(this, FULL_PARK_NANOS);
+		}
+		delegate.flush();
+	}
+	/**
+	 * Stops the drain thread, drains all remaining messages, and closes the delegate.
+	 * Messages appended after this appender is closed are dropped, and counted as dropped by {@link #getMetrics()}.
+	 */
+	@Override
+	public void close() {
+		if (!closed.compareAndSet(false, true)) return;
+		open.remove(this);
+
+		LockSupport.unpark(drainer);
+		boolean interrupted = false;
+		while (drainer.isAlive() && drainer != Thread.currentThread()) {
+			try {
+				drainer.join();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		while (writers.get() > 0) {	// Let writers which passed the closed check finish enqueuing
+			if (drainAvailable() == 0) LockSupport.parkNanos(this, FULL_PARK_NANOS);
+		}
+		drainAvailable();
+		delegate.close();
+
+		if (interrupted) Thread.currentThread().interrupt();
+	}
+
+	/** @return number of messages discarded due to a full buffer, or after this appender was closed */
+	public long getDropped() {
+		return getMetrics().getDropped();
+	}
+	/** @return approximate number of messages awaiting drain */
+	public int getPending() {
+		return (int) Math.max(0, tail.get() - head.get());
+	}
+	@Override
+	int queueDepth() {
+		return getPending();
+	}
+
+	private static void drain(WeakReference<AsyncAppender> ref) {
+		for (AsyncAppender appender; (appender = ref.get()) != null && !appender.closed.get(); ) {
+			appender.draining = true;
+			if (appender.drainAvailable() > 0) {
+				appender.delegate.flush();
+			} else {
+				appender.draining = false;
+				boolean idle = appender.head.get() == appender.tail.get() && !appender.closed.get();
+
+				appender = null;	// Only an idle appender may be collected, so nothing is left undrained
+				if (idle) LockSupport.parkNanos(IDLE_PARK_NANOS);
+			}
+		}
+	}
+	private int drainAvailable() {
+		int count = 0;
+		while (poll(true)) count++;
+
+		if (count > 0) completed.addAndGet(count);
+		return count;
+	}
+
+	private boolean offer(int level, Object message) {
+		long pos = tail.get();
+		while (true) {
+			int i = (int) (pos & mask);
+			long diff = sequences.get(i) - pos;
+
+			if (diff == 0) {
+				if (tail.compareAndSet(pos, pos + 1)) {
+					levels[i] = level;
+					messages[i] = message;
+					sequences.set(i, pos + 1);	// Publish slot
+					return true;
+				}
+				pos = tail.get();
+			} else if (diff < 0) {
+				return false;	// Full
+			} else {
+				pos = tail.get();
+			}
+		}
+	}
+	private boolean poll(boolean deliver) {
+		long pos = head.get();
+		while (true) {
+			int i = (int) (pos & mask);
+			long diff = sequences.get(i) - (pos + 1);
+
+			if (diff == 0) {
+				if (head.compareAndSet(pos, pos + 1)) {
+					int level = levels[i];
+					Object message = messages[i];
+					messages[i] = null;
+					sequences.set(i, pos + mask + 1);	// Release slot to producers
+
+					if (deliver) {
+						try {
+							deliver(level, message);
+						} catch (RuntimeException e) {
+							InternalErrors.report("Failed to append to " + delegate, e);	// Keep draining past a faulty delegate
+						}
+					}
+					return true;
+				}
+				pos = head.get();
+			} else if (diff < 0) {
+				return false;	// Empty
+			} else {
+				pos = head.get();
+			}
+		}
+	}
+
+	private void deliver(int level, Object message) {
+		if (message instanceof LogEvent) delegate.append((LogEvent) message);
+		else delegate.append(level, (String) message);
+	}
+
+	/**
+	 * Action taken when a message is appended to a full buffer.
+	 */
+	public enum OverflowPolicy {
+		/** Wait for space in the buffer */
+		BLOCK,
+		/** Discard the appended message */
+		DROP_NEWEST,
+		/** Discard the oldest pending message to make room for the appended message */
+		DROP_OLDEST
+	}
+}
@@ -0,0 +1,212 @@
+package dev.kkorolyov.simplelogs.append;
+
+import dev.kkorolyov.simplelogs.LogEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static dev.kkorolyov.simplelogs.append.BinaryFormat.*;
+
+/**
+ * Appends events to a file as compact binary records instead of formatted text.
+ * Each event is written as its timestamp, level, interned template and call site ids, and raw args and fields; template and call site strings are written once as dictionary records.
+ * Events are only formatted when read back through a {@link BinaryFileReader}.
+ * Already-formatted messages, and events logging a throwable, are written with the template {@value #RAW} and their resolved message as its only arg, so that no formatted text is interned.
+ * <p>Any existing file at the appended path is truncated.</p>
+ * @see BinaryFormat
+ */
+public class BinaryFileAppender extends FileAppender {
+	/** Minimum buffer size in bytes */
+	public static final int MIN_BUFFER_SIZE = 64;
+
+	private static final String RAW = "{}";
+	private static final int MAX_INTERNED = 1 << 16;
+	private static final int MAX_ARGS = 0xFF;
+	private static final int MAX_FIELDS = 0xFF;
+
+	private final Map<String, Integer> templates = new HashMap<>();
+	private final Map<StackTraceElement, Integer> callSites = new HashMap<>();
+	private final boolean resolveCallSites;
+
+	/**
+	 * Constructs a new binary file appender with default buffering which records call sites.
+	 * @see #BinaryFileAppender(Path, int, int, long, int, boolean, boolean)
+	 */
+	public BinaryFileAppender(Path path, int threshold) throws IOException {
+		this(path, threshold, DEFAULT_BUFFER_SIZE, DEFAULT_FLUSH_INTERVAL, DEFAULT_FLUSH_LEVEL, false, true);
+	}
+	/**
+	 * Constructs a new binary file appender.
+	 * @param path path to file
+	 * @param threshold initial appender threshold
+	 * @param bufferSize size of the write buffer in bytes, at least {@value #MIN_BUFFER_SIZE}
+	 * @param flushInterval maximum time in ms a buffered event waits before being written; if {@code <= 0}, events are only written when the buffer is full, on a flush-level event, or on explicit flush
+	 * @param flushLevel level at or above which events are written immediately
+	 * @param force if {@code true}, every flush also forces written content to the storage device
+	 * @param resolveCallSites if {@code true}, records the element invoking the logger for each event
+	 * @throws IOException if an I/O error occurs opening the file at {@code path}
+	 * @throws IllegalArgumentException if {@code bufferSize < MIN_BUFFER_SIZE}
+	 */
+	public BinaryFileAppender(Path path, int threshold, int bufferSize, long flushInterval, int flushLevel, boolean force, boolean resolveCallSites) throws IOException {
+		super(path, threshold, checkBufferSize(bufferSize), flushInterval, flushLevel, force);
+		this.resolveCallSites = resolveCallSites;
+
+		synchronized (this) {
+			reserve(HEADER_SIZE).putInt(MAGIC).putShort(VERSION);
+			commit(Integer.MAX_VALUE);
+		}
+	}
+	private static int checkBufferSize(int bufferSize) {
+		if (bufferSize < MIN_BUFFER_SIZE) throw new IllegalArgumentException("bufferSize must be >= " + MIN_BUFFER_SIZE + ": " + bufferSize);
+		return bufferSize;
+	}
+
+	@Override
+	protected synchronized void write(LogEvent event) {
+		if (!isOpen()) {
+			getMetrics().recordDropped();
+			return;
+		}
+
+		try {
+			// Resolve everything which may run user code, and so log through this appender, before writing any bytes of this record
+			boolean thrown = event.getThrown() != null;	// Stack traces are only recorded as part of the resolved message
+			String template = thrown ? RAW : event.getTemplate();
+			StackTraceElement invoker = resolveCallSites ? event.getInvoker() : null;
+			int argCount = thrown ? 1 : Math.min(event.getArgCount(), MAX_ARGS);
+			Object[] args = argCount > 0 ? new Object[argCount] : null;
+			if (thrown) args[0] = event.getMessage();
+			else for (int i = 0; i < argCount; i++) args[i] = resolveArg(event.getArg(i));
+			int fieldCount = Math.min(event.getFieldCount(), MAX_FIELDS);
+			Object[] values = fieldCount > 0 ? new Object[fieldCount] : null;
+			for (int i = 0; i < fieldCount; i++) values[i] = resolveArg(event.getFieldValue(i));
+
+			writeEvent(event.getTimestamp(), event.getLevel(), template, invoker);
+
+			reserve(1).put((byte) argCount);
+			for (int i = 0; i < argCount; i++) writeArg(args[i]);
+
+			reserve(1).put((byte) fieldCount);
+			for (int i = 0; i < fieldCount; i++) {
+				writeString(event.getFieldKey(i));
+				writeArg(values[i]);
+			}
+
+			commit(event.getLevel());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	/**
+	 * Writes an already-formatted message as an event without call site, whose only arg is the message.
+	 * @param level message level
+	 * @param message logged message
+	 */
+	@Override
+	protected synchronized void write(int level, String message) {
+		if (!isOpen()) {
+			getMetrics().recordDropped();
+			return;
+		}
+
+		try {
+			writeEvent(System.currentTimeMillis(), level, RAW, null);
+			reserve(1).put((byte) 1);
+			writeArg(message);
+			reserve(1).put((byte) 0);	// No fields
+
+			commit(level);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void writeEvent(long timestamp, int level, String template, StackTraceElement invoker) throws IOException {
+		int templateId = internTemplate(template);
+		int callSiteId = invoker != null ? internCallSite(invoker) : NONE;
+
+		reserve(EVENT_HEADER_SIZE)
+				.put(EVENT)
+				.putLong(timestamp)
+				.putInt(level)
+				.putInt(templateId)
+				.putInt(callSiteId);
+		if (templateId == INLINE) writeString(template);
+	}
+	private int internTemplate(String template) throws IOException {
+		Integer id = templates.get(template);
+		if (id != null) return id;
+		if (templates.size() >= MAX_INTERNED) return INLINE;	// Do not grow unbounded on dynamic templates
+
+		id = templates.size();
+		templates.put(template, id);
+
+		reserve(5).put(TEMPLATE).putInt(id);
+		writeString(template);
+
+		return id;
+	}
+	private int internCallSite(StackTraceElement invoker) throws IOException {
+		Integer id = callSites.get(invoker);
+		if (id != null) return id;
+		if (callSites.size() >= MAX_INTERNED) return NONE;
+
+		id = callSites.size();
+		callSites.put(invoker, id);
+
+		reserve(5).put(CALL_SITE).putInt(id);
+		writeString(invoker.getClassName());
+		writeString(invoker.getMethodName());
+		writeString(invoker.getFileName());
+		reserve(4).putInt(invoker.getLineNumber());
+
+		return id;
+	}
+
+	/** @return {@code arg} as a value of a recorded type, with suppliers and other objects resolved */
+	private static Object resolveArg(Object arg) {
+		if (arg instanceof Supplier) arg = ((Supplier<?>) arg).get();
+
+		if (arg == null || arg instanceof String || arg instanceof Integer || arg instanceof Short || arg instanceof Byte || arg instanceof Long
+				|| arg instanceof Float || arg instanceof Double || arg instanceof Boolean || arg instanceof Character) return arg;
+		return arg.toString();
+	}
+	private void writeArg(Object arg) throws IOException {
+		if (arg == null) reserve(1).put(NULL);
+		else if (arg instanceof String) {
+			reserve(1).put(STRING);
+			writeString((String) arg);
+		} else if (arg instanceof Integer || arg instanceof Short || arg instanceof Byte) reserve(5).put(INT).putInt(((Number) arg).intValue());
+		else if (arg instanceof Long) reserve(9).put(LONG).putLong((Long) arg);
+		else if (arg instanceof Float) reserve(5).put(FLOAT).putFloat((Float) arg);
+		else if (arg instanceof Double) reserve(9).put(DOUBLE).putDouble((Double) arg);
+		else if (arg instanceof Boolean) reserve(2).put(BOOLEAN).put((byte) ((Boolean) arg ? 1 : 0));
+		else if (arg instanceof Character) reserve(3).put(CHAR).putChar((Character) arg);
+	}
+	private void writeString(String s) throws IOException {
+		if (s == null) {
+			reserve(4).putInt(-1);
+			return;
+		}
+		int length = s.length();
+		for (int i = 0; i < length; i++) {
+			if (s.charAt(i) >= 0x80) {
+				byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+				reserve(4).putInt(bytes.length);
+				put(bytes);
+				return;
+			}
+		}
+		reserve(4).putInt(length);
+		for (int i = 0; i < length; ) {	// ASCII straight into buffer
+			ByteBuffer buffer = reserve(1);
+			for (int end = Math.min(length, i + buffer.remaining()); i < end; i++) buffer.put((byte) s.charAt(i));
+		}
+	}
+}
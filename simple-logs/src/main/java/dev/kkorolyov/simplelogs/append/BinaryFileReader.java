@@ -0,0 +1,189 @@
+package dev.kkorolyov.simplelogs.append;
+
+import dev.kkorolyov.simplelogs.LogEvent;
+import dev.kkorolyov.simplelogs.format.Formatter;
+import dev.kkorolyov.simplelogs.format.Formatters;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static dev.kkorolyov.simplelogs.append.BinaryFormat.*;
+
+/**
+ * Reads events written by a {@link BinaryFileAppender}, and renders them to text with any {@link Formatter}.
+ * A trailing record truncated by an interrupted write is treated as the end of the file.
+ * <p>Can also be run as {@code java dev.kkorolyov.simplelogs.append.BinaryFileReader FILE [PATTERN]} to print a file's events to {@code System.out}, formatted with a {@link Formatters#pattern(String) pattern formatter} if {@code PATTERN} is specified, else the {@link Formatters#simple() simple formatter}.</p>
+ */
+public final class BinaryFileReader implements Closeable {
+	private final DataInputStream in;
+	private final short version;
+	private final List<String> templates = new ArrayList<>();
+	private final List<StackTraceElement> callSites = new ArrayList<>();
+
+	/**
+	 * Prints the events in a binary log file to {@code System.out}.
+	 * @param args {@code FILE [PATTERN]}
+	 * @throws IOException if an I/O error occurs
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: BinaryFileReader FILE [PATTERN]");
+			System.exit(1);
+		}
+		Formatter formatter = args.length > 1 ? Formatters.pattern(args[1]) : Formatters.simple();
+
+		try (BinaryFileReader reader = new BinaryFileReader(Paths.get(args[0]))) {
+			Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+			reader.render(formatter, out);
+			out.flush();
+		}
+	}
+
+	/**
+	 * Constructs a new reader of a binary log file.
+	 * @param path path to file
+	 * @throws IOException if an I/O error occurs, or the file at {@code path} is not a binary log file
+	 */
+	public BinaryFileReader(Path path) throws IOException {
+		in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+
+		try {
+			int magic = in.readInt();
+			version = in.readShort();
+			if (magic != MAGIC) throw new IOException("Not a binary log file: " + path);
+			if (version < 1 || version > VERSION) throw new IOException("Unsupported binary log version " + version + ": " + path);
+		} catch (IOException e) {
+			in.close();
+			throw e instanceof EOFException ? new IOException("Not a binary log file: " + path, e) : e;
+		}
+	}
+
+	/**
+	 * Reads the next event.
+	 * @return next event, or {@code null} if no more events
+	 * @throws IOException if an I/O error occurs, or the file is malformed
+	 */
+	public LogEvent read() throws IOException {
+		try {
+			for (int tag; (tag = in.read()) >= 0; ) {
+				switch (tag) {
+					case TEMPLATE:
+						define(templates, in.readInt(), readString());
+						break;
+					case CALL_SITE:
+						define(callSites, in.readInt(), new StackTraceElement(readString(), readString(), readString(), in.readInt()));
+						break;
+					case EVENT:
+						return readEvent();
+					default:
+						throw new IOException("Unknown record type: " + tag);
+				}
+			}
+		} catch (EOFException e) {
+			// Truncated final record
+		}
+		return null;
+	}
+	private LogEvent readEvent() throws IOException {
+		long timestamp = in.readLong();
+		int level = in.readInt();
+		int templateId = in.readInt();
+		int callSiteId = in.readInt();
+		String template = templateId == INLINE ? readString() : lookup(templates, templateId);
+		StackTraceElement invoker = callSiteId == NONE ? null : lookup(callSites, callSiteId);
+
+		Object[] args = new Object[in.readUnsignedByte()];
+		for (int i = 0; i < args.length; i++) args[i] = readArg();
+
+		LogEvent event = new LogEvent(timestamp, level, invoker, template, args);
+		if (version >= 2) {
+			int fieldCount = in.readUnsignedByte();
+			if (fieldCount > 0) {
+				String[] keys = new String[fieldCount];
+				Object[] values = new Object[fieldCount];
+				for (int i = 0; i < fieldCount; i++) {
+					keys[i] = readString();
+					values[i] = readArg();
+				}
+				event.withFields(keys, values, fieldCount);
+			}
+		}
+		return event;
+	}
+	private Object readArg() throws IOException {
+		byte type = in.readByte();
+		switch (type) {
+			case NULL:
+				return null;
+			case STRING:
+				return readString();
+			case INT:
+				return in.readInt();
+			case LONG:
+				return in.readLong();
+			case FLOAT:
+				return in.readFloat();
+			case DOUBLE:
+				return in.readDouble();
+			case BOOLEAN:
+				return in.readBoolean();
+			case CHAR:
+				return in.readChar();
+			default:
+				throw new IOException("Unknown arg type: " + type);
+		}
+	}
+	private String readString() throws IOException {
+		int length = in.readInt();
+		if (length < 0) return null;
+
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static <T> void define(List<T> dictionary, int id, T value) throws IOException {
+		if (id != dictionary.size()) throw new IOException("Dictionary id out of sequence: " + id);
+		dictionary.add(value);
+	}
+	private static <T> T lookup(List<T> dictionary, int id) throws IOException {
+		if (id < 0 || id >= dictionary.size()) throw new IOException("Undefined dictionary id: " + id);
+		return dictionary.get(id);
+	}
+
+	/**
+	 * Renders all remaining events as formatted lines.
+	 * @param formatter formatter to format events with
+	 * @param out output to append lines to
+	 * @return number of events rendered
+	 * @throws IOException if an I/O error occurs
+	 */
+	public long render(Formatter formatter, Appendable out) throws IOException {
+		StringBuilder line = new StringBuilder();
+		long count = 0;
+
+		for (LogEvent event; (event = read()) != null; count++) {
+			formatter.format(event, line);
+			out.append(line).append(System.lineSeparator());
+			line.setLength(0);
+		}
+		return count;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+}
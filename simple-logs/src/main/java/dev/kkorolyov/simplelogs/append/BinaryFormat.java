@@ -0,0 +1,43 @@
+package dev.kkorolyov.simplelogs.append;
+
+/**
+ * Record layout shared by {@link BinaryFileAppender} and {@link BinaryFileReader}.
+ * All values are big-endian.
+ * <pre>
+ * file      = MAGIC:int VERSION:short record*
+ * record    = TEMPLATE:byte id:int string
+ *           | CALL_SITE:byte id:int class:string method:string file:string line:int
+ *           | EVENT:byte timestamp:long level:int templateId:int callSiteId:int [string if templateId == INLINE] argCount:byte arg* fieldCount:byte field*
+ * field     = key:string arg
+ * arg       = NULL:byte | STRING:byte string | INT:byte int | LONG:byte long | FLOAT:byte float | DOUBLE:byte double | BOOLEAN:byte byte | CHAR:byte char
+ * string    = length:int utf8Bytes  (length -1 for null)
+ * </pre>
+ * Dictionary records define each template and call site once, before the first event referencing it.
+ * Version 1 events end after their args, without fields.
+ */
+final class BinaryFormat {
+	static final int MAGIC = 0x534C4F47;	// "SLOG"
+	static final short VERSION = 2;
+	static final int HEADER_SIZE = 6;
+
+	static final byte TEMPLATE = 1;
+	static final byte CALL_SITE = 2;
+	static final byte EVENT = 3;
+	static final int EVENT_HEADER_SIZE = 1 + 8 + 4 + 4 + 4;
+
+	/** Template id of an event whose template follows inline */
+	static final int INLINE = -1;
+	/** Call site id of an event without a call site */
+	static final int NONE = -1;
+
+	static final byte NULL = 0;
+	static final byte STRING = 1;
+	static final byte INT = 2;
+	static final byte LONG = 3;
+	static final byte FLOAT = 4;
+	static final byte DOUBLE = 5;
+	static final byte BOOLEAN = 6;
+	static final byte CHAR = 7;
+
+	private BinaryFormat() {}
+}
@@ -0,0 +1,218 @@
+package dev.kkorolyov.simplelogs.append;
+
+import dev.kkorolyov.simplelogs.InternalErrors;
+import dev.kkorolyov.simplelogs.LogContext;
+import dev.kkorolyov.simplelogs.LogEvent;
+import dev.kkorolyov.simplelogs.format.Formatter;
+
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Collapses bursts of identical consecutive events before appending to a delegate appender.
+ * Events are identical if they share a level, template, resolved message, fields, and logged throwable instance.
+ * Supplier field values are compared by identity, so that they are resolved only once, when the event is formatted.
+ * The first event of a burst is appended as-is, and any repeats within a time window of it are replaced by a single summary {@value #SUMMARY_MESSAGE}, formatted with the first event's formatter, invoker, thread, and context.
+ * <p>A summary is appended once the window of its burst ends, or earlier when a different event arrives, or when this appender is flushed or closed.</p>
+ */
+public final class CollapsingAppender extends Appender {
+	/** Default maximum time in ms a burst is collapsed for */
+	public static final long DEFAULT_WINDOW = 10_000;
+	/** Message of appended summaries */
+	public static final String SUMMARY_MESSAGE = "Last message repeated {} times";
+
+	private static final ScheduledExecutorService summarizer = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "simple-logs-collapser");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final Appender delegate;
+	private final long window;
+
+	private int level;
+	private String template;
+	private int hash;
+	private String message;	// Compared only on equal hashes, null unless bursting events without a throwable
+	private Throwable thrown;
+	private Object[] fields;	// Keys and values
+	private long start;
+	private long burst;	// Incremented per burst, so that a scheduled summary only ends its own burst
+	private Formatter formatter;
+	private StackTraceElement invoker;
+	private String thread;
+	private LogContext context;
+	private long repeats;
+
+	/**
+	 * Constructs a new collapsing appender with the delegate's threshold and a {@value #DEFAULT_WINDOW} ms window.
+	 * @see #CollapsingAppender(Appender, long)
+	 */
+	public CollapsingAppender(Appender delegate) {
+		this(delegate, DEFAULT_WINDOW);
+	}
+	/**
+	 * Constructs a new collapsing appender with the delegate's threshold.
+	 * @param delegate appender to append collapsed events to
+	 * @param window maximum time in ms after the first event of a burst that identical events are collapsed
+	 * @throws IllegalArgumentException if {@code window <= 0}
+	 */
+	public CollapsingAppender(Appender delegate, long window) {
+		super(delegate.getThreshold());
+		if (window <= 0) throw new IllegalArgumentException("window must be > 0: " + window);
+
+		this.delegate = delegate;
+		this.window = window;
+	}
+
+	@Override
+	protected synchronized void write(LogEvent event) {
+		if (collapse(event.getLevel(), event.getTemplate(), hash(event), event.getTimestamp(), event)) return;
+
+		if (formatter != null) {
+			invoker = formatter.usesInvoker() ? event.getInvoker() : null;
+			thread = event.getThread();
+			context = event.getContext();
+		}
+		delegate.append(event);
+	}
+	@Override
+	protected synchronized void write(int level, String message) {
+		if (collapse(level, message, 0, System.currentTimeMillis(), null)) return;
+		delegate.append(level, message);
+	}
+	/**
+	 * Appends a message at this appender's threshold level.
+	 * @param message logged message
+	 */
+	@Override
+	protected void append(String message) {
+		write(getThreshold(), message);
+	}
+
+	/**
+	 * @param event appended event, or {@code null} if appending a message
+	 * @return {@code true} if the event is a repeat within the current burst, else starts a new burst
+	 */
+	private boolean collapse(int level, String template, int hash, long timestamp, LogEvent event) {
+		if (level == this.level && hash == this.hash && timestamp - start < window && Objects.equals(template, this.template) && (event == null ? message == null && thrown == null : matches(event))) {
+			if (repeats++ == 0) scheduleSummary(start + window - timestamp);
+			return true;
+		}
+		summarize();
+
+		this.level = level;
+		this.template = template;
+		this.hash = hash;
+		thrown = event != null ? event.getThrown() : null;
+		message = event != null && thrown == null ? event.getMessage() : null;	// Throwables are compared by identity, without rendering their traces
+		fields = event != null ? fields(event) : null;
+		formatter = event != null ? event.getFormatter() : null;
+		burst++;
+		invoker = null;
+		thread = null;
+		context = null;
+		start = timestamp;
+		return false;
+	}
+	private void summarize() {
+		if (repeats <= 0) return;
+
+		LogEvent summary = new LogEvent(System.currentTimeMillis(), level, invoker, SUMMARY_MESSAGE, repeats);
+		if (formatter != null) {
+			StringBuilder out = new StringBuilder();
+			formatter.format(summary.withThread(thread).withContext(context), out);
+			delegate.append(level, out.toString());
+		} else {
+			delegate.append(level, summary.getMessage());
+		}
+		repeats = 0;
+	}
+	private boolean matches(LogEvent event) {
+		Throwable thrown = event.getThrown();
+		if (thrown != null ? thrown != this.thrown : message == null || !message.equals(event.getMessage())) return false;
+
+		int fieldCount = event.getFieldCount();
+		if (fieldCount != (fields == null ? 0 : fields.length / 2)) return false;
+		for (int i = 0; i < fieldCount; i++) {
+			if (!Objects.equals(fields[2 * i], event.getFieldKey(i)) || !same(fields[2 * i + 1], event.getFieldValue(i))) return false;
+		}
+		return true;
+	}
+	private static Object[] fields(LogEvent event) {
+		int fieldCount = event.getFieldCount();
+		if (fieldCount == 0) return null;
+
+		Object[] fields = new Object[2 * fieldCount];
+		for (int i = 0; i < fieldCount; i++) {
+			fields[2 * i] = event.getFieldKey(i);
+			fields[2 * i + 1] = event.getFieldValue(i);
+		}
+		return fields;
+	}
+	private static boolean same(Object value, Object other) {
+		return value instanceof Supplier ? value == other : Objects.equals(value, other);
+	}
+
+	private void scheduleSummary(long delay) {
+		WeakReference<CollapsingAppender> ref = new WeakReference<>(this);	// Do not keep a discarded appender alive
+		long burst = this.burst;
+
+		summarizer.schedule(() -> {
+			CollapsingAppender appender = ref.get();
+			if (appender == null) return;
+
+			try {
+				synchronized (appender) {
+					if (appender.burst == burst) appender.summarize();
+				}
+			} catch (RuntimeException e) {
+				InternalErrors.report("Failed to append summary to " + appender.delegate, e);
+			}
+		}, Math.max(0, delay), TimeUnit.MILLISECONDS);
+	}
+
+	private static int hash(LogEvent event) {
+		Throwable thrown = event.getThrown();
+		int hash = thrown != null ? System.identityHashCode(thrown) : event.getMessage().hashCode();	// Resolved once, and reused when the event is formatted
+		for (int i = 0; i < event.getFieldCount(); i++) hash = 31 * (31 * hash + Objects.hashCode(event.getFieldKey(i))) + hash(event.getFieldValue(i));
+
+		return hash;
+	}
+	private static int hash(Object value) {
+		return value instanceof Supplier ? System.identityHashCode(value) : Objects.hashCode(value);
+	}
+
+	/**
+	 * Appends any pending summary, then flushes the delegate.
+	 */
+	@Override
+	public void flush() {
+		synchronized (this) {
+			summarize();
+		}
+		delegate.flush();
+	}
+	/**
+	 * Appends any pending summary, then closes the delegate.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			summarize();
+			template = null;
+			message = null;
+			thrown = null;
+			fields = null;
+			formatter = null;
+			invoker = null;
+			thread = null;
+			context = null;
+		}
+		delegate.close();
+	}
+}
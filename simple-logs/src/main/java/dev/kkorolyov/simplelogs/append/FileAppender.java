@@ -0,0 +1,311 @@
+package dev.kkorolyov.simplelogs.append;
+
+import dev.kkorolyov.simplelogs.InternalErrors;
+import dev.kkorolyov.simplelogs.Level;
+import dev.kkorolyov.simplelogs.LogEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Appends messages to a file through a {@link FileChannel}.
+ * Messages are encoded as UTF-8 lines straight into a reusable direct buffer, which is written to the file when full, periodically, or immediately after a message at or above a configured flush level.
+ * <p>Open appenders are referenced by the shared flush thread and shutdown hook, so every file appender must be {@link #close() closed} once no longer used.</p>
+ */
+public class FileAppender extends Appender {
+	/** Default buffer size in bytes */
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+	/** Default maximum time in ms a buffered message waits before being written */
+	public static final long DEFAULT_FLUSH_INTERVAL = 200;
+	/** Default level at or above which messages are written immediately */
+	public static final int DEFAULT_FLUSH_LEVEL = Level.SEVERE;
+	/** Minimum buffer size in bytes, fitting any encoded character */
+	public static final int MIN_BUFFER_SIZE = 64;
+
+	private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+	private static final Set<FileAppender> open = ConcurrentHashMap.newKeySet();
+	private static final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "simple-logs-flusher");
+		thread.setDaemon(true);
+		return thread;
+	});
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			for (FileAppender appender : open) appender.flush();
+		}, "simple-logs-flusher-shutdown"));
+	}
+
+	private final Path path;
+	private final ByteBuffer buffer;
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	private final int flushLevel;
+	private final boolean force;
+	private final ScheduledFuture<?> scheduledFlush;
+
+	private final LogIndex index;
+
+	private FileChannel channel;
+	private long size;
+	private boolean dirty;
+
+	/**
+	 * Constructs a new file appender with default buffering.
+	 * @see #FileAppender(Path, int, int, long, int, boolean)
+	 */
+	public FileAppender(Path path, int threshold) throws IOException {
+		this(path, threshold, DEFAULT_BUFFER_SIZE, DEFAULT_FLUSH_INTERVAL, DEFAULT_FLUSH_LEVEL, false);
+	}
+	/**
+	 * Constructs a new file appender which truncates any existing file at {@code path}.
+	 * @see #FileAppender(Path, int, int, long, int, boolean, boolean)
+	 */
+	public FileAppender(Path path, int threshold, int bufferSize, long flushInterval, int flushLevel, boolean force) throws IOException {
+		this(path, threshold, bufferSize, flushInterval, flushLevel, force, false);
+	}
+	/**
+	 * Constructs a new file appender without an index.
+	 * @see #FileAppender(Path, int, int, long, int, boolean, boolean, int)
+	 */
+	public FileAppender(Path path, int threshold, int bufferSize, long flushInterval, int flushLevel, boolean force, boolean append) throws IOException {
+		this(path, threshold, bufferSize, flushInterval, flushLevel, force, append, 0);
+	}
+	/**
+	 * Constructs a new file appender.
+	 * The file at {@code path} is created if it does not exist.
+	 * <p>If {@code indexInterval > 0}, a sparse index of the file's blocks of {@code indexInterval} events is written to a sidecar file at {@code path} + {@code .idx}, for range queries with an {@link IndexedFileReader}.</p>
+	 * @param path path to file
+	 * @param threshold initial appender threshold
+	 * @param bufferSize size of the write buffer in bytes, at least {@value #MIN_BUFFER_SIZE}
+	 * @param flushInterval maximum time in ms a buffered message waits before being written; if {@code <= 0}, messages are only written when the buffer is full, on a flush-level message, or on explicit flush
+	 * @param flushLevel level at or above which messages are written immediately
+	 * @param force if {@code true}, every flush also forces written content to the storage device
+	 * @param append if {@code true}, messages are appended to any existing file at {@code path}, else the existing file is truncated
+	 * @param indexInterval number of events per index entry; if {@code <= 0}, no index is written
+	 * @throws IOException if an I/O error occurs opening the file at {@code path} or its index
+	 * @throws IllegalArgumentException if {@code bufferSize < MIN_BUFFER_SIZE}
+	 */
+	public FileAppender(Path path, int threshold, int bufferSize, long flushInterval, int flushLevel, boolean force, boolean append, int indexInterval) throws IOException {
+		super(threshold);
+		if (bufferSize < MIN_BUFFER_SIZE) throw new IllegalArgumentException("bufferSize must be >= " + MIN_BUFFER_SIZE + ": " + bufferSize);	// Else a multibyte character may never fit
+
+		this.path = path;
+		buffer = ByteBuffer.allocateDirect(bufferSize);
+		this.flushLevel = flushLevel;
+		this.force = force;
+		channel = FileChannel.open(path, CREATE, WRITE, APPEND);	// Never overwrites another appender to the same file, e.g. one replaced by a props reload
+		if (!append) channel.truncate(0);
+		size = channel.size();
+		index = indexInterval > 0 ? new LogIndex(path, indexInterval, append) : null;
+
+		open.add(this);
+		scheduledFlush = flushInterval > 0
+				? flusher.scheduleWithFixedDelay(this::flushQuietly, flushInterval, flushInterval, TimeUnit.MILLISECONDS)
+				: null;
+	}
+
+	@Override
+	protected void write(LogEvent event) {
+		writeLine(event.getTimestamp(), event.getLevel(), event.format());
+	}
+	@Override
+	protected void write(int level, String message) {
+		writeLine(System.currentTimeMillis(), level, message);
+	}
+	/**
+	 * Encodes a line into the write buffer.
+	 * @param timestamp epoch millisecond at which message was logged
+	 * @param level message level
+	 * @param message line to write, excluding line separator
+	 */
+	synchronized void writeLine(long timestamp, int level, CharSequence message) {
+		if (channel == null) {
+			getMetrics().recordDropped();
+			return;
+		}
+
+		try {
+			long start = size();
+			encode(message);
+			put(LINE_SEPARATOR);
+			if (index != null) index.add(start, size(), timestamp, level);
+			commit(level);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	/**
+	 * Appends a message at this appender's threshold level.
+	 * @param message logged message
+	 */
+	@Override
+	protected void append(String message) {
+		write(getThreshold(), message);
+	}
+
+	private void encode(CharSequence message) throws IOException {
+		int length = message.length();
+		for (int i = 0; i < length; i++) {
+			char c = message.charAt(i);
+			if (c >= 0x80) {
+				encodeSlow(message, i);
+				return;
+			}
+			if (!buffer.hasRemaining()) drainBuffer();
+			buffer.put((byte) c);
+		}
+	}
+	private void encodeSlow(CharSequence message, int start) throws IOException {
+		CharBuffer in = CharBuffer.wrap(message, start, message.length());
+		encoder.reset();
+
+		CoderResult result;
+		while ((result = encoder.encode(in, buffer, true)).isOverflow()) drainBuffer();
+		if (result.isError()) result.throwException();
+		while (encoder.flush(buffer).isOverflow()) drainBuffer();
+	}
+	/**
+	 * Puts bytes into the write buffer, writing buffered content to the file as the buffer fills.
+	 * @param bytes bytes to put
+	 */
+	void put(byte[] bytes) throws IOException {
+		for (int i = 0; i < bytes.length; ) {
+			if (!buffer.hasRemaining()) drainBuffer();
+
+			int length = Math.min(buffer.remaining(), bytes.length - i);
+			buffer.put(bytes, i, length);
+			i += length;
+		}
+	}
+	/**
+	 * Ensures the write buffer has room for a number of bytes, writing buffered content to the file if it does not.
+	 * @param bytes number of bytes to make room for, at most the buffer size
+	 * @return write buffer
+	 */
+	ByteBuffer reserve(int bytes) throws IOException {
+		if (buffer.remaining() < bytes) drainBuffer();
+		return buffer;
+	}
+	/**
+	 * Marks content put since the last commit as a complete message, and writes it immediately if {@code level} is at or above the flush level.
+	 * @param level message level
+	 */
+	void commit(int level) throws IOException {
+		dirty = true;
+		if (level <= flushLevel) flushBuffer();
+	}
+	/** @return {@code true} if this appender has not been closed */
+	boolean isOpen() {
+		return channel != null;
+	}
+
+	/**
+	 * Writes all buffered messages to the file.
+	 * @throws UncheckedIOException if an I/O error occurs
+	 */
+	@Override
+	public synchronized void flush() {
+		if (channel == null) return;
+
+		try {
+			flushBuffer();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	private void flushQuietly() {
+		try {
+			flush();
+		} catch (UncheckedIOException e) {
+			InternalErrors.report("Failed to flush " + getPath(), e);	// Do not kill the shared flusher
+		}
+	}
+	/**
+	 * Writes all buffered messages and closes the file.
+	 * Messages appended after this appender is closed are ignored.
+	 * @throws UncheckedIOException if an I/O error occurs
+	 */
+	@Override
+	public synchronized void close() {
+		if (channel == null) return;
+
+		if (scheduledFlush != null) scheduledFlush.cancel(false);
+		open.remove(this);
+		try {
+			flushBuffer();
+			channel.close();
+			if (index != null) index.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			channel = null;
+		}
+	}
+
+	/** @return path to the file appended to */
+	public Path getPath() {
+		return path;
+	}
+
+	/** @return size of the current file in bytes, including buffered messages */
+	synchronized long size() {
+		return size + buffer.position();
+	}
+	/**
+	 * Writes all buffered messages, moves the current file to {@code target}, and continues appending to a new file at the original path.
+	 * @param target path to move current file to
+	 * @return {@code false} if this appender is closed
+	 * @throws IOException if an I/O error occurs
+	 */
+	synchronized boolean moveTo(Path target) throws IOException {
+		if (channel == null) return false;
+
+		flushBuffer();
+		channel.close();
+		try {
+			Files.move(path, target);
+		} finally {
+			channel = FileChannel.open(path, CREATE, WRITE, APPEND);
+			size = channel.size();
+		}
+		return true;
+	}
+
+	private void flushBuffer() throws IOException {
+		if (!dirty) return;
+
+		drainBuffer();
+		if (force) channel.force(false);
+		dirty = false;
+	}
+	private void drainBuffer() throws IOException {
+		buffer.flip();
+		int bytes = buffer.remaining();
+		while (buffer.hasRemaining()) channel.write(buffer);
+		buffer.clear();
+
+		size += bytes;
+		getMetrics().recordBytes(bytes);
+	}
+}
@@ -0,0 +1,218 @@
+package dev.kkorolyov.simplelogs.append;
+
+import dev.kkorolyov.simplelogs.InternalErrors;
+import dev.kkorolyov.simplelogs.Level;
+import dev.kkorolyov.simplelogs.LogContext;
+import dev.kkorolyov.simplelogs.LogEvent;
+import dev.kkorolyov.simplelogs.format.Formatter;
+
+import java.util.Arrays;
+
+/**
+ * Records the most recent events in a fixed-size in-memory ring, and dumps them to a target appender when an event at or above a dump level, or logging a throwable, is appended.
+ * Events are recorded unformatted - as timestamp, level, template, and arg and field references - into preallocated slots, and are only formatted when dumped.
+ * <p>As args and field values are formatted when dumped, mutable values reflect their state at dump time, and invokers are not recorded.
+ * The target appender's own threshold applies to dumped events.</p>
+ */
+public final class FlightRecorderAppender extends Appender {
+	/** Default number of recorded events */
+	public static final int DEFAULT_CAPACITY = 1 << 10;
+	/** Default level at or above which recorded events are dumped */
+	public static final int DEFAULT_DUMP_LEVEL = Level.SEVERE;
+
+	private static final int INITIAL_SLOT_ARGS = 4;
+	private static final String[] NO_KEYS = new String[0];
+	private static final Object[] NO_VALUES = new Object[0];
+
+	private final Appender target;
+	private final int dumpLevel;
+
+	private final long[] timestamps;
+	private final int[] levels;
+	private final String[] threads;
+	private final String[] templates;
+	private final Object[][] args;
+	private final int[] argCounts;
+	private final String[][] fieldKeys;
+	private final Object[][] fieldValues;
+	private final int[] fieldCounts;
+	private final Formatter[] formatters;
+	private final Throwable[] thrown;
+	private final LogContext[] contexts;
+	private long next;	// Total recorded events
+	private long first;	// Oldest recorded event still in the ring
+
+	/**
+	 * Constructs a new flight recorder with {@value #DEFAULT_CAPACITY} capacity which dumps at {@link #DEFAULT_DUMP_LEVEL}.
+	 * @see #FlightRecorderAppender(Appender, int, int, int)
+	 */
+	public FlightRecorderAppender(Appender target, int threshold) {
+		this(target, threshold, DEFAULT_CAPACITY, DEFAULT_DUMP_LEVEL);
+	}
+	/**
+	 * Constructs a new flight recorder.
+	 * @param target appender recorded events are dumped to
+	 * @param threshold initial appender threshold, i.e. maximum level of recorded events
+	 * @param capacity maximum number of recorded events
+	 * @param dumpLevel level at or above which an appended event dumps all recorded events
+	 * @throws IllegalArgumentException if {@code capacity < 1}
+	 */
+	public FlightRecorderAppender(Appender target, int threshold, int capacity, int dumpLevel) {
+		super(threshold);
+		if (capacity < 1) throw new IllegalArgumentException("capacity must be > 0: " + capacity);
+
+		this.target = target;
+		this.dumpLevel = dumpLevel;
+
+		timestamps = new long[capacity];
+		levels = new int[capacity];
+		threads = new String[capacity];
+		templates = new String[capacity];
+		args = new Object[capacity][];
+		for (int i = 0; i < capacity; i++) args[i] = new Object[INITIAL_SLOT_ARGS];
+		argCounts = new int[capacity];
+		fieldKeys = new String[capacity][];
+		fieldValues = new Object[capacity][];
+		Arrays.fill(fieldKeys, NO_KEYS);	// Most events have no fields
+		Arrays.fill(fieldValues, NO_VALUES);
+		fieldCounts = new int[capacity];
+		formatters = new Formatter[capacity];
+		thrown = new Throwable[capacity];
+		contexts = new LogContext[capacity];
+	}
+
+	@Override
+	protected void write(LogEvent event) {
+		boolean dump = event.getLevel() <= dumpLevel || event.getThrown() != null;
+
+		synchronized (this) {
+			int i = claim();
+			timestamps[i] = event.getTimestamp();
+			levels[i] = event.getLevel();
+			threads[i] = event.getThread();
+			templates[i] = event.getTemplate();
+			formatters[i] = event.getFormatter();
+			thrown[i] = event.getThrown();
+			contexts[i] = event.getContext();
+
+			int argCount = event.getArgCount();
+			if (args[i].length < argCount) args[i] = new Object[argCount];
+			for (int j = 0; j < argCount; j++) args[i][j] = event.getArg(j);
+			argCounts[i] = argCount;
+
+			int fieldCount = event.getFieldCount();
+			if (fieldKeys[i].length < fieldCount) {
+				fieldKeys[i] = new String[fieldCount];
+				fieldValues[i] = new Object[fieldCount];
+			}
+			for (int j = 0; j < fieldCount; j++) {
+				fieldKeys[i][j] = event.getFieldKey(j);
+				fieldValues[i][j] = event.getFieldValue(j);
+			}
+			fieldCounts[i] = fieldCount;
+
+			if (dump) dump();
+		}
+	}
+	@Override
+	protected void write(int level, String message) {
+		synchronized (this) {
+			int i = claim();
+			timestamps[i] = System.currentTimeMillis();
+			levels[i] = level;
+			threads[i] = Thread.currentThread().getName();
+			templates[i] = message;
+			formatters[i] = null;
+			contexts[i] = LogContext.EMPTY;
+			argCounts[i] = 0;
+			fieldCounts[i] = 0;
+
+			if (level <= dumpLevel) dump();
+		}
+	}
+	/**
+	 * Records a message at this appender's threshold level.
+	 * @param message logged message
+	 */
+	@Override
+	protected void append(String message) {
+		write(getThreshold(), message);
+	}
+
+	/** @return index of the slot for the next event, overwriting the oldest event if full */
+	private int claim() {
+		if (next - first == timestamps.length) clear((int) (first++ % timestamps.length));
+		return (int) (next++ % timestamps.length);
+	}
+	private void clear(int i) {
+		Arrays.fill(args[i], 0, argCounts[i], null);
+		Arrays.fill(fieldKeys[i], 0, fieldCounts[i], null);
+		Arrays.fill(fieldValues[i], 0, fieldCounts[i], null);
+		fieldCounts[i] = 0;
+		templates[i] = null;
+		formatters[i] = null;
+		threads[i] = null;
+		thrown[i] = null;
+		contexts[i] = null;
+	}
+
+	/**
+	 * Formats and appends all recorded events to the target appender, oldest first, then discards them.
+	 */
+	public synchronized void dump() {
+		StringBuilder line = new StringBuilder();
+
+		for (; first < next; first++) {
+			int i = (int) (first % timestamps.length);
+			String template = templates[i];
+			Formatter formatter = formatters[i];
+			int fieldCount = fieldCounts[i];
+			LogEvent event = new LogEvent(timestamps[i], levels[i], null, template, Arrays.copyOf(args[i], argCounts[i])).withThread(threads[i]).withThrown(thrown[i]).withContext(contexts[i]);
+			if (fieldCount > 0) event.withFields(Arrays.copyOf(fieldKeys[i], fieldCount), Arrays.copyOf(fieldValues[i], fieldCount), fieldCount);
+
+			try {
+				if (formatter != null) {
+					formatter.format(event, line);
+					target.append(levels[i], line.toString());
+					line.setLength(0);
+				} else {
+					target.append(levels[i], event.getMessage());
+				}
+			} catch (RuntimeException e) {
+				line.setLength(0);
+				InternalErrors.report("Failed to dump recorded event", e);	// Keep dumping remaining events
+			} finally {
+				clear(i);
+			}
+		}
+		target.flush();
+	}
+
+	/** @return number of recorded events */
+	public synchronized int getSize() {
+		return (int) (next - first);
+	}
+	/** @return maximum number of recorded events */
+	public int getCapacity() {
+		return timestamps.length;
+	}
+
+	/**
+	 * Flushes the target appender.
+	 * Recorded events are not dumped.
+	 */
+	@Override
+	public void flush() {
+		target.flush();
+	}
+	/**
+	 * Discards recorded events and closes the target appender.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			for (; first < next; first++) clear((int) (first % timestamps.length));
+		}
+		target.close();
+	}
+}
@@ -0,0 +1,164 @@
+package dev.kkorolyov.simplelogs.append;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static dev.kkorolyov.simplelogs.append.LogIndex.*;
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Reads time and level ranges of a log file written by a {@link FileAppender} with an index.
+ * Index entries are found by binary search over the memory-mapped index, and only the matching regions of the log file are memory-mapped, so a query touches only the pages it reads.
+ * <p>Queries are as precise as the index: every event in a block whose time range overlaps the query's and which contains an event at or above the query's level is read.
+ * Any trailing events not yet indexed are read if they may be within the query's time range.</p>
+ * @see LogIndex
+ */
+public final class IndexedFileReader implements Closeable {
+	private static final int MAX_REGION = Integer.MAX_VALUE;	// Largest mappable region
+
+	private final FileChannel log;
+	private final MappedByteBuffer index;
+	private final int entries;
+	private final int maxRegion;
+
+	/**
+	 * Constructs a new reader of the log file at {@code path}, using the index file at {@code path} + {@code .idx}.
+	 * @param path path to log file
+	 * @throws IOException if an I/O error occurs opening either file, or the index is invalid
+	 */
+	public IndexedFileReader(Path path) throws IOException {
+		this(path, MAX_REGION);
+	}
+	IndexedFileReader(Path path, int maxRegion) throws IOException {
+		this.maxRegion = maxRegion;
+
+		Path indexPath = LogIndex.path(path);
+		if (Files.notExists(indexPath)) throw new IOException("No index for log file: " + path);
+
+		try (FileChannel indexChannel = FileChannel.open(indexPath, READ)) {
+			index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexChannel.size());
+		}
+		if (index.capacity() < HEADER_SIZE || index.getInt(0) != MAGIC) throw new IOException("Not an index file: " + indexPath);
+		if (index.getInt(4) != VERSION) throw new IOException("Unsupported index version " + index.getInt(4) + ": " + indexPath);
+		entries = (index.capacity() - HEADER_SIZE) / ENTRY_SIZE;	// Ignore any partially-written entry
+
+		log = FileChannel.open(path, READ);
+	}
+
+	/**
+	 * Reads the regions of the log file which may contain events within a time and level range.
+	 * Adjacent matching blocks are merged into a single region, and regions larger than {@code 2 GB} are split into several on line boundaries.
+	 * @param from earliest epoch millisecond, inclusive
+	 * @param to latest epoch millisecond, inclusive
+	 * @param maxLevel least severe level
+	 * @param regions handler invoked with a read-only view of each matching region of the log file, which spans whole lines, in order
+	 * @return number of bytes read
+	 * @throws IOException if an I/O error occurs mapping the log file
+	 */
+	public long read(long from, long to, int maxLevel, Consumer<ByteBuffer> regions) throws IOException {
+		long size = log.size();
+		long total = 0;
+
+		long regionStart = 0, regionEnd = 0;
+		if (entries > 0 && from < firstTimestamp(0)) regionEnd = Math.min(start(0), size);	// Unindexed head, e.g. from before the index was enabled
+
+		for (int i = firstEntry(from); i < entries && firstTimestamp(i) <= to; i++) {
+			long start = start(i), end = Math.min(end(i), size);
+			if (start >= end) break;	// Index is ahead of the flushed log
+			if (minLevel(i) > maxLevel) continue;
+
+			if (start != regionEnd) {
+				total += emit(regionStart, regionEnd, regions);
+				regionStart = start;
+			}
+			regionEnd = end;
+		}
+		long indexed = entries > 0 ? Math.min(end(entries - 1), size) : 0;
+		if (indexed < size && (entries == 0 || lastTimestamp(entries - 1) <= to)) {	// Unindexed tail
+			if (indexed != regionEnd) {
+				total += emit(regionStart, regionEnd, regions);
+				regionStart = indexed;
+			}
+			regionEnd = size;
+		}
+		return total + emit(regionStart, regionEnd, regions);
+	}
+	/**
+	 * Reads the lines of the log file which may contain events within a time and level range.
+	 * @return lines of all matching regions
+	 * @see #read(long, long, int, Consumer)
+	 */
+	public List<String> readLines(long from, long to, int maxLevel) throws IOException {
+		List<String> lines = new ArrayList<>();
+		read(from, to, maxLevel, region -> {
+			for (String line : StandardCharsets.UTF_8.decode(region).toString().split(System.lineSeparator())) lines.add(line);
+		});
+		return lines;
+	}
+
+	private long emit(long start, long end, Consumer<ByteBuffer> regions) throws IOException {
+		if (start >= end) return 0;
+
+		for (long position = start; position < end; ) {
+			ByteBuffer region = log.map(FileChannel.MapMode.READ_ONLY, position, Math.min(end - position, maxRegion));
+			if (position + region.capacity() < end) region.limit(lineEnd(region));
+
+			position += region.limit();
+			regions.accept(region);
+		}
+		return end - start;
+	}
+	/** @return position after the last line in {@code region}, or its capacity if it is within a single line */
+	private static int lineEnd(ByteBuffer region) {
+		for (int i = region.capacity() - 1; i >= 0; i--) {
+			if (region.get(i) == '\n') return i + 1;
+		}
+		return region.capacity();
+	}
+
+	/** @return index of the first entry whose last timestamp is {@code >= from} */
+	private int firstEntry(long from) {
+		int low = 0, high = entries;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (lastTimestamp(mid) < from) low = mid + 1;
+			else high = mid;
+		}
+		return low;
+	}
+
+	private long firstTimestamp(int entry) {
+		return index.getLong(HEADER_SIZE + entry * ENTRY_SIZE);
+	}
+	private long lastTimestamp(int entry) {
+		return index.getLong(HEADER_SIZE + entry * ENTRY_SIZE + 8);
+	}
+	private long start(int entry) {
+		return index.getLong(HEADER_SIZE + entry * ENTRY_SIZE + 16);
+	}
+	private long end(int entry) {
+		return index.getLong(HEADER_SIZE + entry * ENTRY_SIZE + 24);
+	}
+	private int minLevel(int entry) {
+		return index.getInt(HEADER_SIZE + entry * ENTRY_SIZE + 32);
+	}
+
+	/** @return number of index entries */
+	public int getEntries() {
+		return entries;
+	}
+
+	@Override
+	public void close() throws IOException {
+		log.close();
+	}
+}
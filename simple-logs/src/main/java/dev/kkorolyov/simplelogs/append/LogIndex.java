@@ -0,0 +1,100 @@
+package dev.kkorolyov.simplelogs.append;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Writes a sparse sidecar index of a log file, with 1 entry per block of consecutive events.
+ * All values are big-endian.
+ * <pre>
+ * index = MAGIC:int VERSION:int entry*
+ * entry = firstTimestamp:long lastTimestamp:long start:long end:long minLevel:int count:int
+ * </pre>
+ * {@code start} and {@code end} are the byte offsets in the log file of the block's first and after its last event.
+ * {@code lastTimestamp} is the latest timestamp logged up to and including the block, so it never decreases from entry to entry even if the clock does.
+ * {@code minLevel} is the most severe level in the block.
+ * @see IndexedFileReader
+ */
+final class LogIndex {
+	static final int MAGIC = 0x534C4958;	// "SLIX"
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 8;
+	static final int ENTRY_SIZE = 8 + 8 + 8 + 8 + 4 + 4;
+	static final String SUFFIX = ".idx";
+
+	private final FileChannel channel;
+	private final int interval;
+	private final ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+
+	private int count;
+	private long start;
+	private long end;
+	private long firstTimestamp;
+	private long lastTimestamp = Long.MIN_VALUE;
+	private int minLevel;
+
+	/**
+	 * @param log path to indexed log file
+	 * @param interval number of events per index entry
+	 * @param append if {@code true}, continues any existing index
+	 * @throws IOException if an I/O error occurs opening the index file
+	 */
+	LogIndex(Path log, int interval, boolean append) throws IOException {
+		this.interval = interval;
+		channel = FileChannel.open(path(log), CREATE, WRITE, append ? APPEND : TRUNCATE_EXISTING);
+
+		if (channel.size() == 0) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+			while (header.hasRemaining()) channel.write(header);
+		}
+	}
+	/** @return path to the index of the log file at {@code log} */
+	static Path path(Path log) {
+		return log.resolveSibling(log.getFileName() + SUFFIX);
+	}
+
+	/**
+	 * Adds an event to the current block, writing the block's entry once it has {@code interval} events.
+	 * @param start offset of the event in the log file
+	 * @param end offset after the event in the log file
+	 * @param timestamp event timestamp
+	 * @param level event level
+	 */
+	void add(long start, long end, long timestamp, int level) throws IOException {
+		if (count == 0) {
+			this.start = start;
+			firstTimestamp = timestamp;
+			minLevel = level;
+		} else {
+			firstTimestamp = Math.min(firstTimestamp, timestamp);
+			minLevel = Math.min(minLevel, level);
+		}
+		this.end = end;
+		lastTimestamp = Math.max(lastTimestamp, timestamp);
+
+		if (++count >= interval) writeEntry();
+	}
+	private void writeEntry() throws IOException {
+		entry.clear();
+		entry.putLong(firstTimestamp).putLong(lastTimestamp).putLong(start).putLong(end).putInt(minLevel).putInt(count).flip();
+		while (entry.hasRemaining()) channel.write(entry);
+
+		count = 0;
+	}
+
+	/** Writes the entry of any partial block, and closes the index file */
+	void close() throws IOException {
+		try {
+			if (count > 0) writeEntry();
+		} finally {
+			channel.close();
+		}
+	}
+}
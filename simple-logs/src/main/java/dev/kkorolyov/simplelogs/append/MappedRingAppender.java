@@ -0,0 +1,161 @@
+package dev.kkorolyov.simplelogs.append;
+
+import dev.kkorolyov.simplelogs.LogEvent;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static dev.kkorolyov.simplelogs.append.MappedRingFormat.*;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Appends formatted events as length-prefixed records to a memory-mapped file used as a single-producer, single-consumer ring.
+ * Another process consumes the ring through a {@link MappedRingReader}, without either side making a system call per event.
+ * Appending threads take turns as the single producer.
+ * <p>Events which do not fit in the free space of the ring are dropped rather than waiting for the reader.
+ * The file is recreated empty when this appender is constructed, and its contents are not guaranteed to reach the storage device.</p>
+ * @see MappedRingFormat
+ */
+public final class MappedRingAppender extends Appender {
+	/** Default data capacity in bytes */
+	public static final int DEFAULT_CAPACITY = 1 << 22;
+
+	private final Path path;
+	private final int mask;
+	private MappedByteBuffer buffer;
+
+	private long writePosition;
+	private long readPosition;	// Last observed reader position
+
+	/**
+	 * Constructs a new mapped ring appender with {@value #DEFAULT_CAPACITY} capacity.
+	 * @see #MappedRingAppender(Path, int, int)
+	 */
+	public MappedRingAppender(Path path, int threshold) throws IOException {
+		this(path, threshold, DEFAULT_CAPACITY);
+	}
+	/**
+	 * Constructs a new mapped ring appender.
+	 * @param path path to ring file
+	 * @param threshold initial appender threshold
+	 * @param capacity data capacity in bytes, rounded up to the next power of 2
+	 * @throws IOException if an I/O error occurs creating or mapping the file at {@code path}
+	 * @throws IllegalArgumentException if {@code capacity} is not within {@code [1024, 2^30]}
+	 */
+	public MappedRingAppender(Path path, int threshold, int capacity) throws IOException {
+		super(threshold);
+		if (capacity < MIN_CAPACITY || capacity > 1 << 30) throw new IllegalArgumentException("capacity must be within [" + MIN_CAPACITY + ", 2^30]: " + capacity);
+
+		this.path = path;
+		int size = Integer.highestOneBit(capacity - 1) << 1;
+		mask = size - 1;
+
+		try (FileChannel channel = FileChannel.open(path, CREATE, READ, WRITE, TRUNCATE_EXISTING)) {
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, DATA + size);
+		}
+		buffer.order(ByteOrder.nativeOrder());
+		buffer.putInt(CAPACITY, size);
+		buffer.putInt(4, VERSION);
+		POSITION.setRelease(buffer, WRITE_POSITION, 0L);
+		POSITION.setRelease(buffer, READ_POSITION, 0L);
+		buffer.putInt(0, MAGIC);	// Last, so readers only open an initialized ring
+	}
+
+	@Override
+	protected void write(LogEvent event) {
+		writeRecord(event.getTimestamp(), event.getLevel(), event.format());
+	}
+	@Override
+	protected void write(int level, String message) {
+		writeRecord(System.currentTimeMillis(), level, message);
+	}
+	/**
+	 * Writes a message at this appender's threshold level.
+	 * @param message logged message
+	 */
+	@Override
+	protected void append(String message) {
+		write(getThreshold(), message);
+	}
+
+	private synchronized void writeRecord(long timestamp, int level, CharSequence message) {
+		if (buffer == null) {
+			getMetrics().recordDropped();
+			return;
+		}
+		int capacity = mask + 1;
+		int maxLength = message.length() * 3;	// Most UTF-8 bytes per UTF-16 char
+		int maxRecord = align(RECORD_HEADER_SIZE + maxLength);
+
+		int offset = (int) (writePosition & mask);
+		int skipped = capacity - offset < maxRecord ? capacity - offset : 0;
+
+		if (maxRecord > capacity / 2 || !hasRoom(skipped + maxRecord, capacity)) {
+			getMetrics().recordDropped();
+			return;
+		}
+		if (skipped > 0) {
+			buffer.putInt(DATA + offset, PADDING);
+			writePosition += skipped;
+			offset = 0;
+		}
+		int start = DATA + offset + RECORD_HEADER_SIZE;
+		int length = encode(message, start);
+
+		buffer.putInt(DATA + offset, length);
+		buffer.putInt(DATA + offset + 4, level);
+		buffer.putLong(DATA + offset + 8, timestamp);
+
+		int record = align(RECORD_HEADER_SIZE + length);
+		writePosition += record;
+		POSITION.setRelease(buffer, WRITE_POSITION, writePosition);	// Publish record
+
+		getMetrics().recordBytes(record);
+	}
+	private boolean hasRoom(int bytes, int capacity) {
+		if (writePosition + bytes - readPosition <= capacity) return true;
+
+		readPosition = (long) POSITION.getAcquire(buffer, READ_POSITION);
+		return writePosition + bytes - readPosition <= capacity;
+	}
+	/** @return number of bytes encoded at {@code start} */
+	private int encode(CharSequence message, int start) {
+		int length = message.length();
+		for (int i = 0; i < length; i++) {
+			char c = message.charAt(i);
+			if (c >= 0x80) return i + encodeSlow(message, i, start + i);
+			buffer.put(start + i, (byte) c);
+		}
+		return length;
+	}
+	private int encodeSlow(CharSequence message, int from, int start) {
+		byte[] bytes = message.subSequence(from, message.length()).toString().getBytes(StandardCharsets.UTF_8);
+		for (int i = 0; i < bytes.length; i++) buffer.put(start + i, bytes[i]);
+		return bytes.length;
+	}
+
+	/**
+	 * Stops appending to the ring.
+	 * Messages appended after this appender is closed are dropped.
+	 */
+	@Override
+	public synchronized void close() {
+		buffer = null;	// Unmapped once collected
+	}
+
+	/** @return path to the ring file */
+	public Path getPath() {
+		return path;
+	}
+	/** @return data capacity in bytes */
+	public int getCapacity() {
+		return mask + 1;
+	}
+}
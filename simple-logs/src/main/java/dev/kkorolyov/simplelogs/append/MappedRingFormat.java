@@ -0,0 +1,47 @@
+package dev.kkorolyov.simplelogs.append;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Layout of the memory-mapped ring shared by {@link MappedRingAppender} and {@link MappedRingReader}.
+ * All values are in native byte order, as the ring is only shared between processes on the same host.
+ * <pre>
+ * file    = header data
+ * header  = MAGIC:int VERSION:int capacity:int (pad to WRITE_POSITION) writePosition:long (pad to READ_POSITION) readPosition:long (pad to DATA)
+ * data    = record* within capacity bytes, wrapping to the start
+ * record  = length:int level:int timestamp:long utf8Bytes[length] (pad to RECORD_ALIGNMENT)
+ *         | PADDING:int  (skip to the end of data)
+ * </pre>
+ * Positions are total bytes written or read since the ring was created, so a position's data offset is {@code position % capacity}.
+ * The writer publishes {@code writePosition} only after writing a record, and the reader publishes {@code readPosition} only after consuming one.
+ * Each position is on its own cache line.
+ */
+final class MappedRingFormat {
+	static final int MAGIC = 0x534C5251;	// "SLRQ"
+	static final int VERSION = 1;
+
+	static final int CAPACITY = 8;
+	static final int WRITE_POSITION = 64;
+	static final int READ_POSITION = 128;
+	static final int DATA = 192;
+
+	static final int RECORD_HEADER_SIZE = 4 + 4 + 8;
+	static final int RECORD_ALIGNMENT = 8;
+	/** Length of a record marking the rest of data as unused */
+	static final int PADDING = -1;
+
+	/** Minimum data capacity in bytes */
+	static final int MIN_CAPACITY = 1 << 10;
+
+	/** Accesses positions with ordered reads and writes */
+	static final VarHandle POSITION = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+	private MappedRingFormat() {}
+
+	/** @return {@code length} rounded up to {@link #RECORD_ALIGNMENT} */
+	static int align(int length) {
+		return (length + RECORD_ALIGNMENT - 1) & -RECORD_ALIGNMENT;
+	}
+}
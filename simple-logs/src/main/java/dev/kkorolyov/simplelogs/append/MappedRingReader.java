@@ -0,0 +1,137 @@
+package dev.kkorolyov.simplelogs.append;
+
+import dev.kkorolyov.simplelogs.LogEvent;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static dev.kkorolyov.simplelogs.append.MappedRingFormat.*;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Consumes events from a memory-mapped ring written by a {@link MappedRingAppender}, typically in another process.
+ * Messages are handed out as views of the mapped file, so reading copies nothing and makes no system calls.
+ * Each ring must be consumed by at most 1 reader at a time, and a reader must not be used from multiple threads at once.
+ * @see MappedRingFormat
+ */
+public final class MappedRingReader implements Closeable {
+	private final int mask;
+	private MappedByteBuffer buffer;
+	private final ByteBuffer view;
+
+	/**
+	 * Constructs a new reader of the ring at {@code path}.
+	 * @param path path to ring file
+	 * @throws IOException if an I/O error occurs mapping the file at {@code path}, or the file is not an initialized ring
+	 */
+	public MappedRingReader(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, READ, WRITE)) {
+			if (channel.size() < DATA) throw new IOException("Not a ring file: " + path);
+
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+		}
+		buffer.order(ByteOrder.nativeOrder());
+		if (buffer.getInt(0) != MAGIC) throw new IOException("Not an initialized ring file: " + path);
+		if (buffer.getInt(4) != VERSION) throw new IOException("Unsupported ring version " + buffer.getInt(4) + ": " + path);
+
+		int capacity = buffer.getInt(CAPACITY);
+		if (DATA + capacity != buffer.capacity()) throw new IOException("Truncated ring file: " + path);
+
+		mask = capacity - 1;
+		view = buffer.duplicate();
+	}
+
+	/**
+	 * Consumes all events currently available.
+	 * @param handler handler invoked for each event, in order
+	 * @return number of events consumed
+	 * @see #read(Handler, int)
+	 */
+	public int read(Handler handler) {
+		return read(handler, Integer.MAX_VALUE);
+	}
+	/**
+	 * Consumes up to {@code max} of the events currently available, and releases their space to the writer.
+	 * @param handler handler invoked for each event, in order
+	 * @param max maximum number of events to consume
+	 * @return number of events consumed
+	 * @throws IllegalStateException if this reader is closed
+	 */
+	public int read(Handler handler, int max) {
+		if (buffer == null) throw new IllegalStateException("Reader is closed");
+
+		long readPosition = (long) POSITION.getAcquire(buffer, READ_POSITION);
+		long writePosition = (long) POSITION.getAcquire(buffer, WRITE_POSITION);
+		if (readPosition > writePosition) readPosition = 0;	// Ring was recreated by a new writer
+
+		int count = 0;
+		try {
+			while (count < max && readPosition < writePosition) {
+				int offset = (int) (readPosition & mask);
+				int length = buffer.getInt(DATA + offset);
+
+				if (length == PADDING) {
+					readPosition += mask + 1 - offset;
+					continue;
+				}
+				int start = DATA + offset + RECORD_HEADER_SIZE;
+				view.clear().position(start).limit(start + length);
+
+				readPosition += align(RECORD_HEADER_SIZE + length);
+				count++;
+				handler.accept(buffer.getLong(DATA + offset + 8), buffer.getInt(DATA + offset + 4), view);
+			}
+		} finally {
+			POSITION.setRelease(buffer, READ_POSITION, readPosition);	// Release consumed space
+		}
+		return count;
+	}
+
+	/**
+	 * Consumes the next event as a detached event, copying its message.
+	 * @return next event, or {@code null} if no event is available
+	 */
+	public LogEvent poll() {
+		LogEvent[] next = new LogEvent[1];
+		read((timestamp, level, message) -> {
+			byte[] bytes = new byte[message.remaining()];
+			message.get(bytes);
+			next[0] = new LogEvent(timestamp, level, null, new String(bytes, StandardCharsets.UTF_8));
+		}, 1);
+		return next[0];
+	}
+
+	/** @return approximate number of bytes written but not yet consumed */
+	public long getPending() {
+		if (buffer == null) return 0;
+		return Math.max(0, (long) POSITION.getAcquire(buffer, WRITE_POSITION) - (long) POSITION.getAcquire(buffer, READ_POSITION));
+	}
+
+	/**
+	 * Stops reading the ring.
+	 */
+	@Override
+	public void close() {
+		buffer = null;	// Unmapped once collected
+	}
+
+	/**
+	 * Handles a single event read from a ring.
+	 */
+	@FunctionalInterface
+	public interface Handler {
+		/**
+		 * @param timestamp epoch millisecond at which event was logged
+		 * @param level event level
+		 * @param message view of the UTF-8 encoded formatted event, valid only for the duration of this call
+		 */
+		void accept(long timestamp, int level, ByteBuffer message);
+	}
+}
@@ -0,0 +1,167 @@
+package dev.kkorolyov.simplelogs.append;
+
+import dev.kkorolyov.simplelogs.InternalErrors;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A {@link FileAppender} which rolls its file over to an archive once it exceeds a maximum size and/or at the end of each time window.
+ * Archives are named {@code {file}.{timestamp}.gz}, and are compressed on a background thread so that rolling over never waits on compression.
+ * Only the most recent archives up to a configured maximum are kept, counting any left uncompressed.
+ * Archives left uncompressed, e.g. by a failure or shutdown during compression, are compressed when a new appender to the same file is constructed.
+ */
+public class RollingFileAppender extends FileAppender {
+	/** Default maximum number of archives to keep */
+	public static final int DEFAULT_MAX_ARCHIVES = 7;
+
+	private static final String ARCHIVE_EXTENSION = ".gz";
+	private static final DateTimeFormatter ARCHIVE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS")
+			.withZone(ZoneOffset.UTC);
+
+	private static final ExecutorService compressor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "simple-logs-compressor");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final long maxSize;
+	private final long interval;
+	private final int maxArchives;
+
+	private long nextRoll;
+	private long lastArchive;
+
+	/**
+	 * Constructs a new rolling file appender with default buffering.
+	 * @see #RollingFileAppender(Path, int, long, long, int, int, long, int)
+	 */
+	public RollingFileAppender(Path path, int threshold, long maxSize, long interval, int maxArchives) throws IOException {
+		this(path, threshold, maxSize, interval, maxArchives, DEFAULT_BUFFER_SIZE, DEFAULT_FLUSH_INTERVAL, DEFAULT_FLUSH_LEVEL);
+	}
+	/**
+	 * Constructs a new rolling file appender.
+	 * Messages are appended to any existing file at {@code path}.
+	 * @param path path to file
+	 * @param threshold initial appender threshold
+	 * @param maxSize size in bytes after which the file is rolled over; if {@code <= 0}, the file is not rolled over by size
+	 * @param interval length in ms of the UTC-epoch-aligned time window at the end of which the file is rolled over; if {@code <= 0}, the file is not rolled over by time
+	 * @param maxArchives maximum number of archives to keep
+	 * @param bufferSize size of the write buffer in bytes
+	 * @param flushInterval maximum time in ms a buffered message waits before being written
+	 * @param flushLevel level at or above which messages are written immediately
+	 * @throws IOException if an I/O error occurs opening the file at {@code path}
+	 * @see FileAppender#FileAppender(Path, int, int, long, int, boolean, boolean)
+	 */
+	public RollingFileAppender(Path path, int threshold, long maxSize, long interval, int maxArchives, int bufferSize, long flushInterval, int flushLevel) throws IOException {
+		super(path, threshold, bufferSize, flushInterval, flushLevel, false, true);
+
+		this.maxSize = maxSize;
+		this.interval = interval;
+		this.maxArchives = maxArchives;
+
+		nextRoll = interval > 0 ? nextWindow(System.currentTimeMillis()) : Long.MAX_VALUE;
+
+		compressor.execute(this::recover);
+	}
+
+	@Override
+	synchronized void writeLine(long timestamp, int level, CharSequence message) {
+		long now = System.currentTimeMillis();
+		if (now >= nextRoll || (maxSize > 0 && size() >= maxSize)) {
+			roll(now);
+		}
+		super.writeLine(timestamp, level, message);
+	}
+
+	/**
+	 * Rolls the current file over to a new archive.
+	 * @throws UncheckedIOException if an I/O error occurs
+	 */
+	public synchronized void roll() {
+		roll(System.currentTimeMillis());
+	}
+	private void roll(long now) {
+		if (interval > 0) nextRoll = nextWindow(now);
+		if (size() <= 0) return;
+
+		lastArchive = Math.max(now, lastArchive + 1);	// Unique archive names within the same ms
+		Path archive = getPath().resolveSibling(getPath().getFileName() + "." + ARCHIVE_TIMESTAMP.format(Instant.ofEpochMilli(lastArchive)));
+
+		try {
+			if (moveTo(archive)) compressor.execute(() -> compress(archive));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	private long nextWindow(long now) {
+		return (now / interval + 1) * interval;
+	}
+
+	private void compress(Path archive) {
+		Path compressed = archive.resolveSibling(archive.getFileName() + ARCHIVE_EXTENSION);
+
+		try {
+			try (InputStream in = Files.newInputStream(archive);
+					 OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed), 1 << 16)) {
+				in.transferTo(out);
+			}
+			Files.delete(archive);
+
+			prune();
+		} catch (NoSuchFileException e) {
+			// Pruned before compressed
+		} catch (IOException e) {
+			InternalErrors.report("Failed to compress " + archive, e);	// Leave uncompressed archive in place, to be compressed by the next appender to this file
+		}
+	}
+	/** Compresses archives left uncompressed by an earlier appender to this file */
+	private void recover() {
+		try {
+			for (Path archive : archives()) {
+				if (!archive.getFileName().toString().endsWith(ARCHIVE_EXTENSION)) compress(archive);
+			}
+		} catch (IOException e) {
+			InternalErrors.report("Failed to list archives of " + getPath(), e);
+		}
+	}
+	private void prune() throws IOException {
+		Map<String, List<Path>> archives = new TreeMap<>();	// Timestamped names sort chronologically
+		for (Path archive : archives()) {
+			String name = archive.getFileName().toString();
+			if (name.endsWith(ARCHIVE_EXTENSION)) name = name.substring(0, name.length() - ARCHIVE_EXTENSION.length());
+
+			archives.computeIfAbsent(name, k -> new ArrayList<>()).add(archive);	// An archive and its partial compressed copy count once
+		}
+		int excess = archives.size() - maxArchives;
+		for (List<Path> archive : archives.values()) {
+			if (excess-- <= 0) break;
+			for (Path path : archive) Files.deleteIfExists(path);
+		}
+	}
+	/** @return all compressed and uncompressed archives of the current file */
+	private List<Path> archives() throws IOException {
+		List<Path> archives = new ArrayList<>();
+		try (DirectoryStream<Path> siblings = Files.newDirectoryStream(getPath().toAbsolutePath().getParent(), getPath().getFileName() + ".[0-9]*")) {
+			for (Path sibling : siblings) archives.add(sibling);
+		}
+		archives.sort(null);
+		return archives;
+	}
+}
@@ -1,5 +1,7 @@
 package dev.kkorolyov.simplelogs.format;
 
+import dev.kkorolyov.simplelogs.LogEvent;
+
 import java.time.Instant;
 
 /**
@@ -10,10 +12,29 @@ public interface Formatter {
 	/**
 	 * Formats a message.
 	 * @param instant instant at which message is logged
-	 * @param invoker element invoking logger
+	 * @param invoker element invoking logger, or {@code null} if this formatter does not {@link #usesInvoker() use the invoker}
 	 * @param level message level
 	 * @param message logged message
 	 * @return formatted message
 	 */
 	String format(Instant instant, StackTraceElement invoker, int level, String message);
+	/**
+	 * Formats an event directly into a builder.
+	 * Formatters on allocation-sensitive paths should override this to write each part of {@code event} into {@code out} without creating intermediate strings.
+	 * Delegates to {@link #format(Instant, StackTraceElement, int, String)} by default.
+	 * @param event logged event
+	 * @param out builder to append formatted event to
+	 */
+	default void format(LogEvent event, StringBuilder out) {
+		out.append(format(event.getInstant(), usesInvoker() ? event.getInvoker() : null, event.getLevel(), event.getMessage()));
+	}
+
+	/**
+	 * Returns whether this formatter makes use of the element invoking the logger.
+	 * Resolving the invoker requires walking the stack, so formatters which do not need it should return {@code false}.
+	 * @return {@code true} if this formatter uses the {@code invoker} provided to {@link #format(Instant, StackTraceElement, int, String)}
+	 */
+	default boolean usesInvoker() {
+		return true;
+	}
 }
@@ -1,32 +1,51 @@
 package dev.kkorolyov.simplelogs.format;
 
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
-import java.util.Locale;
 import java.util.Map;
-
-import dev.kkorolyov.simplelogs.Level;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Provides preset formatters.
  */
 public class Formatters {
-	private static final Map<String, Formatter> formatters = new HashMap<>();
+	/** Layout pattern of the {@link #simple()} formatter */
+	public static final String SIMPLE_PATTERN = "%d{" + PatternFormatter.DEFAULT_DATE_PATTERN + "} %c#%M%n%p: %m";
+
+	private static final Formatter JSON = new JsonFormatter(true);
 
-	/** @return formatter which formats messages as {@code {instant} {invoker} {level}: {message}} */
+	private static final int MAX_CACHED = 1 << 8;
+	private static final Map<String, Formatter> formatters = new ConcurrentHashMap<>();
+
+	/** @return formatter which formats messages as {@code {instant} {invoker}{lineSeparator}{level}: {message}} */
 	public static Formatter simple() {
-		return formatters.computeIfAbsent("simple", k -> (instant, invoker, level, message) -> {
-			String sInstant = DateTimeFormatter.ofPattern("yyyy.mm.dd-HH:mm:ss:SSS")
-																				 .withLocale(Locale.US)
-																				 .withZone(ZoneId.systemDefault())
-																				 .format(instant);
-			String sInvokerClass = invoker.getClassName();
-			String sInvokerMethod = invoker.getMethodName();
-
-			return sInstant + " " + sInvokerClass + "#" + sInvokerMethod +
-						 System.lineSeparator() +
-						 Level.toString(level) + ": " + message;
-		});
+		return pattern(SIMPLE_PATTERN);
+	}
+
+	/**
+	 * @return formatter which formats events, including invoker and key-value fields, as single-line JSON objects
+	 * @see JsonFormatter
+	 */
+	public static Formatter json() {
+		return JSON;
+	}
+
+	/**
+	 * Returns a formatter which formats messages according to a layout pattern.
+	 * Formatters are compiled once and reused for equal patterns.
+	 * @param pattern layout pattern
+	 * @return formatter formatting messages according to {@code pattern}
+	 * @throws IllegalArgumentException if {@code pattern} is malformed
+	 * @see PatternFormatter
+	 */
+	public static Formatter pattern(String pattern) {
+		Formatter formatter = formatters.get(pattern);
+
+		if (formatter == null) {
+			formatter = new PatternFormatter(pattern);
+			if (formatters.size() < MAX_CACHED) {
+				Formatter existing = formatters.putIfAbsent(pattern, formatter);
+				if (existing != null) formatter = existing;
+			}
+		}
+		return formatter;
 	}
 }
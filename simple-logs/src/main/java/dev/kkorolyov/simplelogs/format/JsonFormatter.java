@@ -0,0 +1,213 @@
+package dev.kkorolyov.simplelogs.format;
+
+import dev.kkorolyov.simplelogs.Level;
+import dev.kkorolyov.simplelogs.LogContext;
+import dev.kkorolyov.simplelogs.LogEvent;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Formats events as single-line JSON objects.
+ * Output is escaped in place as it is streamed into the event's builder, without intermediate strings for the message or field values.
+ * <pre>{"timestamp":1500000000000,"level":"INFO","thread":"main","class":"a.B","method":"c","line":4,"message":"...","key":"value"}</pre>
+ * <ul>
+ * <li>{@code timestamp} - epoch millisecond</li>
+ * <li>{@code thread} - name of the logging thread, if known</li>
+ * <li>{@code class}, {@code method}, {@code line} - invoker, if included</li>
+ * <li>Key-value fields, then the event's {@link LogContext}, follow as top-level members; numbers and booleans as JSON literals, {@code null} as {@code null}, and anything else as its escaped string representation</li>
+ * </ul>
+ */
+public final class JsonFormatter implements Formatter {
+	private static final String TIMESTAMP = "{\"timestamp\":";
+	private static final String LEVEL = ",\"level\":";
+	private static final String THREAD = ",\"thread\":";
+	private static final String CLASS = ",\"class\":";
+	private static final String METHOD = ",\"method\":";
+	private static final String LINE = ",\"line\":";
+	private static final String MESSAGE = ",\"message\":";
+
+	private static final int MAX_CACHED_KEYS = 1 << 12;
+	private static final Map<String, String> encodedKeys = new ConcurrentHashMap<>();
+	private static final String[] encodedContextKeys = new String[LogContext.MAX_KEYS];	// By key index
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final boolean includeInvoker;
+
+	/**
+	 * Constructs a new JSON formatter.
+	 * @param includeInvoker if {@code true}, includes the invoking class, method, and line
+	 */
+	public JsonFormatter(boolean includeInvoker) {
+		this.includeInvoker = includeInvoker;
+	}
+
+	@Override
+	public String format(Instant instant, StackTraceElement invoker, int level, String message) {
+		StringBuilder out = new StringBuilder();
+		format(new LogEvent(instant.toEpochMilli(), level, invoker, message).withThread(Thread.currentThread().getName()), out);	// Formatted as logged
+		return out.toString();
+	}
+	@Override
+	public void format(LogEvent event, StringBuilder out) {
+		out.append(TIMESTAMP).append(event.getTimestamp());
+		out.append(LEVEL);
+		appendString(out, Level.toString(event.getLevel()));
+		String thread = event.getThread();
+		if (thread != null) {
+			out.append(THREAD);
+			appendString(out, thread);
+		}
+
+		StackTraceElement invoker = includeInvoker ? event.getInvoker() : null;
+		if (invoker != null) {
+			out.append(CLASS);
+			appendString(out, invoker.getClassName());
+			out.append(METHOD);
+			appendString(out, invoker.getMethodName());
+			out.append(LINE).append(invoker.getLineNumber());
+		}
+		out.append(MESSAGE).append('"');
+		int start = out.length();
+		event.appendMessage(out);
+		escape(out, start);
+		out.append('"');
+
+		for (int i = 0; i < event.getFieldCount(); i++) {
+			out.append(encodeKey(event.getFieldKey(i)));
+			appendValue(out, event.getFieldValue(i));
+		}
+		LogContext context = event.getContext();
+		if (!context.isEmpty()) {
+			context.forEach((key, value) -> {
+				out.append(encodeKey(key));
+				appendValue(out, value);
+			});
+		}
+		out.append('}');
+	}
+
+	/** @return {@code true} if this formatter includes the invoker */
+	@Override
+	public boolean usesInvoker() {
+		return includeInvoker;
+	}
+
+	/** @return {@code ,"key":} with {@code key} escaped, encoded once per key */
+	private static String encodeKey(String key) {
+		String encoded = encodedKeys.get(key);
+
+		if (encoded == null) {
+			StringBuilder builder = new StringBuilder(key.length() + 4).append(",\"");
+			int start = builder.length();
+			escape(builder.append(key), start);
+			encoded = builder.append("\":").toString();
+
+			if (encodedKeys.size() < MAX_CACHED_KEYS) encodedKeys.putIfAbsent(key, encoded);
+		}
+		return encoded;
+	}
+
+	/** @return {@code ,"key":} with {@code key} escaped, encoded once per context key */
+	private static String encodeKey(LogContext.Key key) {
+		String encoded = encodedContextKeys[key.getIndex()];
+		if (encoded == null) encodedContextKeys[key.getIndex()] = encoded = encodeKey(key.getName());	// Benign race on an immutable string
+
+		return encoded;
+	}
+
+	private static void appendValue(StringBuilder out, Object value) {
+		if (value instanceof Supplier) value = ((Supplier<?>) value).get();
+
+		if (value == null || value instanceof Boolean || value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) out.append(value);
+		else if ((value instanceof Double && Double.isFinite((Double) value)) || (value instanceof Float && Float.isFinite((Float) value))) out.append(value);
+		else {
+			out.append('"');
+			int start = out.length();
+			if (value instanceof CharSequence) out.append((CharSequence) value);
+			else out.append(value);
+			escape(out, start);
+			out.append('"');
+		}
+	}
+	private static void appendString(StringBuilder out, String value) {
+		out.append('"');
+		int start = out.length();
+		out.append(value);
+		escape(out, start);
+		out.append('"');
+	}
+
+	/**
+	 * Escapes all characters from {@code start} to the end of {@code out} in place.
+	 * @param out builder to escape
+	 * @param start index of first character to escape
+	 */
+	private static void escape(StringBuilder out, int start) {
+		int end = out.length();
+		int extra = 0;
+		for (int i = start; i < end; i++) extra += escapedLength(out.charAt(i)) - 1;
+		if (extra == 0) return;
+
+		out.setLength(end + extra);
+		for (int i = end - 1, j = end + extra - 1; i >= start; i--) {	// Fill from the back to shift without a copy
+			char c = out.charAt(i);
+
+			switch (escapedLength(c)) {
+				case 1:
+					out.setCharAt(j--, c);
+					break;
+				case 2:
+					out.setCharAt(j--, shortEscape(c));
+					out.setCharAt(j--, '\\');
+					break;
+				default:
+					out.setCharAt(j--, HEX[c & 0xF]);
+					out.setCharAt(j--, HEX[(c >> 4) & 0xF]);
+					out.setCharAt(j--, '0');
+					out.setCharAt(j--, '0');
+					out.setCharAt(j--, 'u');
+					out.setCharAt(j--, '\\');
+			}
+		}
+	}
+	private static int escapedLength(char c) {
+		switch (c) {
+			case '"':
+			case '\\':
+			case '\b':
+			case '\f':
+			case '\n':
+			case '\r':
+			case '\t':
+				return 2;
+			default:
+				return c < 0x20 ? 6 : 1;
+		}
+	}
+	private static char shortEscape(char c) {
+		switch (c) {
+			case '\b':
+				return 'b';
+			case '\f':
+				return 'f';
+			case '\n':
+				return 'n';
+			case '\r':
+				return 'r';
+			case '\t':
+				return 't';
+			default:
+				return c;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "JsonFormatter{" +
+				"includeInvoker=" + includeInvoker +
+				'}';
+	}
+}
@@ -0,0 +1,303 @@
+package dev.kkorolyov.simplelogs.format;
+
+import dev.kkorolyov.simplelogs.Level;
+import dev.kkorolyov.simplelogs.LogContext;
+import dev.kkorolyov.simplelogs.LogEvent;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Formats messages according to a layout pattern compiled once into a sequence of segment writers.
+ * Each {@code %} conversion in the pattern is replaced by a part of the logged event:
+ * <ul>
+ * <li>{@code %d} or {@code %d{pattern}} - timestamp, formatted with a {@link DateTimeFormatter} pattern in the system time zone; defaults to {@value #DEFAULT_DATE_PATTERN}</li>
+ * <li>{@code %c} - invoking class name</li>
+ * <li>{@code %M} - invoking method name</li>
+ * <li>{@code %L} - invoking line number</li>
+ * <li>{@code %p} - level</li>
+ * <li>{@code %m} - message</li>
+ * <li>{@code %t} - logging thread name, or nothing if not known</li>
+ * <li>{@code %X{key}} - value of {@code key} in the event's {@link LogContext}, or nothing if not set; {@code %X} alone writes the whole context as {@code {key=value, ...}}</li>
+ * <li>{@code %n} - line separator</li>
+ * <li>{@code %%} - literal {@code %}</li>
+ * </ul>
+ * Conversions may specify a minimum width between {@code %} and the conversion character, e.g. {@code %5p} to right-pad, or {@code %-5p} to left-pad to 5 characters.
+ * <p>Timestamps are rendered from a cached prefix formatted at most once per second, with only milliseconds written per event.</p>
+ */
+public final class PatternFormatter implements Formatter {
+	/** Default pattern used for {@code %d} without an explicit pattern */
+	public static final String DEFAULT_DATE_PATTERN = "yyyy.MM.dd-HH:mm:ss:SSS";
+
+	private static final StackTraceElement UNKNOWN_INVOKER = new StackTraceElement("?", "?", null, -1);
+
+	private final String pattern;
+	private final Segment[] segments;
+	private final boolean usesInvoker;
+
+	/**
+	 * Constructs a new pattern formatter.
+	 * @param pattern layout pattern
+	 * @throws IllegalArgumentException if {@code pattern} contains an unknown or malformed conversion
+	 */
+	public PatternFormatter(String pattern) {
+		this.pattern = pattern;
+
+		List<Segment> segments = new ArrayList<>();
+		StringBuilder literal = new StringBuilder();
+		boolean usesInvoker = false;
+
+		for (int i = 0; i < pattern.length(); i++) {
+			char c = pattern.charAt(i);
+			if (c != '%') {
+				literal.append(c);
+				continue;
+			}
+			if (++i >= pattern.length()) throw new IllegalArgumentException("Dangling '%' at end of pattern: " + pattern);
+
+			boolean leftAlign = pattern.charAt(i) == '-';
+			if (leftAlign) i++;
+			int width = 0;
+			while (i < pattern.length() && Character.isDigit(pattern.charAt(i))) width = width * 10 + (pattern.charAt(i++) - '0');
+			if (i >= pattern.length()) throw new IllegalArgumentException("Missing conversion at end of pattern: " + pattern);
+
+			char conversion = pattern.charAt(i);
+			String option = null;
+			if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '{') {
+				int end = pattern.indexOf('}', i + 2);
+				if (end < 0) throw new IllegalArgumentException("Unclosed '{' in pattern: " + pattern);
+
+				option = pattern.substring(i + 2, end);
+				i = end;
+			}
+
+			Segment segment;
+			switch (conversion) {
+				case '%':
+					literal.append('%');
+					continue;
+				case 'n':
+					literal.append(System.lineSeparator());
+					continue;
+				case 'd':
+					segment = new DateSegment(option != null ? option : DEFAULT_DATE_PATTERN);
+					break;
+				case 'c':
+					segment = (event, out) -> out.append(invoker(event).getClassName());
+					usesInvoker = true;
+					break;
+				case 'M':
+					segment = (event, out) -> out.append(invoker(event).getMethodName());
+					usesInvoker = true;
+					break;
+				case 'L':
+					segment = (event, out) -> out.append(invoker(event).getLineNumber());
+					usesInvoker = true;
+					break;
+				case 'p':
+					segment = (event, out) -> out.append(Level.toString(event.getLevel()));
+					break;
+				case 'm':
+					segment = (event, out) -> event.appendMessage(out);
+					break;
+				case 't':
+					segment = (event, out) -> {
+						String thread = event.getThread();
+						if (thread != null) out.append(thread);
+					};
+					break;
+				case 'X':
+					segment = option != null ? new ContextSegment(LogContext.key(option)) : (event, out) -> out.append(event.getContext());
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown conversion '%" + conversion + "' in pattern: " + pattern);
+			}
+			if (literal.length() > 0) {
+				segments.add(new LiteralSegment(literal.toString()));
+				literal.setLength(0);
+			}
+			segments.add(width > 0 ? new PaddedSegment(segment, width, leftAlign) : segment);
+		}
+		if (literal.length() > 0) segments.add(new LiteralSegment(literal.toString()));
+
+		this.segments = segments.toArray(new Segment[0]);
+		this.usesInvoker = usesInvoker;
+	}
+
+	private static StackTraceElement invoker(LogEvent event) {
+		StackTraceElement invoker = event.getInvoker();
+		return invoker != null ? invoker : UNKNOWN_INVOKER;
+	}
+
+	@Override
+	public String format(Instant instant, StackTraceElement invoker, int level, String message) {
+		StringBuilder out = new StringBuilder();
+		format(new LogEvent(instant.toEpochMilli(), level, invoker, message).withThread(Thread.currentThread().getName()), out);	// Formatted as logged
+		return out.toString();
+	}
+	@Override
+	public void format(LogEvent event, StringBuilder out) {
+		for (Segment segment : segments) segment.write(event, out);
+	}
+
+	/** @return {@code true} if this formatter's pattern contains an invoker conversion */
+	@Override
+	public boolean usesInvoker() {
+		return usesInvoker;
+	}
+
+	/** @return layout pattern */
+	public String getPattern() {
+		return pattern;
+	}
+
+	@Override
+	public String toString() {
+		return "PatternFormatter{" +
+				"pattern='" + pattern + '\'' +
+				'}';
+	}
+
+	@FunctionalInterface
+	private interface Segment {
+		void write(LogEvent event, StringBuilder out);
+	}
+
+	private static final class LiteralSegment implements Segment {
+		private final String literal;
+
+		LiteralSegment(String literal) {
+			this.literal = literal;
+		}
+
+		@Override
+		public void write(LogEvent event, StringBuilder out) {
+			out.append(literal);
+		}
+	}
+
+	private static final class PaddedSegment implements Segment {
+		private final Segment delegate;
+		private final int width;
+		private final boolean leftAlign;
+
+		PaddedSegment(Segment delegate, int width, boolean leftAlign) {
+			this.delegate = delegate;
+			this.width = width;
+			this.leftAlign = leftAlign;
+		}
+
+		@Override
+		public void write(LogEvent event, StringBuilder out) {
+			int start = out.length();
+			delegate.write(event, out);
+
+			for (int padding = width - (out.length() - start); padding > 0; padding--) {
+				if (leftAlign) out.append(' ');
+				else out.insert(start, ' ');
+			}
+		}
+	}
+
+	private static final class ContextSegment implements Segment {
+		private final LogContext.Key key;
+
+		ContextSegment(LogContext.Key key) {
+			this.key = key;
+		}
+
+		@Override
+		public void write(LogEvent event, StringBuilder out) {
+			Object value = event.getContext().get(key);
+			if (value != null) out.append(value);
+		}
+	}
+
+	/**
+	 * Writes timestamps from a cached rendering.
+	 * If the date pattern's only sub-second field is a single {@code SSS}, the rendering is cached per second and milliseconds are spliced in per event.
+	 * Otherwise, the full rendering is cached per millisecond.
+	 */
+	private static final class DateSegment implements Segment {
+		private static final char MILLIS_MARKER = '\uFFFF';
+		private static final String MILLIS_PATTERN = "SSS";
+
+		private final DateTimeFormatter formatter;
+		private final boolean perSecond;
+
+		private volatile CachedTimestamp cached = new CachedTimestamp(Long.MIN_VALUE, "", "");
+
+		DateSegment(String pattern) {
+			int millis = findMillis(pattern);
+			perSecond = millis >= 0;
+
+			String cachedPattern = perSecond
+					? pattern.substring(0, millis) + "'" + MILLIS_MARKER + "'" + pattern.substring(millis + MILLIS_PATTERN.length())
+					: pattern;
+			formatter = DateTimeFormatter.ofPattern(cachedPattern)
+					.withLocale(Locale.US)
+					.withZone(ZoneId.systemDefault());
+		}
+		/** @return index of the only sub-second field in {@code pattern} if it is {@code SSS}, else {@code -1} */
+		private static int findMillis(String pattern) {
+			int millis = -1;
+			boolean quoted = false;
+
+			for (int i = 0; i < pattern.length(); i++) {
+				char c = pattern.charAt(i);
+
+				if (c == '\'') quoted = !quoted;
+				else if (!quoted && (c == 'S' || c == 'n' || c == 'N' || c == 'A')) {
+					if (millis >= 0 || !pattern.startsWith(MILLIS_PATTERN, i)) return -1;
+					if (i + MILLIS_PATTERN.length() < pattern.length() && pattern.charAt(i + MILLIS_PATTERN.length()) == 'S') return -1;
+
+					millis = i;
+					i += MILLIS_PATTERN.length() - 1;
+				}
+			}
+			return millis;
+		}
+
+		@Override
+		public void write(LogEvent event, StringBuilder out) {
+			long timestamp = event.getTimestamp();
+			long key = perSecond ? Math.floorDiv(timestamp, 1000) : timestamp;
+
+			CachedTimestamp cached = this.cached;
+			if (cached.key != key) this.cached = cached = render(key);
+
+			out.append(cached.prefix);
+			if (perSecond) {
+				int millis = Math.floorMod(timestamp, 1000);
+				out.append((char) ('0' + millis / 100))
+						.append((char) ('0' + millis / 10 % 10))
+						.append((char) ('0' + millis % 10));
+			}
+			out.append(cached.suffix);
+		}
+		private CachedTimestamp render(long key) {
+			String rendered = formatter.format(perSecond ? Instant.ofEpochSecond(key) : Instant.ofEpochMilli(key));
+			int marker = rendered.indexOf(MILLIS_MARKER);
+
+			return marker < 0
+					? new CachedTimestamp(key, rendered, "")
+					: new CachedTimestamp(key, rendered.substring(0, marker), rendered.substring(marker + 1));
+		}
+
+		private static final class CachedTimestamp {
+			final long key;
+			final String prefix;
+			final String suffix;
+
+			CachedTimestamp(long key, String prefix, String suffix) {
+				this.key = key;
+				this.prefix = prefix;
+				this.suffix = suffix;
+			}
+		}
+	}
+}
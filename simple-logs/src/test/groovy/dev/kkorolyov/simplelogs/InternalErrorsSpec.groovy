@@ -0,0 +1,54 @@
+package dev.kkorolyov.simplelogs
+
+import dev.kkorolyov.simplelogs.append.Appender
+import dev.kkorolyov.simplelogs.append.AsyncAppender
+import spock.lang.Specification
+
+import java.util.function.BiConsumer
+
+class InternalErrorsSpec extends Specification {
+	List<String> reported = Collections.synchronizedList([])
+
+	def setup() {
+		InternalErrors.setHandler({ String message, Throwable e -> reported << "$message: ${e.message}".toString() } as BiConsumer)
+	}
+	def cleanup() {
+		InternalErrors.setHandler(null)
+	}
+
+	def "reports to handler"() {
+		when:
+		InternalErrors.report("failed", new IllegalStateException("cause"))
+
+		then:
+		reported == ["failed: cause"]
+	}
+	def "reports background appender failures"() {
+		AsyncAppender async = new AsyncAppender(new Appender(Level.INFO) {
+			@Override
+			protected void append(String message) {
+				throw new IllegalStateException(message)
+			}
+		})
+
+		when:
+		async.append(Level.INFO, "message")
+		async.flush()
+
+		then:
+		reported.size() == 1
+		reported[0].endsWith(": message")
+
+		cleanup:
+		async.close()
+	}
+	def "survives failing handler"() {
+		InternalErrors.setHandler({ String message, Throwable e -> throw new IllegalStateException("handler") } as BiConsumer)
+
+		when:
+		InternalErrors.report("failed", new IllegalStateException("cause"))
+
+		then:
+		noExceptionThrown()
+	}
+}
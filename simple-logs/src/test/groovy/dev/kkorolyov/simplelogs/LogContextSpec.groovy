@@ -0,0 +1,114 @@
+package dev.kkorolyov.simplelogs
+
+import dev.kkorolyov.simplelogs.append.Appender
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class LogContextSpec extends Specification {
+	String key = UUID.randomUUID().toString()
+
+	def "is empty by default"() {
+		expect:
+		LogContext.current().empty
+		LogContext.current().get(key) == null
+	}
+
+	def "puts values within scope"() {
+		when:
+		LogContext.Scope outer = LogContext.put(key, "outer")
+		LogContext.Scope inner = LogContext.put(key, "inner")
+
+		then:
+		LogContext.current().get(key) == "inner"
+
+		when:
+		inner.close()
+
+		then:
+		LogContext.current().get(key) == "outer"
+
+		when:
+		outer.close()
+
+		then:
+		LogContext.current().get(key) == null
+	}
+
+	def "updates without modifying original"() {
+		LogContext original = LogContext.EMPTY.with(key, 1)
+
+		when:
+		LogContext updated = original.with(key, 2).with("other", 3)
+
+		then:
+		original.get(key) == 1
+		original.size() == 1
+		updated.get(key) == 2
+		updated.size() == 2
+	}
+	def "removes null values"() {
+		expect:
+		LogContext.EMPTY.with(key, 1).with(key, null).is(LogContext.EMPTY)
+		LogContext.EMPTY.with(key, 1).with("other", 2).with("other", null).size() == 1
+	}
+
+	def "resolves keys once"() {
+		expect:
+		LogContext.key(key).is(LogContext.key(key))
+		LogContext.key(key).index != LogContext.key("other$key").index
+	}
+
+	def "captures context by reference in logged events"() {
+		Appender appender = Mock(constructorArgs: [Level.INFO])
+		Logger logger = Logger.getLogger(UUID.randomUUID().toString(), Level.INFO, { event, out -> out.append(event.message) }, appender)
+		LogContext context
+
+		when:
+		LogContext.Scope scope = LogContext.put(key, "value")
+		context = LogContext.current()
+		logger.info("message")
+		scope.close()
+
+		then:
+		1 * appender.write({ it.context.is(context) && it.detach().context.is(context) } as LogEvent)
+	}
+
+	def "does not propagate to new threads unless wrapped"() {
+		Object plain = "unset"
+		Object wrapped = null
+
+		when:
+		LogContext.Scope scope = LogContext.put(key, "value")
+		Thread plainThread = new Thread({ plain = LogContext.current().get(key) })
+		Thread wrappedThread = new Thread(LogContext.wrap({ wrapped = LogContext.current().get(key) } as Runnable))
+		[plainThread, wrappedThread]*.start()
+		[plainThread, wrappedThread]*.join()
+		scope.close()
+
+		then:
+		plain == null
+		wrapped == "value"
+	}
+	def "propagates to wrapped tasks"() {
+		ExecutorService executor = Executors.newSingleThreadExecutor()
+		executor.submit({} as Runnable).get()	// Start pool thread without context
+
+		when:
+		LogContext.Scope scope = LogContext.put(key, "value")
+		Callable<Object> task = LogContext.wrap({ LogContext.current().get(key) } as Callable<Object>)
+		Object unwrapped = executor.submit({ LogContext.current().get(key) } as Callable<Object>).get()
+		scope.close()
+
+		then:
+		executor.submit(task).get() == "value"
+		unwrapped == null
+
+		cleanup:
+		executor.shutdown()
+		executor.awaitTermination(1, TimeUnit.SECONDS)
+	}
+}
@@ -0,0 +1,108 @@
+package dev.kkorolyov.simplelogs
+
+import dev.kkorolyov.simplelogs.append.Appender
+import dev.kkorolyov.simplelogs.format.Formatters
+import spock.lang.Specification
+
+import javax.management.ObjectName
+import java.lang.management.ManagementFactory
+import java.util.concurrent.CountDownLatch
+
+class LoggerMetricsSpec extends Specification {
+	Appender appender = Mock(constructorArgs: [Level.DEBUG])
+	Logger logger = Logger.getLogger(UUID.randomUUID().toString(), Level.DEBUG, Formatters.pattern("%m"), appender)
+
+	def "counts logged events by level"() {
+		when:
+		logger.severe("severe")
+		logger.info("info")
+		logger.info("info")
+		logger.log(Level.INFO - 50, "between")
+		logger.debug("debug")
+
+		then:
+		logger.metrics.severe == 1
+		logger.metrics.info == 3
+		logger.metrics.debug == 1
+		logger.metrics.events == 5
+	}
+	def "does not count events above level"() {
+		when:
+		logger.level = Level.INFO
+		logger.debug("debug")
+
+		then:
+		logger.metrics.events == 0
+	}
+	def "counts suppressed events"() {
+		when:
+		logger.limiter = new RateLimiter(0.001, 1, 1)
+		(0..<5).each { logger.info("limited") }
+
+		then:
+		logger.metrics.info == 1
+		logger.metrics.suppressed == 4
+		logger.metrics.snapshot()["suppressed"] == 4L
+	}
+
+	def "registers MBeans"() {
+		when:
+		Logger.registerMBeans()
+		Logger later = Logger.getLogger(UUID.randomUUID().toString(), Level.DEBUG, Formatters.pattern("%m"), appender)
+		later.info("info")
+
+		then:
+		ManagementFactory.platformMBeanServer.getAttribute(new ObjectName("dev.kkorolyov.simplelogs:type=Logger,name=${ObjectName.quote(later.name)}"), "Info") == 1L
+		ManagementFactory.platformMBeanServer.queryNames(new ObjectName("dev.kkorolyov.simplelogs:type=Appender,*"), null).size() > 0
+	}
+	def "unregisters appender MBeans once unused"() {
+		Appender shared = Mock(constructorArgs: [Level.DEBUG])
+		ObjectName name = new ObjectName("dev.kkorolyov.simplelogs:type=Appender,name=${ObjectName.quote("${shared.getClass().name}@${Integer.toHexString(System.identityHashCode(shared))}")}")
+		Logger other = Logger.getLogger(UUID.randomUUID().toString(), Level.DEBUG, Formatters.pattern("%m"), shared)
+
+		when:
+		Logger.registerMBeans()
+		logger.setAppenders(appender, shared)
+
+		then:
+		ManagementFactory.platformMBeanServer.isRegistered(name)
+
+		when:
+		other.setAppenders()
+
+		then:
+		ManagementFactory.platformMBeanServer.isRegistered(name)
+
+		when:
+		logger.setAppenders(appender)
+
+		then:
+		!ManagementFactory.platformMBeanServer.isRegistered(name)
+	}
+	def "releases appenders of loggers losing a concurrent registration"() {
+		Appender shared = Mock(constructorArgs: [Level.DEBUG])
+		ObjectName name = new ObjectName("dev.kkorolyov.simplelogs:type=Appender,name=${ObjectName.quote("${shared.getClass().name}@${Integer.toHexString(System.identityHashCode(shared))}")}")
+		Logger.registerMBeans()
+
+		when:
+		List<Boolean> leaked = []
+		for (int round = 0; round < 20; round++) {
+			String loggerName = UUID.randomUUID().toString()
+			CountDownLatch start = new CountDownLatch(1)
+			List<Thread> threads = (0..<8).collect {
+				Thread.start {
+					start.await()
+					Logger.getLogger(loggerName, Level.DEBUG, Formatters.pattern("%m"), shared)
+				}
+			}
+			start.countDown()
+			threads*.join()
+
+			Logger.getLogger(loggerName).setAppenders()
+			leaked << ManagementFactory.platformMBeanServer.isRegistered(name)
+		}
+
+		then:
+		!leaked.any()
+	}
+}
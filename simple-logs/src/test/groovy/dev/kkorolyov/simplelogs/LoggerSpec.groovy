@@ -5,7 +5,10 @@ import dev.kkorolyov.simplelogs.format.Formatter
 import spock.lang.Shared
 import spock.lang.Specification
 
-import java.lang.reflect.Field
+import java.time.Instant
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
 import java.util.function.Supplier
 
 class LoggerSpec extends Specification {
@@ -27,7 +30,96 @@ class LoggerSpec extends Specification {
 		Invoker.log(level, message)
 
 		then:
-		1 * formatter.format(_, { it.className == Invoker.class.getName() && it.methodName == "log" }, level, message)
+		1 * appender.write({ it.invoker.className == Invoker.class.getName() && it.invoker.methodName == "log" })
+	}
+	def "resolves calling method through event builder"() {
+		when:
+		Invoker.refreshLogger(level, formatter, appender)
+		Invoker.logAt(level, message)
+
+		then:
+		1 * appender.write({ it.invoker.className == Invoker.class.getName() && it.invoker.methodName == "logAt" })
+	}
+	def "resolves calling method for formatter"() {
+		StackTraceElement formattedInvoker = null
+		Formatter invokerFormatter = new Formatter() {
+			@Override
+			String format(Instant instant, StackTraceElement invoker, int level, String message) {
+				formattedInvoker = invoker
+				return message
+			}
+		}
+		appender.write(_ as LogEvent) >> { LogEvent event -> event.format() }
+
+		when:
+		Invoker.refreshLogger(level, invokerFormatter, appender)
+		Invoker.log(level, message)
+
+		then:
+		formattedInvoker.className == Invoker.class.getName()
+		formattedInvoker.methodName == "log"
+	}
+	def "does not resolve calling method if formatter does not use it"() {
+		StackTraceElement formattedInvoker = new StackTraceElement("Sentinel", "sentinel", null, 0)
+		Formatter invokerFormatter = new Formatter() {
+			@Override
+			String format(Instant instant, StackTraceElement invoker, int level, String message) {
+				formattedInvoker = invoker
+				return message
+			}
+			@Override
+			boolean usesInvoker() {
+				return false
+			}
+		}
+		appender.write(_ as LogEvent) >> { LogEvent event -> event.format() }
+
+		when:
+		Invoker.refreshLogger(level, invokerFormatter, appender)
+		Invoker.log(level, message)
+
+		then:
+		formattedInvoker == null
+	}
+	def "detaches calling method for formatter"() {
+		LogEvent detached = null
+		formatter.usesInvoker() >> true
+		appender.write(_ as LogEvent) >> { LogEvent event -> detached = event.detach() }
+
+		when:
+		Invoker.refreshLogger(level, formatter, appender)
+		Invoker.log(level, message)
+
+		then:
+		detached.invoker.className == Invoker.class.getName()
+		detached.invoker.methodName == "log"
+	}
+	def "does not resolve calling method when detaching if formatter does not use it"() {
+		LogEvent detached = null
+		formatter.usesInvoker() >> false
+		appender.write(_ as LogEvent) >> { LogEvent event -> detached = event.detach() }
+
+		when:
+		Invoker.refreshLogger(level, formatter, appender)
+		Invoker.log(level, message)
+
+		then:
+		detached.invoker == null
+	}
+
+	def "formats once for all appenders"() {
+		Appender otherAppender = Mock(constructorArgs: [level])
+		List<String> formatted = []
+
+		when:
+		logger.addAppender(otherAppender)
+		logger.log(level, message)
+
+		then:
+		1 * formatter.format(_ as LogEvent, _ as StringBuilder) >> { LogEvent event, StringBuilder out -> out.append("formatted $event.message") }
+		1 * appender.write(_ as LogEvent) >> { LogEvent event -> formatted << event.formatted }
+		1 * otherAppender.write(_ as LogEvent) >> { LogEvent event -> formatted << event.formatted }
+		formatted == ["formatted $message", "formatted $message"]
 	}
 
 	def "logs at specified level"() {
@@ -35,8 +127,7 @@ class LoggerSpec extends Specification {
 		logger.log(l, message)
 
 		then:
-		1 * formatter.format(_, _, l, message) >> message
-		1 * appender.append(message)
+		1 * appender.write({ it.level == l && it.message == message })
 
 		where:
 		l << (-level..level)
@@ -46,8 +137,8 @@ class LoggerSpec extends Specification {
 		logger.log(l, message)
 
 		then:
-		0 * formatter.format(_, _, _, _)
-		0 * appender.append(_, _)
+		0 * formatter._
+		0 * appender.write(_)
 
 		where:
 		l << ((level + 1)..(level + 100))
@@ -58,8 +149,8 @@ class LoggerSpec extends Specification {
 		logger.log(level, message)
 
 		then:
-		0 * formatter.format(_, _, _, _)
-		0 * appender.append(_, _)
+		0 * formatter._
+		0 * appender.write(_)
 
 		where:
 		threshold << ((level - 100)..(level - 1))
@@ -74,17 +165,106 @@ class LoggerSpec extends Specification {
 		Logger child = Logger.getLogger("${name}${".$name" * depth}", level, formatter, childAppender)
 
 		when:
-		formatter.format(_, _, level, message) >> message
-
 		child.log(level, message)
 
 		then:
-		1 * parentAppender.append(message)
-		1 * childAppender.append(message)
+		1 * parentAppender.write({ it.message == message })
+		1 * childAppender.write({ it.message == message })
 
 		where:
 		depth << (1..100)
 	}
+	def "uses parent registered after child"() {
+		Appender parentAppender = Mock(constructorArgs: [level])
+		Appender childAppender = Mock(constructorArgs: [level])
+
+		String name = UUID.randomUUID().toString()
+		Logger child = Logger.getLogger("${name}.child.grandchild", level, formatter, childAppender)
+		Logger.getLogger(name, level, formatter, parentAppender)
+
+		when:
+		child.log(level, message)
+
+		then:
+		1 * parentAppender.write({ it.message == message })
+		1 * childAppender.write({ it.message == message })
+	}
+	def "uses each ancestor once when registered between parent and child"() {
+		Appender grandparentAppender = Mock(constructorArgs: [level])
+		Appender parentAppender = Mock(constructorArgs: [level])
+		Appender childAppender = Mock(constructorArgs: [level])
+
+		String name = UUID.randomUUID().toString()
+		Logger.getLogger(name, level, formatter, grandparentAppender)
+		Logger child = Logger.getLogger("${name}.parent.child", level, formatter, childAppender)
+		Logger.getLogger("${name}.parent", level, formatter, parentAppender)
+
+		when:
+		child.log(level, message)
+
+		then:
+		1 * grandparentAppender.write({ it.message == message })
+		1 * parentAppender.write({ it.message == message })
+		1 * childAppender.write({ it.message == message })
+	}
+	def "appends once to appender shared with ancestors"() {
+		Appender childAppender = Mock(constructorArgs: [level])
+
+		String name = UUID.randomUUID().toString()
+		Logger.getLogger(name, level, formatter, appender)
+		Logger.getLogger("${name}.parent", level, formatter, appender)
+		Logger child = Logger.getLogger("${name}.parent.child", level, formatter, appender, childAppender)
+
+		when:
+		child.log(level, message)
+
+		then:
+		1 * appender.write(_)
+		1 * childAppender.write(_)
+	}
+	def "uses parent appenders added after child"() {
+		Appender parentAppender = Mock(constructorArgs: [level])
+
+		String name = UUID.randomUUID().toString()
+		Logger parent = Logger.getLogger(name, level, formatter)
+		Logger child = Logger.getLogger("${name}.child", level, formatter, appender)
+
+		when:
+		parent.addAppender(parentAppender)
+		child.log(level, message)
+
+		then:
+		1 * appender.write(_)
+		1 * parentAppender.write(_)
+	}
+	def "does not use loggers sharing a name prefix"() {
+		Appender siblingAppender = Mock(constructorArgs: [level])
+
+		String name = UUID.randomUUID().toString()
+		Logger.getLogger(name, level, formatter, siblingAppender)
+		Logger child = Logger.getLogger("${name}x.child", level, formatter, appender)
+
+		when:
+		child.log(level, message)
+
+		then:
+		1 * appender.write(_)
+		0 * siblingAppender.write(_)
+	}
+	def "concurrently retrieves same logger"() {
+		String name = UUID.randomUUID().toString()
+		ExecutorService executor = Executors.newFixedThreadPool(8)
+
+		when:
+		List<Logger> loggers = (1..64).collect { executor.submit({ Logger.getLogger(name) } as Callable<Logger>) }*.get()
+
+		then:
+		loggers.unique(false) { System.identityHashCode(it) }.size() == 1
+		loggers[0].is(Logger.getLogger(name))
+
+		cleanup:
+		executor.shutdown()
+	}
 	def "all loggers use empty logger's appenders"() {
 		Appender emptyAppender = Mock(constructorArgs: [level])
 
@@ -92,13 +272,11 @@ class LoggerSpec extends Specification {
 		Logger child = Logger.getLogger(name, level, formatter, appender)
 
 		when:
-		formatter.format(_, _, level, message) >> message
-
 		child.log(level, message)
 
 		then:
-		1 * appender.append(message)
-		1 * emptyAppender.append(message)
+		1 * appender.write({ it.message == message })
+		1 * emptyAppender.write({ it.message == message })
 
 		where:
 		name << ['a', 'a.a', '145', 'log.logger.loggington.3rd', ' ', 'null']
@@ -111,7 +289,7 @@ class LoggerSpec extends Specification {
 		logger.log(level, "$message {}", arg)
 
 		then:
-		1 * formatter.format(_, _, level, "$message $arg")
+		1 * appender.write({ it.message == "$message $arg" })
 	}
 	def "resolves supplier args"() {
 		Supplier<String> supplier = { "ClosureVal" }
@@ -120,24 +298,102 @@ class LoggerSpec extends Specification {
 		logger.log(level, "$message {}", supplier)
 
 		then:
-		1 * formatter.format(_, _, level, "$message ${supplier.get()}")
+		1 * appender.write({ it.message == "$message ${supplier.get()}" })
 	}
 	def "resolves null args"() {
 		when:
 		logger.log(level, "$message {} {}", "notnull", null)
 
 		then:
-		1 * formatter.format(_, _, level, "$message notnull null")
+		1 * appender.write({ it.message == "$message notnull null" })
 	}
 
-	def "appender appends message with level within threshold"() {
+	def "resolves many args in order"() {
+		when:
+		logger.log(level, "{} {}-{}, {}{}!", 1, "two", 3.0, null, { "five" } as Supplier)
+
+		then:
+		1 * appender.write({ it.message == "1 two-3.0, nullfive!" })
+	}
+	def "does not resolve placeholders within args"() {
+		when:
+		logger.log(level, "{} {}", "{}", "arg")
+
+		then:
+		1 * appender.write({ it.message == "{} arg" })
+	}
+	def "leaves placeholders without args"() {
+		when:
+		logger.log(level, "{} {} {}", "arg")
+
+		then:
+		1 * appender.write({ it.message == "arg {} {}" })
+	}
+	def "ignores args without placeholders"() {
 		when:
-		formatter.format(_, _, _, message) >> message
+		logger.log(level, "$message {}", "arg", "extra")
 
+		then:
+		1 * appender.write({ it.message == "$message arg" })
+	}
+	def "resolves args which log"() {
+		Supplier<String> supplier = {
+			logger.log(level, "inner {}", "arg")
+			return "outer"
+		}
+
+		when:
+		logger.log(level, "{} {}", supplier, "arg")
+
+		then:
+		1 * appender.write({ it.message == "inner arg" })
+		1 * appender.write({ it.message == "outer arg" })
+	}
+
+	def "attaches fields to event"() {
+		when:
+		logger.at(level).with("first", 1).with("second", "two").log("$message {}", "arg")
+
+		then:
+		1 * appender.write({ LogEvent event ->
+			event.message == "$message arg" &&
+					event.fieldCount == 2 &&
+					[event.getFieldKey(0), event.getFieldValue(0), event.getFieldKey(1), event.getFieldValue(1)] == ["first", 1, "second", "two"]
+		})
+	}
+	def "attaches many fields to event"() {
+		when:
+		EventBuilder builder = logger.at(level)
+		(0..<20).each { builder.with("key$it", it) }
+		builder.log(message)
+
+		then:
+		1 * appender.write({ LogEvent event -> event.fieldCount == 20 && (0..<20).every { i -> event.getFieldValue(i) == i } })
+	}
+	def "does not carry fields to subsequent events"() {
+		when:
+		logger.at(level).with("key", "value").log(message)
+		logger.log(level, message)
+
+		then:
+		1 * appender.write({ it.fieldCount == 1 })
+		1 * appender.write({ it.fieldCount == 0 })
+	}
+	def "ignores fields above logger level"() {
+		when:
+		logger.at(level + 1).with("key", "value").log(message)
+
+		then:
+		0 * formatter._
+		0 * appender.write(_)
+	}
+
+	def "appender appends message with level within threshold"() {
+		when:
 		logger.log(l, message)
 
 		then:
-		1 * appender.append(message)
+		1 * appender.write({ it.level == l })
 
 		where:
 		l << (-level..level)
@@ -150,8 +406,8 @@ class LoggerSpec extends Specification {
 		logger.log(level, message)
 
 		then:
-		1 * formatter.format(_, _, level, message) >> message
-		0 * stricterAppender.append(_)
+		1 * appender.write(_)
+		0 * stricterAppender.write(_)
 
 		where:
 		threshold << ((level - 100)..(level - 1))
@@ -162,8 +418,27 @@ class LoggerSpec extends Specification {
 		logger.setAppenders()
 
 		then:
-		Field appendersField = Logger.getDeclaredField("appenders")
-		appendersField.setAccessible(true)
-		appendersField.get(logger).isEmpty()
+		!logger.appenders.iterator().hasNext()
+	}
+
+	def "logs levels accepted by logger and an appender"() {
+		Logger.getLogger("", level, formatter)	// Without appenders left by other features
+		Logger logger = Logger.getLogger(UUID.randomUUID().toString(), Level.INFO, formatter, new Appender(Level.WARNING) {
+			@Override
+			protected void append(String message) {}
+		})
+
+		expect:
+		logger.logs(Level.OFF)
+		logger.logs(Level.WARNING)
+		!logger.logs(Level.INFO)
+	}
+	def "logs no level without appenders"() {
+		Logger.getLogger("", level, formatter)	// Without appenders left by other features
+		Logger logger = Logger.getLogger(UUID.randomUUID().toString(), Level.ALL, formatter)
+
+		expect:
+		!logger.logs(Level.OFF)
+		!logger.logs(Level.ALL)
 	}
 }
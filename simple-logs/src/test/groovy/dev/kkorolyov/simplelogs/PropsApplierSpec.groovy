@@ -0,0 +1,167 @@
+package dev.kkorolyov.simplelogs
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class PropsApplierSpec extends Specification {
+	static final long TIMEOUT = 10_000
+
+	Path dir = Files.createTempDirectory("props")
+	Path props = dir.resolve("log.props")
+	String name = UUID.randomUUID().toString()
+
+	def cleanup() {
+		dir.toFile().deleteDir()
+	}
+
+	def write(String content) {
+		Files.write(props, content.bytes)
+	}
+	static boolean await(Closure<Boolean> condition) {
+		long end = System.currentTimeMillis() + TIMEOUT
+		while (!condition() && System.currentTimeMillis() < end) Thread.sleep(10)
+		return condition()
+	}
+
+	def "applies props"() {
+		write("$name=DEBUG, OUT, rate=5/s")
+
+		when:
+		Logger.applyProps(props)
+		Logger logger = Logger.getLogger(name)
+
+		then:
+		logger.level == Level.DEBUG
+		logger.appenders.size() == 1
+		logger.limiter != null
+	}
+	def "applies writer thresholds"() {
+		write("$name=DEBUG, OUT?threshold=SEVERE")
+
+		when:
+		Logger.applyProps(props)
+
+		then:
+		Logger.getLogger(name).appenders.iterator().next().threshold == Level.SEVERE
+	}
+
+	def "reloads props on change"() {
+		write("$name=DEBUG, OUT")
+
+		when:
+		Closeable watcher = Logger.watchProps(props)
+		Logger logger = Logger.getLogger(name)
+
+		then:
+		logger.level == Level.DEBUG
+
+		when:
+		write("$name=WARNING, OUT, ERR")
+
+		then:
+		await { logger.level == Level.WARNING && logger.appenders.size() == 2 }
+
+		cleanup:
+		watcher?.close()
+	}
+	def "resets loggers dropped on reload"() {
+		String other = UUID.randomUUID().toString()
+		write("$name=DEBUG, OUT\n$other=DEBUG, OUT")
+
+		when:
+		Closeable watcher = Logger.watchProps(props)
+		write("$name=DEBUG, OUT")
+
+		then:
+		await { Logger.getLogger(other).level == Level.INFO }
+		!Logger.getLogger(other).appenders.iterator().hasNext()
+		Logger.getLogger(name).level == Level.DEBUG
+
+		cleanup:
+		watcher?.close()
+	}
+	def "keeps previous config on invalid reload"() {
+		write("$name=DEBUG, OUT")
+
+		when:
+		Closeable watcher = Logger.watchProps(props)
+		write("$name=SEVERE, ERR, rate=fast")
+		Thread.sleep(500)
+
+		then:
+		Logger.getLogger(name).level == Level.DEBUG
+
+		when:
+		write("$name=SEVERE, ERR")
+
+		then:
+		await { Logger.getLogger(name).level == Level.SEVERE }
+
+		cleanup:
+		watcher?.close()
+	}
+	def "keeps previous file appender on invalid reload"() {
+		Path log = dir.resolve("out.log")
+		write("$name=INFO, $log")
+
+		when:
+		Closeable watcher = Logger.watchProps(props)
+		Logger logger = Logger.getLogger(name)
+		write("$name=INFO, $log?size=large")
+		Thread.sleep(500)
+		logger.info("after")
+		logger.appenders.each { it.flush() }
+
+		then:
+		new String(Files.readAllBytes(log)).contains("after")
+
+		cleanup:
+		watcher?.close()
+		logger?.appenders?.each { it.close() }
+	}
+	def "keeps unchanged rate limiter on reload"() {
+		write("$name=INFO, OUT, rate=5/s")
+
+		when:
+		Closeable watcher = Logger.watchProps(props)
+		Logger logger = Logger.getLogger(name)
+		RateLimiter limiter = logger.limiter
+		write("$name=INFO, OUT, ERR, rate=5/s")
+
+		then:
+		await { logger.appenders.size() == 2 }
+		logger.limiter.is(limiter)
+
+		cleanup:
+		watcher?.close()
+	}
+	def "keeps file contents on reload"() {
+		Path log = dir.resolve("out.log")
+		write("$name=INFO, $log")
+
+		when:
+		Closeable watcher = Logger.watchProps(props)
+		Logger logger = Logger.getLogger(name)
+		logger.info("first")
+		write("$name=WARNING, $log")
+		await { logger.level == Level.WARNING }
+		logger.warning("second")
+		def reused = logger.appenders.iterator().next()
+		write("$name=WARNING, $log?index=16")
+		await { !logger.appenders.iterator().next().is(reused) }
+		logger.warning("third")
+		logger.appenders.each { it.close() }
+		String content = new String(Files.readAllBytes(log))
+
+		then:
+		content.contains("first")
+		content.contains("second")
+		content.contains("third")
+		content.indexOf('\u0000') < 0
+
+		cleanup:
+		watcher?.close()
+	}
+}
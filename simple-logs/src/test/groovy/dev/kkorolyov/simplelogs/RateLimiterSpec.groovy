@@ -0,0 +1,108 @@
+package dev.kkorolyov.simplelogs
+
+import dev.kkorolyov.simplelogs.append.Appender
+import dev.kkorolyov.simplelogs.format.Formatter
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.function.Supplier
+
+class RateLimiterSpec extends Specification {
+	int level = Level.INFO
+	Formatter formatter = Mock()
+	Appender appender = Mock(constructorArgs: [level])
+	Logger logger = Logger.getLogger(UUID.randomUUID().toString(), level, formatter, appender)
+
+	def "admits burst then suppresses until refilled"() {
+		RateLimiter limiter = new RateLimiter(100, 3, 1)
+
+		expect:
+		(1..4).collect { limiter.admits(logger, level, "message") } == [true, true, true, false]
+		limiter.suppressed == 1
+
+		when:
+		Thread.sleep(30)
+
+		then:
+		limiter.admits(logger, level, "message")
+	}
+	def "limits call sites independently"() {
+		RateLimiter limiter = new RateLimiter(0.001, 1, 1)
+
+		expect:
+		limiter.admits(logger, level, "first")
+		!limiter.admits(logger, level, "first")
+		limiter.admits(logger, level, "second")
+	}
+	def "samples messages"() {
+		RateLimiter limiter = new RateLimiter(0, 1, sampleRate)
+
+		when:
+		int admitted = (1..1000).count { limiter.admits(logger, level, "message") }
+
+		then:
+		admitted == expected
+		limiter.suppressed == 1000 - expected
+
+		where:
+		sampleRate << [0, 1]
+		expected << [0, 1000]
+	}
+	def "never admits more than burst concurrently"() {
+		RateLimiter limiter = new RateLimiter(0.001, 10, 1)
+		ExecutorService executor = Executors.newFixedThreadPool(8)
+
+		when:
+		List<Integer> admitted = (1..8).collect {
+			executor.submit({ (1..1000).count { limiter.admits(logger, level, "message") } } as Callable<Integer>)
+		}*.get()
+
+		then:
+		admitted.sum() == 10
+		limiter.suppressed == 8000 - 10
+
+		cleanup:
+		executor.shutdown()
+	}
+
+	def "summarizes suppressed messages"() {
+		RateLimiter limiter = new RateLimiter(0.001, 1, 1)
+		logger.setLimiter(limiter)
+
+		when:
+		(1..5).each { logger.info("limited {}", it) }
+		limiter.summarize()
+
+		then:
+		1 * appender.write({ it.message == "limited 1" })
+		1 * appender.write({ it.message == "Suppressed 4 messages like: limited {}" && it.level == level })
+		limiter.suppressed == 0
+	}
+	def "suppresses before formatting"() {
+		Supplier<String> arg = Mock()
+		logger.setLimiter(new RateLimiter(0, 1, 0))
+
+		when:
+		logger.info("limited {}", arg)
+		logger.at(level).with("key", "value").log("limited {}", arg)
+
+		then:
+		0 * arg.get()
+		0 * formatter._
+		0 * appender.write(_)
+	}
+
+	def "rejects invalid options"() {
+		when:
+		new RateLimiter(1, burst, sampleRate)
+
+		then:
+		thrown IllegalArgumentException
+
+		where:
+		burst << [0, 1, 1]
+		sampleRate << [1, -0.1, 1.1]
+	}
+}
@@ -0,0 +1,169 @@
+package dev.kkorolyov.simplelogs
+
+import dev.kkorolyov.simplelogs.append.Appender
+import dev.kkorolyov.simplelogs.append.Appenders
+import dev.kkorolyov.simplelogs.format.Formatters
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+
+class TraceRendererSpec extends Specification {
+	static Throwable fromSameSite(String message) {
+		return new IllegalStateException(message)
+	}
+	static Throwable fromAppenderSite(String message) {
+		return new IllegalStateException(message)
+	}
+	static Throwable fromCountedSite(String message) {
+		return new IllegalStateException(message)
+	}
+	Object destination = new Object()
+
+	String render(Throwable e, long timestamp = System.currentTimeMillis()) {
+		TraceRenderer.Occurrence occurrence = TraceRenderer.record(e)
+		return TraceRenderer.isNewTo(destination, occurrence, timestamp) ? occurrence.full() : occurrence.appendReference(new StringBuilder()).toString()
+	}
+
+	def "renders first trace in full"() {
+		Throwable e = new IllegalArgumentException("first")
+
+		when:
+		String rendered = render(e)
+
+		then:
+		rendered.startsWith("$e (trace #")
+		e.stackTrace.every { rendered.contains("\tat $it") }
+	}
+	def "renders repeated trace as reference"() {
+		List<Throwable> thrown = (0..<3).collect { fromSameSite("repeat $it") }
+
+		when:
+		List<String> rendered = thrown.collect { render(it) }
+		String id = (rendered[0] =~ /\(trace #(\w+)\)/)[0][1]
+
+		then:
+		rendered[1] == "${thrown[1]} (same as trace #$id, count 2)"
+		rendered[2] == "${thrown[2]} (same as trace #$id, count 3)"
+	}
+	def "renders repeated trace in full to new destination"() {
+		List<Throwable> thrown = (0..<2).collect { fromSameSite("destination") }
+
+		when:
+		render(thrown[0])
+		destination = new Object()
+		String rendered = render(thrown[1])
+
+		then:
+		rendered.startsWith("${thrown[1]} (trace #")
+	}
+	def "renders repeated trace in full after reprint interval"() {
+		long start = System.currentTimeMillis()
+		List<Throwable> thrown = (0..<3).collect { new IllegalStateException("reprint") }
+
+		when:
+		render(thrown[0], start)
+		String repeat = render(thrown[1], start + 1)
+		String reprint = render(thrown[2], start + TraceRenderer.REPRINT_INTERVAL + 1)
+
+		then:
+		repeat.contains("same as trace")
+		reprint.contains("\tat ")
+		!reprint.contains("same as trace")
+	}
+
+	def "fingerprints by throw site regardless of message"() {
+		expect:
+		TraceRenderer.fingerprint(fromSameSite("a")) == TraceRenderer.fingerprint(fromSameSite("b"))
+		TraceRenderer.fingerprint(fromSameSite("a")) != TraceRenderer.fingerprint(new IllegalStateException("a"))
+	}
+	def "fingerprints causes"() {
+		Throwable cause = new RuntimeException("cause")
+
+		expect:
+		TraceRenderer.fingerprint(new Exception("a", cause)) != TraceRenderer.fingerprint(new Exception("a"))
+	}
+
+	def "renders causes with common frames elided"() {
+		Throwable cause = new RuntimeException("cause")
+		Throwable e = new Exception("wrapper", cause)
+
+		when:
+		String rendered = render(e)
+
+		then:
+		rendered.contains("${System.lineSeparator()}Caused by: $cause")
+		rendered =~ /\t\.\.\. \d+ more/
+	}
+
+	def "renders trace in full to every appender of an event"() {
+		List<String> direct = Collections.synchronizedList([])
+		List<String> queued = Collections.synchronizedList([])
+		Appender async = Appenders.async(collecting(queued))
+		Logger logger = Logger.getLogger(UUID.randomUUID().toString(), Level.INFO, Formatters.simple(), async, collecting(direct))
+		Throwable e = new IllegalStateException("shared")
+
+		when:
+		logger.exception(e)
+		async.flush()
+
+		then:
+		[direct, queued].every { it.size() == 1 && it[0].contains("$e (trace #") && it[0].contains("\tat ${e.stackTrace[0]}") }
+
+		cleanup:
+		async.close()
+	}
+
+	def "renders trace in full to each appender first given it"() {
+		List<String> first = []
+		List<String> second = []
+		Appender shared = collecting(first)
+		Logger logger = Logger.getLogger(UUID.randomUUID().toString(), Level.INFO, Formatters.simple(), shared)
+		Logger other = Logger.getLogger(UUID.randomUUID().toString(), Level.INFO, Formatters.simple(), shared, collecting(second))
+		List<Throwable> thrown = (0..<2).collect { fromAppenderSite("appender") }
+
+		when:
+		logger.exception(thrown[0])
+		other.exception(thrown[1])
+
+		then:
+		first[1].endsWith("${thrown[1]} (same as trace #${(first[0] =~ /\(trace #(\w+)\)/)[0][1]}, count 2)")
+		second[0].contains("${thrown[1]} (trace #")
+	}
+	def "counts repeats when logged"() {
+		CountDownLatch gate = new CountDownLatch(1)
+		List<String> queued = Collections.synchronizedList([])
+		Appender async = Appenders.async(new Appender(Level.INFO) {
+			@Override
+			protected void append(String message) {
+				gate.await()
+				queued << message
+			}
+		})
+		Logger logger = Logger.getLogger(UUID.randomUUID().toString(), Level.INFO, Formatters.simple(), async)
+		Logger other = Logger.getLogger(UUID.randomUUID().toString(), Level.INFO, Formatters.simple(), collecting([]))
+		List<Throwable> thrown = (0..<3).collect { fromCountedSite("counted") }
+
+		when:
+		logger.exception(thrown[0])
+		logger.exception(thrown[1])
+		other.exception(thrown[2])
+		gate.countDown()
+		async.flush()
+
+		then:
+		queued[0].contains("${thrown[0]} (trace #")
+		queued[1].endsWith("${thrown[1]} (same as trace #${(queued[0] =~ /\(trace #(\w+)\)/)[0][1]}, count 2)")
+
+		cleanup:
+		async.close()
+	}
+
+	private static Appender collecting(List<String> out) {
+		return new Appender(Level.INFO) {
+			@Override
+			protected void append(String message) {
+				out << message
+			}
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package dev.kkorolyov.simplelogs.append
+
+import dev.kkorolyov.simplelogs.Level
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.CountDownLatch
+
+import static dev.kkorolyov.simplelogs.append.AsyncAppender.OverflowPolicy.DROP_NEWEST
+
+class AppenderMetricsSpec extends Specification {
+	Appender appender = new Appender(Level.INFO) {
+		@Override
+		protected void append(String message) {}
+	}
+
+	def "counts written events within threshold"() {
+		when:
+		(0..<10).each { appender.append(Level.INFO, "info") }
+		appender.append(Level.DEBUG, "debug")
+
+		then:
+		appender.metrics.written == 10
+	}
+	def "samples write latency"() {
+		when:
+		(0..<10_000).each { appender.append(Level.INFO, "info") }
+
+		then:
+		appender.metrics.latencyCounts.sum() > 0
+		appender.metrics.latencyP50 > 0
+		appender.metrics.latencyP50 <= appender.metrics.latencyP99
+		appender.metrics.latencyP99 <= appender.metrics.latencyMax
+	}
+	def "reports no latency before any samples"() {
+		expect:
+		appender.metrics.latencyMax == 0
+	}
+
+	def "counts bytes written to file"() {
+		Path file = Files.createTempFile("metrics", ".log")
+		FileAppender fileAppender = new FileAppender(file, Level.INFO)
+
+		when:
+		fileAppender.append(Level.INFO, "message")
+		fileAppender.flush()
+
+		then:
+		fileAppender.metrics.bytes == Files.size(file)
+
+		cleanup:
+		fileAppender.close()
+		Files.deleteIfExists(file)
+	}
+	def "counts events dropped by closed file"() {
+		Path file = Files.createTempFile("metrics", ".log")
+		FileAppender fileAppender = new FileAppender(file, Level.INFO)
+
+		when:
+		fileAppender.close()
+		fileAppender.append(Level.INFO, "late")
+
+		then:
+		fileAppender.metrics.dropped == 1
+		fileAppender.metrics.written == 0
+
+		cleanup:
+		Files.deleteIfExists(file)
+	}
+
+	def "reports async queue depth and drops"() {
+		CountDownLatch gate = new CountDownLatch(1)
+		Appender blocked = new Appender(Level.INFO) {
+			@Override
+			protected void append(String message) {
+				gate.await()
+			}
+		}
+		AsyncAppender async = new AsyncAppender(blocked, 4, DROP_NEWEST)
+
+		when:
+		async.append(Level.INFO, "taken")
+		while (async.pending > 0) Thread.onSpinWait()
+		(0..<10).each { async.append(Level.INFO, it as String) }
+
+		then:
+		async.metrics.queueDepth == 4
+		async.metrics.dropped == 6
+		async.metrics.snapshot()["queueDepth"] == 4L
+
+		cleanup:
+		gate.countDown()
+		async.close()
+	}
+}
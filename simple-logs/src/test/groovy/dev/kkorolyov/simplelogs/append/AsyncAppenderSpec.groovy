@@ -0,0 +1,222 @@
+package dev.kkorolyov.simplelogs.append
+
+import dev.kkorolyov.simplelogs.Level
+import dev.kkorolyov.simplelogs.Logger
+import dev.kkorolyov.simplelogs.format.Formatter
+import spock.lang.Specification
+
+import java.time.Instant
+import java.util.concurrent.CountDownLatch
+
+import static dev.kkorolyov.simplelogs.append.AsyncAppender.OverflowPolicy.BLOCK
+import static dev.kkorolyov.simplelogs.append.AsyncAppender.OverflowPolicy.DROP_NEWEST
+import static dev.kkorolyov.simplelogs.append.AsyncAppender.OverflowPolicy.DROP_OLDEST
+
+class AsyncAppenderSpec extends Specification {
+	List<String> appended = Collections.synchronizedList([])
+	CountDownLatch gate = new CountDownLatch(0)
+	Appender delegate = new Appender(Level.INFO) {
+		@Override
+		protected void append(String message) {
+			gate.await()
+			appended << message
+		}
+	}
+
+	def "appends all messages in order"() {
+		AsyncAppender async = new AsyncAppender(delegate, 16, BLOCK)
+		List<String> messages = (0..<1000).collect { it as String }
+
+		when:
+		messages.each { async.append(Level.INFO, it) }
+		async.flush()
+
+		then:
+		appended == messages
+
+		cleanup:
+		async.close()
+	}
+	def "appends from concurrent threads"() {
+		AsyncAppender async = new AsyncAppender(delegate, 64, BLOCK)
+
+		when:
+		(0..<8).collect { t ->
+			Thread.start {
+				(0..<500).each { async.append(Level.INFO, "$t-$it") }
+			}
+		}*.join()
+		async.flush()
+
+		then:
+		appended.size() == 8 * 500
+		(0..<8).every { t -> appended.findAll { it.startsWith("$t-") } == (0..<500).collect { "$t-$it" } }
+
+		cleanup:
+		async.close()
+	}
+
+	def "formats events on background thread"() {
+		AsyncAppender async = new AsyncAppender(delegate)
+		String formattingThread = null
+		Formatter formatter = new Formatter() {
+			@Override
+			String format(Instant instant, StackTraceElement invoker, int level, String message) {
+				formattingThread = Thread.currentThread().name
+				return message
+			}
+		}
+		Logger logger = Logger.getLogger(UUID.randomUUID().toString(), Level.INFO, formatter, async)
+
+		when:
+		logger.info("message {}", 1)
+		async.flush()
+
+		then:
+		appended == ["message 1"]
+		formattingThread.startsWith("simple-logs-async-")
+
+		cleanup:
+		async.close()
+	}
+	def "renders logged exceptions on background thread"() {
+		AsyncAppender async = new AsyncAppender(delegate)
+		String formattingThread = null
+		Formatter formatter = new Formatter() {
+			@Override
+			String format(Instant instant, StackTraceElement invoker, int level, String message) {
+				formattingThread = Thread.currentThread().name
+				return message
+			}
+		}
+		Logger logger = Logger.getLogger(UUID.randomUUID().toString(), Level.INFO, formatter, async)
+		Exception e = new Exception("boom")
+
+		when:
+		logger.exception(Level.INFO, e)
+		async.flush()
+
+		then:
+		appended.size() == 1
+		appended[0].startsWith("$e (trace #")
+		formattingThread.startsWith("simple-logs-async-")
+
+		cleanup:
+		async.close()
+	}
+
+	def "respects delegate threshold"() {
+		AsyncAppender async = new AsyncAppender(delegate)
+
+		when:
+		async.setThreshold(Level.DEBUG)
+		async.append(Level.DEBUG, "debug")
+		async.append(Level.INFO, "info")
+		async.flush()
+
+		then:
+		appended == ["info"]
+
+		cleanup:
+		async.close()
+	}
+
+	def "drops newest when full"() {
+		gate = new CountDownLatch(1)
+		AsyncAppender async = new AsyncAppender(delegate, 4, DROP_NEWEST)
+
+		when:
+		async.append(Level.INFO, "taken")
+		while (async.pending > 0) Thread.onSpinWait()
+		(0..<10).each { async.append(Level.INFO, it as String) }
+		gate.countDown()
+		async.flush()
+
+		then:
+		appended == ["taken", "0", "1", "2", "3"]
+		async.dropped == 6
+
+		cleanup:
+		async.close()
+	}
+	def "drops oldest when full"() {
+		gate = new CountDownLatch(1)
+		AsyncAppender async = new AsyncAppender(delegate, 4, DROP_OLDEST)
+
+		when:
+		async.append(Level.INFO, "taken")
+		while (async.pending > 0) Thread.onSpinWait()
+		(0..<10).each { async.append(Level.INFO, it as String) }
+		gate.countDown()
+		async.flush()
+
+		then:
+		appended == ["taken", "6", "7", "8", "9"]
+		async.dropped == 6
+
+		cleanup:
+		async.close()
+	}
+
+	def "drains pending messages on close"() {
+		AsyncAppender async = new AsyncAppender(delegate, 2048, BLOCK)
+		List<String> messages = (0..<1000).collect { it as String }
+
+		when:
+		messages.each { async.append(Level.INFO, it) }
+		async.close()
+
+		then:
+		appended == messages
+	}
+	def "drops messages after close"() {
+		AsyncAppender async = new AsyncAppender(delegate)
+
+		when:
+		async.close()
+		async.append(Level.INFO, "late")
+
+		then:
+		appended.empty
+		async.dropped == 1
+	}
+	def "delivers or drops every message appended while closing"() {
+		List<Long> counts = []
+
+		when:
+		for (int round = 0; round < 20; round++) {
+			appended.clear()
+			AsyncAppender async = new AsyncAppender(delegate, 64, BLOCK)
+			CountDownLatch started = new CountDownLatch(4)
+			List<Thread> threads = (0..<4).collect { t ->
+				Thread.start {
+					started.countDown()
+					(0..<200).each { async.append(Level.INFO, "$t-$it") }
+				}
+			}
+			started.await()
+			List<Thread> closers = (0..<2).collect { Thread.start { async.close() } }
+			(threads + closers)*.join()
+			counts << appended.size() + async.dropped
+		}
+
+		then:
+		counts.every { it == 4 * 200 }
+	}
+
+	def "stops thread of discarded appender"() {
+		Set<Thread> before = Thread.getAllStackTraces().keySet()
+		new AsyncAppender(delegate).append(Level.INFO, "message")
+		Thread drainer = Thread.getAllStackTraces().keySet().find { !before.contains(it) && it.name.startsWith("simple-logs-async-") }
+
+		when:
+		for (int i = 0; i < 100 && drainer.alive; i++) {
+			System.gc()
+			drainer.join(50)
+		}
+
+		then:
+		!drainer.alive
+		appended == ["message"]
+	}
+}
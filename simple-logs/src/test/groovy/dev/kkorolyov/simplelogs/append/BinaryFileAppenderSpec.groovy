@@ -0,0 +1,182 @@
+package dev.kkorolyov.simplelogs.append
+
+import dev.kkorolyov.simplelogs.Level
+import dev.kkorolyov.simplelogs.LogEvent
+import dev.kkorolyov.simplelogs.Logger
+import dev.kkorolyov.simplelogs.format.Formatters
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.function.Supplier
+
+class BinaryFileAppenderSpec extends Specification {
+	Path file = Files.createTempFile("BinaryFileAppenderSpec", ".bin")
+	BinaryFileAppender appender = new BinaryFileAppender(file, Level.DEBUG)
+	Logger logger = Logger.getLogger(UUID.randomUUID().toString(), Level.DEBUG, Formatters.simple(), appender)
+
+	def cleanup() {
+		appender.close()
+		Files.deleteIfExists(file)
+	}
+
+	def "reads back logged events"() {
+		when:
+		logger.info("first {}", 1)
+		logger.warning("second {} {}", "two", null)
+		appender.close()
+
+		List<LogEvent> events = readAll()
+
+		then:
+		events*.level == [Level.INFO, Level.WARNING]
+		events*.message == ["first 1", "second two null"]
+		events*.template == ["first {}", "second {} {}"]
+		events.every { it.invoker != null }
+	}
+	def "preserves arg types"() {
+		when:
+		logger.info("{}", arg)
+		appender.close()
+
+		then:
+		readAll()[0].getArg(0) == expected
+
+		where:
+		arg << ["string", 1, 2L, 1.1f, 1.1d, true, 'c' as char, (short) 3, new StringBuilder("sb"), { "supplied" } as Supplier]
+		expected << ["string", 1, 2L, 1.1f, 1.1d, true, 'c' as char, 3, "sb", "supplied"]
+	}
+	def "reads back fields"() {
+		when:
+		logger.at(Level.INFO).with("user", "u1").with("attempt", { 2 } as Supplier).log("login")
+		logger.info("plain")
+		appender.close()
+
+		List<LogEvent> events = readAll()
+
+		then:
+		events[0].fieldCount == 2
+		(0..<2).collect { [events[0].getFieldKey(it), events[0].getFieldValue(it)] } == [["user", "u1"], ["attempt", 2]]
+		events[1].fieldCount == 0
+	}
+	def "writes each template once"() {
+		when:
+		logger.info("repeated {}", 0)
+		appender.flush()
+		long first = Files.size(file)
+		logger.info("repeated {}", 1)
+		appender.flush()
+		long second = Files.size(file)
+		logger.info("repeated {}", 2)
+		appender.flush()
+		long third = Files.size(file)
+
+		then:
+		third - second == second - first
+		second - first < first
+	}
+
+	def "writes formatted messages and traces as args instead of templates"() {
+		Exception e = new Exception("thrown")
+
+		when:
+		appender.append(Level.INFO, "formatted 1")
+		logger.exception(e)
+		appender.close()
+
+		List<LogEvent> events = readAll()
+
+		then:
+		events*.template == ["{}", "{}"]
+		events[0].message == "formatted 1"
+		events[1].message.startsWith("$e (trace #")
+	}
+
+	def "renders with any formatter"() {
+		StringBuilder out = new StringBuilder()
+
+		when:
+		logger.info("rendered {}", "arg")
+		logger.debug("plain")
+		appender.close()
+
+		BinaryFileReader reader = new BinaryFileReader(file)
+		long count = reader.render(Formatters.pattern("%p: %m"), out)
+		reader.close()
+
+		then:
+		count == 2
+		out.toString() == "INFO: rendered arg${System.lineSeparator()}DEBUG: plain${System.lineSeparator()}"
+	}
+
+	def "keeps records whole when args log"() {
+		Supplier<String> logging = {
+			logger.info("inner {}", 1)
+			"supplied"
+		}
+
+		when:
+		logger.info("outer {}", logging)
+		appender.close()
+
+		then:
+		readAll()*.message == ["inner 1", "outer supplied"]
+	}
+
+	def "ignores truncated final record"() {
+		when:
+		logger.info("complete")
+		logger.info("truncated")
+		appender.close()
+
+		byte[] bytes = Files.readAllBytes(file)
+		Files.write(file, Arrays.copyOf(bytes, bytes.length - 3))
+
+		then:
+		readAll()*.message == ["complete"]
+	}
+	def "omits call sites if not resolved"() {
+		Path otherFile = Files.createTempFile("BinaryFileAppenderSpec", ".bin")
+		BinaryFileAppender noCallSites = new BinaryFileAppender(otherFile, Level.DEBUG, BinaryFileAppender.MIN_BUFFER_SIZE, 0, Level.FATAL, false, false)
+
+		when:
+		logger.setAppenders(noCallSites)
+		logger.info("message")
+		noCallSites.close()
+
+		BinaryFileReader reader = new BinaryFileReader(otherFile)
+		LogEvent event = reader.read()
+		reader.close()
+
+		then:
+		event.message == "message"
+		event.invoker == null
+
+		cleanup:
+		Files.deleteIfExists(otherFile)
+	}
+	def "rejects non-binary files"() {
+		Path text = Files.createTempFile("BinaryFileAppenderSpec", ".log")
+		Files.write(text, ["not binary"])
+
+		when:
+		new BinaryFileReader(text)
+
+		then:
+		thrown IOException
+
+		cleanup:
+		Files.deleteIfExists(text)
+	}
+
+	private List<LogEvent> readAll() {
+		BinaryFileReader reader = new BinaryFileReader(file)
+		try {
+			List<LogEvent> events = []
+			for (LogEvent event = reader.read(); event != null; event = reader.read()) events << event
+			return events
+		} finally {
+			reader.close()
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package dev.kkorolyov.simplelogs.append
+
+import dev.kkorolyov.simplelogs.Level
+import dev.kkorolyov.simplelogs.LogEvent
+import dev.kkorolyov.simplelogs.Logger
+import dev.kkorolyov.simplelogs.format.Formatters
+import spock.lang.Specification
+
+import java.util.function.Supplier
+
+class CollapsingAppenderSpec extends Specification {
+	int level = Level.INFO
+	Appender delegate = Mock(constructorArgs: [level])
+
+	def "collapses identical events"() {
+		CollapsingAppender appender = new CollapsingAppender(delegate)
+		Logger logger = Logger.getLogger(UUID.randomUUID().toString(), level, Formatters.pattern("%p: %m"), appender)
+
+		when:
+		1000.times { logger.info("retry {}", "same") }
+		logger.info("done")
+
+		then:
+		1 * delegate.write({ LogEvent event -> event.message == "retry same" })
+
+		then:
+		1 * delegate.write(level, "INFO: Last message repeated 999 times")
+
+		then:
+		1 * delegate.write({ LogEvent event -> event.message == "done" })
+		0 * delegate.write(*_)
+	}
+	def "does not collapse events with different args or levels"() {
+		CollapsingAppender appender = new CollapsingAppender(delegate)
+		Logger logger = Logger.getLogger(UUID.randomUUID().toString(), level, Formatters.simple(), appender)
+
+		when:
+		logger.info("retry {}", 1)
+		logger.info("retry {}", 2)
+		logger.warning("retry {}", 2)
+		logger.at(level).with("key", 1).log("retry {}", 2)
+		logger.at(level).with("key", 2).log("retry {}", 2)
+
+		then:
+		5 * delegate.write(_ as LogEvent)
+		0 * delegate.write(_ as Integer, _ as String)
+	}
+	def "does not collapse events with colliding hashes"() {
+		CollapsingAppender appender = new CollapsingAppender(delegate)
+		Logger logger = Logger.getLogger(UUID.randomUUID().toString(), level, Formatters.simple(), appender)
+
+		when:
+		logger.info("{}", "Aa")
+		logger.info("{}", "BB")
+
+		then:
+		"Aa".hashCode() == "BB".hashCode()
+		2 * delegate.write(_ as LogEvent)
+		0 * delegate.write(_ as Integer, _ as String)
+	}
+	def "resolves supplier args once per event"() {
+		List<String> appended = []
+		Appender collecting = new Appender(level) {
+			@Override
+			protected void append(String message) {
+				appended << message
+			}
+		}
+		int calls = 0
+		Supplier<String> arg = {
+			calls++
+			"supplied"
+		}
+		Logger logger = Logger.getLogger(UUID.randomUUID().toString(), level, Formatters.pattern("%m"), new CollapsingAppender(collecting))
+
+		when:
+		logger.info("value {}", arg)
+
+		then:
+		appended == ["value supplied"]
+		calls == 1
+	}
+	def "formats summary with invoker of first event"() {
+		CollapsingAppender appender = new CollapsingAppender(delegate)
+		Logger logger = Logger.getLogger(UUID.randomUUID().toString(), level, Formatters.pattern("%M: %m"), appender)
+
+		when:
+		3.times { logger.info("retry") }
+		appender.flush()
+
+		then:
+		1 * delegate.write(_ as LogEvent)
+
+		then:
+		1 * delegate.write(level, { it.endsWith(": Last message repeated 2 times") && !it.startsWith("?") })
+	}
+	def "restarts burst after window"() {
+		CollapsingAppender appender = new CollapsingAppender(delegate, 20)
+
+		when:
+		3.times { appender.append(level, "message") }
+		Thread.sleep(40)
+		appender.append(level, "message")
+
+		then:
+		1 * delegate.write(level, "message")
+
+		then:
+		1 * delegate.write(level, "Last message repeated 2 times")
+
+		then:
+		1 * delegate.write(level, "message")
+	}
+	def "summarizes repeats once window ends"() {
+		List<String> appended = Collections.synchronizedList([])
+		CollapsingAppender appender = new CollapsingAppender(new Appender(level) {
+			@Override
+			protected void append(String message) {
+				appended << message
+			}
+		}, 500)
+
+		when:
+		3.times { appender.append(level, "message") }
+		long deadline = System.currentTimeMillis() + 5000
+		while (appended.size() < 2 && System.currentTimeMillis() < deadline) Thread.sleep(5)
+
+		then:
+		appended == ["message", "Last message repeated 2 times"]
+	}
+	def "summarizes pending repeats on flush"() {
+		CollapsingAppender appender = new CollapsingAppender(delegate)
+
+		when:
+		3.times { appender.append(level, "message") }
+		appender.flush()
+
+		then:
+		1 * delegate.write(level, "message")
+
+		then:
+		1 * delegate.write(level, "Last message repeated 2 times")
+		1 * delegate.flush()
+	}
+	def "summarizes pending repeats on close"() {
+		CollapsingAppender appender = new CollapsingAppender(delegate)
+
+		when:
+		2.times { appender.append(level, "message") }
+		appender.close()
+
+		then:
+		1 * delegate.write(level, "message")
+
+		then:
+		1 * delegate.write(level, "Last message repeated 1 times")
+		1 * delegate.close()
+	}
+}
@@ -0,0 +1,120 @@
+package dev.kkorolyov.simplelogs.append
+
+import dev.kkorolyov.simplelogs.Level
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class FileAppenderSpec extends Specification {
+	Path file = Files.createTempFile("FileAppenderSpec", ".log")
+
+	def cleanup() {
+		Files.deleteIfExists(file)
+	}
+
+	def "buffers messages until flushed"() {
+		FileAppender appender = new FileAppender(file, Level.INFO, 1024, 0, Level.FATAL, false)
+
+		when:
+		appender.append(Level.INFO, "message")
+
+		then:
+		Files.size(file) == 0
+
+		when:
+		appender.flush()
+
+		then:
+		Files.readAllLines(file) == ["message"]
+
+		cleanup:
+		appender.close()
+	}
+	def "writes immediately at flush level"() {
+		FileAppender appender = new FileAppender(file, Level.INFO, 1024, 0, Level.SEVERE, false)
+
+		when:
+		appender.append(Level.INFO, "info")
+		appender.append(Level.SEVERE, "severe")
+
+		then:
+		Files.readAllLines(file) == ["info", "severe"]
+
+		cleanup:
+		appender.close()
+	}
+	def "writes when buffer full"() {
+		FileAppender appender = new FileAppender(file, Level.INFO, FileAppender.MIN_BUFFER_SIZE, 0, Level.FATAL, false)
+
+		when:
+		appender.append(Level.INFO, "0123456789" * 10)
+
+		then:
+		Files.size(file) >= FileAppender.MIN_BUFFER_SIZE
+
+		cleanup:
+		appender.close()
+	}
+	def "writes periodically"() {
+		FileAppender appender = new FileAppender(file, Level.INFO, 1024, 10, Level.FATAL, true)
+
+		when:
+		appender.append(Level.INFO, "message")
+		long deadline = System.currentTimeMillis() + 5000
+		while (Files.size(file) == 0 && System.currentTimeMillis() < deadline) Thread.sleep(5)
+
+		then:
+		Files.readAllLines(file) == ["message"]
+
+		cleanup:
+		appender.close()
+	}
+
+	def "encodes non-ASCII messages"() {
+		FileAppender appender = new FileAppender(file, Level.INFO, FileAppender.MIN_BUFFER_SIZE, 0, Level.FATAL, false)
+		List<String> messages = ["ascii", "привет" * 20, "日本語 and ascii" * 10, "emoji 😀" * 20]
+
+		when:
+		messages.each { appender.append(Level.INFO, it) }
+		appender.close()
+
+		then:
+		Files.readAllLines(file) == messages
+	}
+	def "rejects buffers smaller than any encoded character"() {
+		when:
+		new FileAppender(file, Level.INFO, 3, 0, Level.FATAL, false)
+
+		then:
+		thrown IllegalArgumentException
+	}
+	def "writes concurrent messages whole"() {
+		FileAppender appender = new FileAppender(file, Level.INFO, 64, 0, Level.FATAL, false)
+
+		when:
+		(0..<4).collect { t ->
+			Thread.start {
+				(0..<250).each { appender.append(Level.INFO, "$t-$it-${'x' * 20}") }
+			}
+		}*.join()
+		appender.close()
+
+		then:
+		List<String> lines = Files.readAllLines(file)
+		lines.size() == 4 * 250
+		lines.every { it ==~ /\d-\d+-x{20}/ }
+	}
+
+	def "ignores messages after close"() {
+		FileAppender appender = new FileAppender(file, Level.INFO)
+
+		when:
+		appender.append(Level.INFO, "before")
+		appender.close()
+		appender.append(Level.INFO, "after")
+
+		then:
+		Files.readAllLines(file) == ["before"]
+	}
+}
@@ -0,0 +1,92 @@
+package dev.kkorolyov.simplelogs.append
+
+import dev.kkorolyov.simplelogs.Level
+import dev.kkorolyov.simplelogs.Logger
+import dev.kkorolyov.simplelogs.format.Formatters
+import spock.lang.Specification
+
+class FlightRecorderAppenderSpec extends Specification {
+	Appender target = Mock(constructorArgs: [Level.DEBUG])
+
+	def "records without appending until dump level"() {
+		FlightRecorderAppender recorder = new FlightRecorderAppender(target, Level.DEBUG)
+		Logger logger = Logger.getLogger(UUID.randomUUID().toString(), Level.DEBUG, Formatters.pattern("%p: %m"), recorder)
+
+		when:
+		logger.debug("first {}", 1)
+		logger.info("second {} {}", 2, "two")
+
+		then:
+		0 * target.write(*_)
+		recorder.size == 2
+
+		when:
+		logger.severe("failed")
+
+		then:
+		1 * target.write(Level.DEBUG, "DEBUG: first 1")
+
+		then:
+		1 * target.write(Level.INFO, "INFO: second 2 two")
+
+		then:
+		1 * target.write(Level.SEVERE, "SEVERE: failed")
+		1 * target.flush()
+		recorder.size == 0
+	}
+	def "dumps recorded fields"() {
+		FlightRecorderAppender recorder = new FlightRecorderAppender(target, Level.DEBUG)
+		Logger logger = Logger.getLogger(UUID.randomUUID().toString(), Level.DEBUG, Formatters.json(), recorder)
+		List<String> dumped = []
+
+		when:
+		logger.at(Level.INFO).with("user", "u1").with("attempt", 2).log("login")
+		logger.severe("failed")
+
+		then:
+		2 * target.write(_, _) >> { int level, String message -> dumped << message }
+		dumped[0].contains('"user":"u1","attempt":2')
+		!dumped[1].contains('"user"')
+	}
+	def "dumps on logged exception"() {
+		FlightRecorderAppender recorder = new FlightRecorderAppender(target, Level.DEBUG)
+		Logger logger = Logger.getLogger(UUID.randomUUID().toString(), Level.DEBUG, Formatters.pattern("%m"), recorder)
+
+		when:
+		logger.debug("context")
+		logger.exception(Level.DEBUG, new Exception("boom"))
+
+		then:
+		1 * target.write(Level.DEBUG, "context")
+
+		then:
+		1 * target.write(Level.DEBUG, { it.startsWith("java.lang.Exception: boom") })
+	}
+	def "keeps most recent events"() {
+		FlightRecorderAppender recorder = new FlightRecorderAppender(target, Level.DEBUG, 3, Level.SEVERE)
+
+		when:
+		(1..10).each { recorder.append(Level.DEBUG, "message $it") }
+		recorder.dump()
+
+		then:
+		recorder.size == 0
+		1 * target.write(Level.DEBUG, "message 8")
+
+		then:
+		1 * target.write(Level.DEBUG, "message 9")
+
+		then:
+		1 * target.write(Level.DEBUG, "message 10")
+		0 * target.write(*_)
+	}
+	def "ignores events above threshold"() {
+		FlightRecorderAppender recorder = new FlightRecorderAppender(target, Level.INFO)
+
+		when:
+		recorder.append(Level.DEBUG, "ignored")
+
+		then:
+		recorder.size == 0
+	}
+}
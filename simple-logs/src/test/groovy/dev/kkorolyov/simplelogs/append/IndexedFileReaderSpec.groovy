@@ -0,0 +1,150 @@
+package dev.kkorolyov.simplelogs.append
+
+import dev.kkorolyov.simplelogs.Level
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.nio.file.Files
+import java.nio.file.Path
+
+class IndexedFileReaderSpec extends Specification {
+	Path dir = Files.createTempDirectory("IndexedFileReaderSpec")
+	Path file = dir.resolve("indexed.log")
+
+	def cleanup() {
+		dir.toFile().deleteDir()
+	}
+
+	FileAppender appender(int interval, boolean append = false) {
+		return new FileAppender(file, Level.ALL, 1024, 0, Level.FATAL, false, append, interval)
+	}
+	/** Writes events {@code 0..<count}, each logged at its own timestamp, at {@code level(i)} */
+	void write(FileAppender appender, int count, Closure<Integer> level = { Level.INFO }) {
+		(0..<count).each { appender.writeLine(it, level(it), "event $it") }
+	}
+
+	def "writes index on close"() {
+		FileAppender appender = appender(4)
+
+		when:
+		write(appender, 10)
+		appender.close()
+
+		then:
+		Files.size(LogIndex.path(file)) == LogIndex.HEADER_SIZE + 3 * LogIndex.ENTRY_SIZE
+	}
+
+	def "reads blocks within time range"() {
+		FileAppender appender = appender(4)
+		write(appender, 100)
+		appender.close()
+
+		when:
+		IndexedFileReader reader = new IndexedFileReader(file)
+		List<String> lines = reader.readLines(42, 45, Level.ALL)
+
+		then:
+		reader.entries == 25
+		lines == (40..47).collect { "event $it" }
+
+		cleanup:
+		reader?.close()
+	}
+	def "reads only blocks with events at or above level"() {
+		FileAppender appender = appender(4)
+		write(appender, 100) { it == 13 || it == 14 || it == 90 ? Level.WARNING : Level.DEBUG }
+		appender.close()
+
+		when:
+		IndexedFileReader reader = new IndexedFileReader(file)
+		List<ByteBuffer> regions = []
+		reader.read(0, 95, Level.WARNING) { regions << it }
+
+		then:
+		regions.size() == 2
+		reader.readLines(0, 95, Level.WARNING) == ((12..15) + (88..91)).collect { "event $it" }
+
+		cleanup:
+		reader?.close()
+	}
+	def "splits large regions on line boundaries"() {
+		FileAppender appender = appender(4)
+		write(appender, 100)
+		appender.close()
+
+		when:
+		IndexedFileReader reader = new IndexedFileReader(file, 64)
+		List<ByteBuffer> regions = []
+		long read = reader.read(0, 99, Level.ALL) { regions << it }
+
+		then:
+		read == Files.size(file)
+		regions.size() > 1
+		regions.every { it.limit() <= 64 && it.get(it.limit() - 1) == ('\n' as char) as byte }
+		reader.readLines(0, 99, Level.ALL) == (0..<100).collect { "event $it" }
+
+		cleanup:
+		reader?.close()
+	}
+	def "reads nothing outside time range"() {
+		FileAppender appender = appender(4)
+		write(appender, 20)
+		appender.close()
+
+		when:
+		IndexedFileReader reader = new IndexedFileReader(file)
+
+		then:
+		reader.readLines(100, 200, Level.ALL).empty
+		reader.read(100, 200, Level.ALL) {} == 0
+
+		cleanup:
+		reader?.close()
+	}
+
+	def "reads unindexed tail"() {
+		FileAppender appender = appender(4)
+		write(appender, 10)
+		appender.flush()
+
+		when:
+		IndexedFileReader reader = new IndexedFileReader(file)
+
+		then:
+		reader.entries == 2
+		reader.readLines(9, 9, Level.ALL) == ["event 8", "event 9"]
+
+		cleanup:
+		reader?.close()
+		appender.close()
+	}
+	def "continues index of appended file"() {
+		FileAppender first = appender(2)
+		write(first, 4)
+		first.close()
+
+		FileAppender second = appender(2, true)
+		(4..<8).each { second.writeLine(it, Level.INFO, "event $it") }
+		second.close()
+
+		when:
+		IndexedFileReader reader = new IndexedFileReader(file)
+
+		then:
+		reader.entries == 4
+		reader.readLines(6, 7, Level.ALL) == ["event 6", "event 7"]
+
+		cleanup:
+		reader?.close()
+	}
+
+	def "fails without index"() {
+		new FileAppender(file, Level.ALL).close()
+
+		when:
+		new IndexedFileReader(file)
+
+		then:
+		thrown IOException
+	}
+}
@@ -0,0 +1,136 @@
+package dev.kkorolyov.simplelogs.append
+
+import dev.kkorolyov.simplelogs.Level
+import dev.kkorolyov.simplelogs.LogEvent
+import dev.kkorolyov.simplelogs.Logger
+import dev.kkorolyov.simplelogs.format.Formatters
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+
+class MappedRingAppenderSpec extends Specification {
+	Path file = Files.createTempFile("ring", ".map")
+
+	MappedRingAppender appender = new MappedRingAppender(file, Level.DEBUG, 1024)
+	MappedRingReader reader = new MappedRingReader(file)
+
+	def cleanup() {
+		appender.close()
+		reader.close()
+		Files.deleteIfExists(file)
+	}
+
+	def "reads appended messages in order"() {
+		when:
+		appender.append(Level.INFO, "first")
+		appender.append(Level.WARNING, "second")
+
+		LogEvent first = reader.poll()
+		LogEvent second = reader.poll()
+
+		then:
+		[first.level, first.message] == [Level.INFO, "first"]
+		[second.level, second.message] == [Level.WARNING, "second"]
+		reader.poll() == null
+	}
+	def "reads formatted events"() {
+		Logger logger = Logger.getLogger(UUID.randomUUID().toString(), Level.DEBUG, Formatters.pattern("%p: %m"), appender)
+
+		when:
+		logger.info("message {}", 1)
+		LogEvent event = reader.poll()
+
+		then:
+		event.message == "INFO: message 1"
+		event.level == Level.INFO
+		event.timestamp > 0
+	}
+	def "hands out messages as views"() {
+		List<String> messages = []
+
+		when:
+		appender.append(Level.INFO, "first")
+		appender.append(Level.INFO, "second")
+		int count = reader.read { long timestamp, int level, ByteBuffer message -> messages << StandardCharsets.UTF_8.decode(message).toString() }
+
+		then:
+		count == 2
+		messages == ["first", "second"]
+	}
+	def "encodes non-ASCII messages"() {
+		when:
+		appender.append(Level.INFO, "héllo ✓ 😀")
+
+		then:
+		reader.poll().message == "héllo ✓ 😀"
+	}
+
+	def "wraps around ring"() {
+		List<String> read = []
+
+		when:
+		(0..<500).each {
+			appender.append(Level.INFO, "message number $it")
+			read << reader.poll().message
+		}
+
+		then:
+		read == (0..<500).collect { "message number $it" }
+	}
+	def "drops messages when full"() {
+		when:
+		(0..<100).each { appender.append(Level.INFO, "message number $it") }
+		int read = reader.read { long timestamp, int level, ByteBuffer message -> }
+
+		then:
+		read > 0
+		appender.metrics.dropped == 100 - read
+	}
+	def "drops messages too large for ring"() {
+		when:
+		appender.append(Level.INFO, "x" * 1024)
+
+		then:
+		reader.poll() == null
+		appender.metrics.dropped == 1
+	}
+
+	def "consumes concurrently with appending"() {
+		MappedRingAppender ring = new MappedRingAppender(file, Level.DEBUG, 1 << 16)
+		MappedRingReader ringReader = new MappedRingReader(file)
+		List<String> read = []
+
+		when:
+		Thread consumer = Thread.start {
+			while (read.size() + ring.metrics.dropped < 10_000) {
+				if (ringReader.read { long timestamp, int level, ByteBuffer message -> read << StandardCharsets.UTF_8.decode(message).toString() } == 0) Thread.onSpinWait()
+			}
+		}
+		(0..<10_000).each { ring.append(Level.INFO, it as String) }
+		consumer.join(10_000)
+
+		then:
+		read.size() + ring.metrics.dropped == 10_000
+		read.collect { it as int } == read.collect { it as int }.sort()
+
+		cleanup:
+		ring.close()
+		ringReader.close()
+	}
+
+	def "rejects uninitialized file"() {
+		Path empty = Files.createTempFile("ring", ".map")
+
+		when:
+		new MappedRingReader(empty)
+
+		then:
+		thrown(IOException)
+
+		cleanup:
+		Files.deleteIfExists(empty)
+	}
+}
@@ -0,0 +1,97 @@
+package dev.kkorolyov.simplelogs.append
+
+import dev.kkorolyov.simplelogs.Level
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.GZIPInputStream
+
+class RollingFileAppenderSpec extends Specification {
+	Path dir = Files.createTempDirectory("RollingFileAppenderSpec")
+	Path file = dir.resolve("test.log")
+
+	def cleanup() {
+		dir.toFile().deleteDir()
+	}
+
+	def "rolls over by size"() {
+		RollingFileAppender appender = new RollingFileAppender(file, Level.INFO, 10, 0, 10)
+
+		when:
+		(0..<3).each { appender.append(Level.INFO, "message-$it") }
+		appender.close()
+
+		then:
+		Files.readAllLines(file) == ["message-2"]
+		awaitArchives(2).collect { decompress(it) } == ["message-0", "message-1"]
+	}
+	def "rolls over by time"() {
+		RollingFileAppender appender = new RollingFileAppender(file, Level.INFO, 0, 20, 10)
+
+		when:
+		appender.append(Level.INFO, "first")
+		Thread.sleep(50)
+		appender.append(Level.INFO, "second")
+		appender.close()
+
+		then:
+		Files.readAllLines(file) == ["second"]
+		awaitArchives(1).collect { decompress(it) } == ["first"]
+	}
+	def "keeps max archives"() {
+		RollingFileAppender appender = new RollingFileAppender(file, Level.INFO, 0, 0, 2)
+
+		when:
+		(0..<5).each {
+			appender.append(Level.INFO, "message-$it")
+			appender.roll()
+		}
+		appender.close()
+
+		then:
+		awaitArchives(2).collect { decompress(it) } == ["message-3", "message-4"]
+	}
+
+	def "compresses and prunes archives left uncompressed"() {
+		Files.write(dir.resolve("test.log.20200101-000000-000"), ["oldest"])
+		Files.write(dir.resolve("test.log.20200101-000000-001"), ["leftover"])
+
+		when:
+		RollingFileAppender appender = new RollingFileAppender(file, Level.INFO, 0, 0, 2)
+		appender.append(Level.INFO, "new")
+		appender.roll()
+		appender.close()
+
+		then:
+		awaitArchives(2).collect { decompress(it) } == ["leftover", "new"]
+	}
+
+	def "appends to existing file"() {
+		Files.write(file, ["existing"])
+		RollingFileAppender appender = new RollingFileAppender(file, Level.INFO, 0, 0, 1)
+
+		when:
+		appender.append(Level.INFO, "new")
+		appender.close()
+
+		then:
+		Files.readAllLines(file) == ["existing", "new"]
+	}
+
+	private List<Path> awaitArchives(int count) {
+		long deadline = System.currentTimeMillis() + 5000
+		List<Path> archives = []
+		boolean pending = true
+		while ((pending || archives.size() != count) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10)
+			List<Path> siblings = Files.list(dir).withCloseable { it.filter { it != file }.sorted().collect() }
+			archives = siblings.findAll { it.fileName.toString().endsWith(".gz") }
+			pending = archives.size() < siblings.size()
+		}
+		return archives
+	}
+	private static String decompress(Path archive) {
+		return new GZIPInputStream(Files.newInputStream(archive)).withCloseable { it.text.trim() }
+	}
+}
@@ -0,0 +1,79 @@
+package dev.kkorolyov.simplelogs.format
+
+import dev.kkorolyov.simplelogs.Level
+import dev.kkorolyov.simplelogs.LogContext
+import dev.kkorolyov.simplelogs.LogEvent
+import spock.lang.Specification
+
+import java.time.Instant
+import java.util.function.Supplier
+
+class JsonFormatterSpec extends Specification {
+	StackTraceElement invoker = new StackTraceElement("some.Class", "method", "Class.java", 49)
+	String thread = Thread.currentThread().name
+
+	def "formats event"() {
+		expect:
+		new JsonFormatter(true).format(Instant.ofEpochMilli(1234), invoker, Level.INFO, "message") ==
+				"""{"timestamp":1234,"level":"INFO","thread":"$thread","class":"some.Class","method":"method","line":49,"message":"message"}"""
+	}
+	def "omits invoker if not included"() {
+		JsonFormatter formatter = new JsonFormatter(false)
+
+		expect:
+		!formatter.usesInvoker()
+		formatter.format(Instant.ofEpochMilli(1234), invoker, Level.INFO, "message") ==
+				"""{"timestamp":1234,"level":"INFO","thread":"$thread","message":"message"}"""
+	}
+	def "formats thread which logged event"() {
+		expect:
+		format(new LogEvent(0, Level.INFO, null, "message").withThread("logging-thread")) == """{"timestamp":0,"level":"INFO","thread":"logging-thread","message":"message"}"""
+		format(new LogEvent(0, Level.INFO, null, "message")) == """{"timestamp":0,"level":"INFO","message":"message"}"""
+	}
+
+	def "escapes message"() {
+		expect:
+		new JsonFormatter(false).format(Instant.ofEpochMilli(0), null, Level.INFO, message).endsWith(""","message":"$escaped"}""")
+
+		where:
+		message << ['plain', 'quote"', 'back\\slash', 'line\nbreak\r\t', '\u0001ctrl\u001f', 'unicode é中', '']
+		escaped << ['plain', 'quote\\"', 'back\\\\slash', 'line\\nbreak\\r\\t', '\\u0001ctrl\\u001f', 'unicode é中', '']
+	}
+	def "escapes resolved args"() {
+		expect:
+		format(new LogEvent(0, Level.INFO, null, "{} and {}", '"quoted"', 'new\nline')).endsWith(""","message":"\\"quoted\\" and new\\nline"}""")
+	}
+
+	def "formats field values"() {
+		LogEvent event = new LogEvent(0, Level.INFO, null, "message")
+		event.fields(["key"] as String[], [value] as Object[], 1)
+
+		expect:
+		format(event).endsWith(""","key":$json}""")
+
+		where:
+		value << [null, true, 1, 2L, 1.5d, 2.5f, Double.NaN, "string", 'quote"', new StringBuilder("sb"), { 4 } as Supplier, new Object() { String toString() { "obj" } }]
+		json << ['null', 'true', '1', '2', '1.5', '2.5', '"NaN"', '"string"', '"quote\\""', '"sb"', '4', '"obj"']
+	}
+	def "escapes field keys"() {
+		LogEvent event = new LogEvent(0, Level.INFO, null, "message")
+		event.fields(['a"key', "b"] as String[], [1, 2] as Object[], 2)
+
+		expect:
+		format(event).endsWith(""","a\\"key":1,"b":2}""")
+	}
+
+	def "formats context after fields"() {
+		LogEvent event = new LogEvent(0, Level.INFO, null, "message").withContext(LogContext.EMPTY.with("requestId", "r-1").with("attempt", 2))
+		event.fields(["key"] as String[], [1] as Object[], 1)
+
+		expect:
+		format(event).endsWith(""","key":1,"requestId":"r-1","attempt":2}""")
+	}
+
+	private static String format(LogEvent event) {
+		StringBuilder out = new StringBuilder()
+		new JsonFormatter(false).format(event, out)
+		return out.toString()
+	}
+}
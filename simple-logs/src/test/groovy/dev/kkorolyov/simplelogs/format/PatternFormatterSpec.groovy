@@ -0,0 +1,116 @@
+package dev.kkorolyov.simplelogs.format
+
+import dev.kkorolyov.simplelogs.Level
+import dev.kkorolyov.simplelogs.LogContext
+import dev.kkorolyov.simplelogs.LogEvent
+import dev.kkorolyov.simplelogs.Logger
+import dev.kkorolyov.simplelogs.append.Appender
+import dev.kkorolyov.simplelogs.append.Appenders
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.time.Instant
+import java.time.ZoneId
+import java.time.format.DateTimeFormatter
+
+class PatternFormatterSpec extends Specification {
+	StackTraceElement invoker = new StackTraceElement("some.Class", "method", "Class.java", 49)
+	@Shared long timestamp = 1_500_000_123_456L
+
+	def "formats conversions"() {
+		expect:
+		new PatternFormatter(pattern).format(Instant.ofEpochMilli(timestamp), invoker, Level.INFO, "message") == result
+
+		where:
+		pattern << ["%c#%M:%L", "%p: %m", "100%%", "[%-7p]", "[%7p]", "a%nb"]
+		result << ["some.Class#method:49", "INFO: message", "100%", "[INFO   ]", "[   INFO]", "a${System.lineSeparator()}b"]
+	}
+	def "formats timestamps"() {
+		expect:
+		format(new PatternFormatter("%d{$datePattern}"), new LogEvent(time, Level.INFO, invoker, "message")) == DateTimeFormatter.ofPattern(datePattern).withZone(ZoneId.systemDefault()).format(Instant.ofEpochMilli(time))
+
+		where:
+		[datePattern, time] << [
+				["yyyy.MM.dd-HH:mm:ss:SSS", "HH:mm:ss.SSS 'SSS'", "ss.SS", "ss.SSSSSS", "yyyy-MM-dd"],
+				[timestamp, timestamp + 1, timestamp + 999, timestamp + 1000, 0L, 7L]
+		].combinations()
+	}
+	def "formats timestamps in consecutive events"() {
+		PatternFormatter formatter = new PatternFormatter("%d{HH:mm:ss.SSS}")
+		DateTimeFormatter expected = DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault())
+
+		expect:
+		(0..2500).step(7).every {
+			long time = timestamp + it
+			format(formatter, new LogEvent(time, Level.INFO, invoker, "message")) == expected.format(Instant.ofEpochMilli(time))
+		}
+	}
+	def "formats message args"() {
+		expect:
+		format(new PatternFormatter("%m"), new LogEvent(timestamp, Level.INFO, invoker, "{} and {}", 1, "two")) == "1 and two"
+	}
+
+	def "uses invoker only if pattern does"() {
+		expect:
+		new PatternFormatter(pattern).usesInvoker() == uses
+
+		where:
+		pattern << ["%d %p: %m", "%c %m", "%M", "%5L"]
+		uses << [false, true, true, true]
+	}
+
+	def "rejects malformed patterns"() {
+		when:
+		new PatternFormatter(pattern)
+
+		then:
+		thrown IllegalArgumentException
+
+		where:
+		pattern << ["%", "%-5", "%q", "%d{HH:mm"]
+	}
+
+	def "formats context values"() {
+		LogEvent event = new LogEvent(timestamp, Level.INFO, invoker, "message").withContext(LogContext.EMPTY.with("requestId", "r-1"))
+
+		expect:
+		format(new PatternFormatter("[%X{requestId}] [%X{missing}] %m"), event) == "[r-1] [] message"
+		format(new PatternFormatter("%X"), event) == "{requestId=r-1}"
+	}
+
+	def "formats thread which logged event"() {
+		List<String> appended = Collections.synchronizedList([])
+		Appender async = Appenders.async(new Appender(Level.INFO) {
+			@Override
+			protected void append(String message) {
+				appended << message
+			}
+		})
+		Logger logger = Logger.getLogger(UUID.randomUUID().toString(), Level.INFO, new PatternFormatter("%t: %m"), async)
+
+		when:
+		Thread thread = new Thread({ logger.exception(new IllegalStateException()) }, "logging-thread")	// Formatted later on drain thread
+		thread.start()
+		thread.join()
+		async.flush()
+
+		then:
+		appended.size() == 1
+		appended[0].startsWith("logging-thread: ")
+
+		cleanup:
+		async.close()
+	}
+	def "simple formatter matches legacy layout"() {
+		expect:
+		Formatters.simple().format(Instant.ofEpochMilli(timestamp), invoker, Level.WARNING, "message") ==
+				DateTimeFormatter.ofPattern("yyyy.MM.dd-HH:mm:ss:SSS").withZone(ZoneId.systemDefault()).format(Instant.ofEpochMilli(timestamp)) +
+				" some.Class#method" + System.lineSeparator() + "WARNING: message"
+	}
+
+	private static String format(Formatter formatter, LogEvent event) {
+		StringBuilder out = new StringBuilder()
+		formatter.format(event, out)
+		return out.toString()
+	}
+}
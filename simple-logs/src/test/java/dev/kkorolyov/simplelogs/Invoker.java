@@ -16,4 +16,7 @@ public class Invoker {
 	static void log(int level, String message, Object... args) {
 		logger.log(level, message, args);
 	}
+	static void logAt(int level, String message) {
+		logger.at(level).with("key", "value").log(message);
+	}
 }
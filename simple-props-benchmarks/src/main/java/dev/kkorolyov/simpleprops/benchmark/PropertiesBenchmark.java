@@ -0,0 +1,84 @@
+package dev.kkorolyov.simpleprops.benchmark;
+
+import dev.kkorolyov.simpleprops.ConcurrentProperties;
+import dev.kkorolyov.simpleprops.FrozenProperties;
+import dev.kkorolyov.simpleprops.Properties;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Measures concurrent reads from 4 threads of {@code size} properties held by a {@link Properties}, its {@link Properties#freeze() frozen} snapshot, or a {@link ConcurrentProperties}.
+ * Each thread reads keys in its own scattered order, so that lookups are not served by a single hot entry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class PropertiesBenchmark {
+	/** Number of properties */
+	@Param({"16", "10000"})
+	int size;
+	/** {@code properties}, {@code frozen}, or {@code concurrent} */
+	@Param({"properties", "frozen", "concurrent"})
+	String type;
+
+	private String[] keys;
+	private Function<String, String> get;
+	private Function<String, String[]> getArray;
+
+	@Setup
+	public void setup() {
+		Properties properties = new Properties();
+		keys = new String[size];
+		for (int i = 0; i < size; i++) {
+			keys[i] = "key" + i;
+			properties.put(keys[i], "value" + i + ", other" + i);
+		}
+
+		switch (type) {
+			case "properties":
+				get = properties::get;
+				getArray = properties::getArray;
+				break;
+			case "frozen":
+				FrozenProperties frozen = properties.freeze();
+				get = frozen::get;
+				getArray = frozen::getArray;
+				break;
+			case "concurrent":
+				ConcurrentProperties concurrent = new ConcurrentProperties(properties);
+				get = concurrent::get;
+				getArray = concurrent::getArray;
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown type: " + type);
+		}
+	}
+
+	/** Position of a single thread within the keys */
+	@State(Scope.Thread)
+	public static class Cursor {
+		private static final int STRIDE = 7919;	// Prime, so every key is visited
+
+		private int position;
+
+		int next(int size) {
+			position = (position + STRIDE) % size;
+			return position;
+		}
+	}
+
+	@Benchmark
+	public String get(Cursor cursor) {
+		return get.apply(keys[cursor.next(size)]);
+	}
+	@Benchmark
+	public String[] getArray(Cursor cursor) {
+		return getArray.apply(keys[cursor.next(size)]);
+	}
+}
@@ -0,0 +1,492 @@
+// Copyright (c) 2017, Kirill Korolyov
+// All rights reserved.
+// 
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+// 
+// * Redistributions of source code must retain the above copyright notice, this
+//   list of conditions and the following disclaimer.
+// 
+// * Redistributions in binary form must reproduce the above copyright notice,
+//   this list of conditions and the following disclaimer in the documentation
+//   and/or other materials provided with the distribution.
+// 
+// * Neither the name of SimpleProps nor the names of its
+//   contributors may be used to endorse or promote products derived from
+//   this software without specific prior written permission.
+// 
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+// OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package dev.kkorolyov.simpleprops;
+
+import java.util.*;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * A thread-safe collection of key-value properties which maintain original insertion order.
+ * <p>Properties are held in an immutable version, which readers read without locking or retrying.
+ * Writers apply changes to a copy of the current version, and atomically publish it as the next version.
+ * Versions are hash array mapped tries, so a copy shares all but the changed paths of the trie with its previous version.</p>
+ * <p>Changes are applied in batches with {@link #update(Consumer)} or {@link #replace(Properties)}; readers see either all or none of a batch.
+ * Concurrent writers do not block each other, but a writer which loses a race to publish reapplies its batch to the winning version.</p>
+ * <p>Unlike {@link Properties}, comments and blank lines are not retained, and {@code null} keys and values are not permitted.</p>
+ */
+public final class ConcurrentProperties implements Iterable<Entry<String, String>> {
+	private final AtomicReference<Version> version = new AtomicReference<>(Version.EMPTY);
+
+	/**
+	 * Constructs a new, empty collection of properties.
+	 */
+	public ConcurrentProperties() {
+		// Nothing special
+	}
+	/**
+	 * Constructs a collection of properties initialized to match the properties of {@code defaults}.
+	 * @param defaults initial properties
+	 */
+	public ConcurrentProperties(Properties defaults) {
+		replace(defaults);
+	}
+
+	/**
+	 * Retrieves the value of the property identified by {@code key}.
+	 * @param key identifier of property to retrieve
+	 * @return property value, or {@code null} if no such property
+	 */
+	public String get(String key) {
+		Leaf leaf = version.get().find(key);
+		return leaf == null ? null : leaf.value;
+	}
+	/**
+	 * Retrieves a property value as an array.
+	 * @param key identifier of property to retrieve
+	 * @return property value parsed as an array, or {@code null} if no such property
+	 * @see Properties#getArray(String)
+	 */
+	public String[] getArray(String key) {
+		String value = get(key);
+		return value == null ? null : Properties.parseArray(value);
+	}
+
+	/**
+	 * @param key identifier of property to check existence of
+	 * @return {@code true} if this object contains a property identified by {@code key}
+	 */
+	public boolean contains(String key) {
+		return version.get().find(key) != null;
+	}
+
+	/** @return all property identifiers of the current version, in insertion order */
+	public Iterable<String> keys() {
+		List<String> keys = new ArrayList<>();
+		for (Leaf leaf : version.get().leaves()) keys.add(leaf.key);
+		return keys;
+	}
+
+	/**
+	 * Returns an iterator over all properties of the current version in insertion order.
+	 * The iterator is unaffected by subsequent changes.
+	 * @return iterator over properties, in insertion order
+	 */
+	@Override
+	public Iterator<Entry<String, String>> iterator() {
+		Iterator<Leaf> leaves = version.get().leaves().iterator();
+
+		return new Iterator<Entry<String, String>>() {
+			@Override
+			public boolean hasNext() {
+				return leaves.hasNext();
+			}
+			@Override
+			public Entry<String, String> next() {
+				Leaf leaf = leaves.next();
+				return new AbstractMap.SimpleImmutableEntry<>(leaf.key, leaf.value);
+			}
+		};
+	}
+
+	/**
+	 * Appends a new property or updates an existing property identified by {@code key}.
+	 * @param key identifier of property to add or update
+	 * @param value property value
+	 * @return previous value associated with {@code key}, or {@code null} if no such value
+	 * @throws NullPointerException if {@code key} or {@code value} is {@code null}
+	 */
+	public String put(String key, String value) {
+		Batch batch = new Batch().put(key, value);
+		return apply(batch).previous;
+	}
+	/**
+	 * Removes the property identified by {@code key}.
+	 * @param key identifier of property to remove
+	 * @return removed property's value, or {@code null} if no such property
+	 */
+	public String remove(String key) {
+		Batch batch = new Batch().remove(key);
+		return apply(batch).previous;
+	}
+
+	/**
+	 * Atomically applies a batch of changes.
+	 * <pre>props.update(batch -&gt; batch.put("a", "1").put("b", "2").remove("c"));</pre>
+	 * @param changes populates the batch of changes to apply; invoked once
+	 * @return number of appended, updated, and removed properties
+	 */
+	public int update(Consumer<Batch> changes) {
+		Batch batch = new Batch();
+		changes.accept(batch);
+		return apply(batch).changed;
+	}
+	/**
+	 * Atomically replaces all properties with the properties of another {@code Properties} instance, e.g. on reload.
+	 * @param properties properties to replace with
+	 */
+	public void replace(Properties properties) {
+		Version next = Version.EMPTY;
+		for (Entry<String, String> prop : properties) next = next.put(Objects.requireNonNull(prop.getKey(), "key"), Objects.requireNonNull(prop.getValue(), "value"), new Result());
+
+		version.set(next);
+	}
+
+	private Result apply(Batch batch) {
+		while (true) {
+			Version current = version.get();
+			Version next = current;
+			Result result = new Result();
+
+			for (int i = 0; i < batch.keys.size(); i++) {
+				String value = batch.values.get(i);
+				next = value != null
+						? next.put(batch.keys.get(i), value, result)
+						: next.remove(batch.keys.get(i), result);
+			}
+			if (next == current || version.compareAndSet(current, next)) return result;
+		}
+	}
+
+	/**
+	 * Returns an immutable snapshot of the current version, optimized for repeated lookups.
+	 * @return snapshot of properties
+	 */
+	public FrozenProperties freeze() {
+		return new FrozenProperties(this);
+	}
+
+	/** @return {@code true} if the current version contains zero properties */
+	public boolean isEmpty() {
+		return size() <= 0;
+	}
+	/** @return number of properties in the current version */
+	public int size() {
+		return version.get().size;
+	}
+
+	/**
+	 * Returns a string containing all properties of the current version in insertion order.
+	 * @return string consisting of properties in insertion order
+	 */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(getClass().getName() + " {");
+		for (Leaf leaf : version.get().leaves()) {
+			if (builder.charAt(builder.length() - 1) != '{') builder.append(", ");
+			builder.append(leaf.key).append('=').append(leaf.value);
+		}
+		return builder.append("}").toString();
+	}
+
+	/**
+	 * A sequence of puts and removes applied together.
+	 * Changes are applied in the order they were added.
+	 */
+	public static final class Batch {
+		private final List<String> keys = new ArrayList<>();
+		private final List<String> values = new ArrayList<>();	// null to remove
+
+		private Batch() {}
+
+		/**
+		 * Appends a new property or updates an existing property identified by {@code key}.
+		 * @param key identifier of property to add or update
+		 * @param value property value
+		 * @return this batch
+		 * @throws NullPointerException if {@code key} or {@code value} is {@code null}
+		 */
+		public Batch put(String key, String value) {
+			keys.add(Objects.requireNonNull(key, "key"));
+			values.add(Objects.requireNonNull(value, "value"));
+			return this;
+		}
+		/**
+		 * Appends a new property or updates an existing property identified by {@code key} with multiple values.
+		 * @param key identifier of property to add or update
+		 * @param values property values
+		 * @return this batch
+		 */
+		public Batch put(String key, String... values) {
+			return put(key, Arrays.toString(values));
+		}
+		/**
+		 * Removes the property identified by {@code key}.
+		 * @param key identifier of property to remove
+		 * @return this batch
+		 */
+		public Batch remove(String key) {
+			keys.add(Objects.requireNonNull(key, "key"));
+			values.add(null);
+			return this;
+		}
+	}
+
+	/** Outcome of applying changes to a version. */
+	private static final class Result {
+		String previous;
+		int changed;
+	}
+
+	/** An immutable hash array mapped trie of properties. */
+	private static final class Version {
+		static final Version EMPTY = new Version(BitmapNode.EMPTY, 0, 0);
+
+		final BitmapNode root;
+		final int size;
+		final long nextOrder;	// Insertion order of the next new property
+
+		Version(BitmapNode root, int size, long nextOrder) {
+			this.root = root;
+			this.size = size;
+			this.nextOrder = nextOrder;
+		}
+
+		Leaf find(String key) {
+			return root.find(hash(key), key, 0);
+		}
+
+		Version put(String key, String value, Result result) {
+			int hash = hash(key);
+			Leaf existing = root.find(hash, key, 0);
+			if (existing != null && existing.value.equals(value)) return this;
+
+			result.previous = existing == null ? null : existing.value;
+			result.changed++;
+
+			Leaf leaf = new Leaf(hash, key, value, existing == null ? nextOrder : existing.order);	// Updates keep their original position
+			return new Version((BitmapNode) root.put(leaf, 0), existing == null ? size + 1 : size, existing == null ? nextOrder + 1 : nextOrder);
+		}
+		Version remove(String key, Result result) {
+			int hash = hash(key);
+			Leaf existing = root.find(hash, key, 0);
+			if (existing == null) return this;
+
+			result.previous = existing.value;
+			result.changed++;
+
+			Node root = this.root.remove(hash, key, 0);
+			return new Version(root != null ? (BitmapNode) root : BitmapNode.EMPTY, size - 1, nextOrder);
+		}
+
+		/** @return all properties, in insertion order */
+		List<Leaf> leaves() {
+			List<Leaf> leaves = new ArrayList<>(size);
+			root.collect(leaves);
+			leaves.sort(Comparator.comparingLong(leaf -> leaf.order));
+			return leaves;
+		}
+
+		private static int hash(String key) {
+			int hash = key.hashCode() * 0x9E3779B9;	// Spread low bits of similar keys
+			return hash ^ (hash >>> 16);
+		}
+	}
+
+	private interface Node {
+		int BITS = 5;
+		int MASK = (1 << BITS) - 1;
+
+		Leaf find(int hash, String key, int shift);
+		/** @return node with {@code leaf} added or replacing the leaf with the same key */
+		Node put(Leaf leaf, int shift);
+		/** @return node without the leaf with {@code key}, or {@code null} if empty */
+		Node remove(int hash, String key, int shift);
+		void collect(List<Leaf> out);
+	}
+
+	/** A property, which is also a trie node containing only itself. */
+	private static final class Leaf {
+		final int hash;
+		final String key;
+		final String value;
+		final long order;
+
+		Leaf(int hash, String key, String value, long order) {
+			this.hash = hash;
+			this.key = key;
+			this.value = value;
+			this.order = order;
+		}
+	}
+
+	/** A node with up to 32 children, each a {@link Leaf} or {@link Node}, present as indicated by a bitmap. */
+	private static final class BitmapNode implements Node {
+		static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+		final int bitmap;
+		final Object[] children;
+
+		BitmapNode(int bitmap, Object[] children) {
+			this.bitmap = bitmap;
+			this.children = children;
+		}
+
+		@Override
+		public Leaf find(int hash, String key, int shift) {
+			int bit = 1 << ((hash >>> shift) & MASK);
+			if ((bitmap & bit) == 0) return null;
+
+			Object child = children[Integer.bitCount(bitmap & (bit - 1))];
+			if (child instanceof Leaf) {
+				Leaf leaf = (Leaf) child;
+				return leaf.hash == hash && leaf.key.equals(key) ? leaf : null;
+			}
+			return ((Node) child).find(hash, key, shift + BITS);
+		}
+
+		@Override
+		public Node put(Leaf leaf, int shift) {
+			int bit = 1 << ((leaf.hash >>> shift) & MASK);
+			int i = Integer.bitCount(bitmap & (bit - 1));
+
+			if ((bitmap & bit) == 0) {
+				Object[] inserted = new Object[children.length + 1];
+				System.arraycopy(children, 0, inserted, 0, i);
+				inserted[i] = leaf;
+				System.arraycopy(children, i, inserted, i + 1, children.length - i);
+				return new BitmapNode(bitmap | bit, inserted);
+			}
+			Object child = children[i];
+			Object replacement;
+			if (child instanceof Leaf) {
+				Leaf existing = (Leaf) child;
+				replacement = existing.hash == leaf.hash && existing.key.equals(leaf.key)
+						? leaf
+						: merge(existing, leaf, shift + BITS);
+			} else {
+				replacement = ((Node) child).put(leaf, shift + BITS);
+			}
+			Object[] replaced = children.clone();
+			replaced[i] = replacement;
+			return new BitmapNode(bitmap, replaced);
+		}
+		private static Node merge(Leaf a, Leaf b, int shift) {
+			if (a.hash == b.hash || shift >= Integer.SIZE) return new CollisionNode(a.hash, new Leaf[]{a, b});
+
+			int bitA = 1 << ((a.hash >>> shift) & MASK);
+			int bitB = 1 << ((b.hash >>> shift) & MASK);
+			if (bitA == bitB) return new BitmapNode(bitA, new Object[]{merge(a, b, shift + BITS)});
+
+			return new BitmapNode(bitA | bitB, Integer.compareUnsigned(bitA, bitB) < 0 ? new Object[]{a, b} : new Object[]{b, a});
+		}
+
+		@Override
+		public Node remove(int hash, String key, int shift) {
+			int bit = 1 << ((hash >>> shift) & MASK);
+			if ((bitmap & bit) == 0) return this;
+			int i = Integer.bitCount(bitmap & (bit - 1));
+
+			Object child = children[i];
+			Object replacement = child instanceof Leaf
+					? null	// Only invoked on the path to a present key, so this is the leaf to remove
+					: ((Node) child).remove(hash, key, shift + BITS);
+
+			if (replacement != null) {
+				Object[] replaced = children.clone();
+				replaced[i] = replacement;
+				return new BitmapNode(bitmap, replaced);
+			}
+			if (children.length == 1) return null;
+
+			Object[] removed = new Object[children.length - 1];
+			System.arraycopy(children, 0, removed, 0, i);
+			System.arraycopy(children, i + 1, removed, i, children.length - i - 1);
+			return new BitmapNode(bitmap & ~bit, removed);
+		}
+
+		@Override
+		public void collect(List<Leaf> out) {
+			for (Object child : children) {
+				if (child instanceof Leaf) out.add((Leaf) child);
+				else ((Node) child).collect(out);
+			}
+		}
+	}
+
+	/** A node of leaves whose keys have identical hashes. */
+	private static final class CollisionNode implements Node {
+		final int hash;
+		final Leaf[] leaves;
+
+		CollisionNode(int hash, Leaf[] leaves) {
+			this.hash = hash;
+			this.leaves = leaves;
+		}
+
+		@Override
+		public Leaf find(int hash, String key, int shift) {
+			if (hash != this.hash) return null;
+
+			for (Leaf leaf : leaves) {
+				if (leaf.key.equals(key)) return leaf;
+			}
+			return null;
+		}
+
+		@Override
+		public Node put(Leaf leaf, int shift) {
+			if (leaf.hash != hash) {	// Split into a bitmap node at this level
+				return new BitmapNode(1 << ((hash >>> shift) & MASK), new Object[]{this}).put(leaf, shift);
+			}
+			for (int i = 0; i < leaves.length; i++) {
+				if (leaves[i].key.equals(leaf.key)) {
+					Leaf[] replaced = leaves.clone();
+					replaced[i] = leaf;
+					return new CollisionNode(hash, replaced);
+				}
+			}
+			Leaf[] appended = Arrays.copyOf(leaves, leaves.length + 1);
+			appended[leaves.length] = leaf;
+			return new CollisionNode(hash, appended);
+		}
+
+		@Override
+		public Node remove(int hash, String key, int shift) {
+			for (int i = 0; i < leaves.length; i++) {
+				if (leaves[i].key.equals(key)) {
+					if (leaves.length == 1) return null;
+
+					Leaf[] removed = new Leaf[leaves.length - 1];
+					System.arraycopy(leaves, 0, removed, 0, i);
+					System.arraycopy(leaves, i + 1, removed, i, leaves.length - i - 1);
+					return new CollisionNode(hash, removed);
+				}
+			}
+			return this;
+		}
+
+		@Override
+		public void collect(List<Leaf> out) {
+			Collections.addAll(out, leaves);
+		}
+	}
+}
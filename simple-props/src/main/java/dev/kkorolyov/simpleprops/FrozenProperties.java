@@ -0,0 +1,181 @@
+// Copyright (c) 2017, Kirill Korolyov
+// All rights reserved.
+// 
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+// 
+// * Redistributions of source code must retain the above copyright notice, this
+//   list of conditions and the following disclaimer.
+// 
+// * Redistributions in binary form must reproduce the above copyright notice,
+//   this list of conditions and the following disclaimer in the documentation
+//   and/or other materials provided with the distribution.
+// 
+// * Neither the name of SimpleProps nor the names of its
+//   contributors may be used to endorse or promote products derived from
+//   this software without specific prior written permission.
+// 
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+// OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package dev.kkorolyov.simpleprops;
+
+import java.util.*;
+import java.util.Map.Entry;
+
+/**
+ * An immutable snapshot of the properties of a {@link Properties} or {@link ConcurrentProperties}, excluding comments and blank lines, optimized for concurrent lookups.
+ * Keys and values are packed into arrays in insertion order, indexed by an open-addressing table which stores each key's hash alongside its index, so most missed probes are rejected without comparing keys.
+ * Instances are safe to read from any number of threads without locking.
+ */
+public final class FrozenProperties implements Iterable<Entry<String, String>> {
+	private final String[] keys;
+	private final String[] values;
+	private final long[] table;	// Key hash in the high 32 bits, index + 1 in the low 32 bits; 0 if empty
+	private final int mask;
+
+	private final ParsedArray[] arrays;	// Values parsed as arrays, lazily
+
+	FrozenProperties(Iterable<Entry<String, String>> props) {
+		List<String> keys = new ArrayList<>();
+		List<String> values = new ArrayList<>();
+		for (Entry<String, String> prop : props) {
+			keys.add(prop.getKey());
+			values.add(prop.getValue());
+		}
+		this.keys = keys.toArray(new String[0]);
+		this.values = values.toArray(new String[0]);
+		arrays = new ParsedArray[this.keys.length];
+
+		int capacity = Integer.highestOneBit(Math.max(this.keys.length, 1) * 2 - 1) << 1;	// Load factor <= 0.5
+		table = new long[capacity];
+		mask = capacity - 1;
+
+		for (int i = 0; i < this.keys.length; i++) {
+			int hash = hash(this.keys[i]);
+
+			int slot = hash & mask;
+			while (table[slot] != 0) slot = (slot + 1) & mask;
+			table[slot] = ((long) hash << 32) | (i + 1);
+		}
+	}
+
+	private static int hash(String key) {
+		int hash = key == null ? 0 : key.hashCode() * 0x9E3779B9;	// Spread low bits of similar keys
+		return hash ^ (hash >>> 16);
+	}
+	private int indexOf(String key) {
+		int hash = hash(key);
+
+		for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+			long entry = table[slot];
+			if (entry == 0) return -1;
+
+			if ((int) (entry >>> 32) == hash) {
+				int i = (int) entry - 1;
+				if (Objects.equals(keys[i], key)) return i;
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the value of the property identified by {@code key}.
+	 * @param key identifier of property to retrieve
+	 * @return property value, or {@code null} if no such property
+	 */
+	public String get(String key) {
+		int i = indexOf(key);
+		return i < 0 ? null : values[i];
+	}
+	/**
+	 * Retrieves a property value as an array.
+	 * Each value is parsed at most once, and a copy of the parsed array is returned.
+	 * @param key identifier of property to retrieve
+	 * @return property value parsed as an array, or {@code null} if no such property
+	 * @see Properties#getArray(String)
+	 */
+	public String[] getArray(String key) {
+		int i = indexOf(key);
+		if (i < 0 || values[i] == null) return null;
+
+		ParsedArray parsed = arrays[i];
+		if (parsed == null) arrays[i] = parsed = new ParsedArray(Properties.parseArray(values[i]));	// Benign race, as parsing is idempotent
+
+		return parsed.array.clone();
+	}
+
+	/**
+	 * @param key identifier of property to check existence of
+	 * @return {@code true} if this snapshot contains a property identified by {@code key}
+	 */
+	public boolean contains(String key) {
+		return indexOf(key) >= 0;
+	}
+
+	/** @return all property identifiers, in insertion order */
+	public Iterable<String> keys() {
+		return Collections.unmodifiableList(Arrays.asList(keys));
+	}
+
+	/** @return iterator over properties, in insertion order */
+	@Override
+	public Iterator<Entry<String, String>> iterator() {
+		return new Iterator<Entry<String, String>>() {
+			private int i;
+
+			@Override
+			public boolean hasNext() {
+				return i < keys.length;
+			}
+			@Override
+			public Entry<String, String> next() {
+				if (!hasNext()) throw new NoSuchElementException();
+
+				Entry<String, String> entry = new AbstractMap.SimpleImmutableEntry<>(keys[i], values[i]);
+				i++;
+				return entry;
+			}
+		};
+	}
+
+	/** @return {@code true} if this snapshot contains zero properties */
+	public boolean isEmpty() {
+		return keys.length == 0;
+	}
+	/** @return number of properties */
+	public int size() {
+		return keys.length;
+	}
+
+	/**
+	 * Returns a string containing all properties in insertion order.
+	 * @return string consisting of properties in insertion order
+	 */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(getClass().getName() + " {");
+		for (int i = 0; i < keys.length; i++) {
+			if (i > 0) builder.append(", ");
+			builder.append(keys[i]).append('=').append(values[i]);
+		}
+		return builder.append("}").toString();
+	}
+
+	/** Publishes a parsed array safely through a final field. */
+	private static final class ParsedArray {
+		final String[] array;
+
+		ParsedArray(String[] array) {
+			this.array = array;
+		}
+	}
+}
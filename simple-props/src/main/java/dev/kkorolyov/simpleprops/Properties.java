@@ -29,6 +29,9 @@
 package dev.kkorolyov.simpleprops;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
@@ -40,10 +43,12 @@ import java.util.stream.Collectors;
  */
 public final class Properties implements Iterable<Entry<String, String>> {
 	private static final String PROPERTY_DELIMETER = "=",
-															COMMENT_IDENTIFIER = "#";
+															COMMENT_IDENTIFIER = "#",
+															FILLER_PREFIX = "\0filler-";
 	
 	private final Map<String, String> props = new LinkedHashMap<>();
 	private final Set<String> fillers = new HashSet<>();
+	private int fillerCount;
 	
 	/**
 	 * Constructs a new, empty collection of properties.
@@ -90,7 +95,10 @@ public final class Properties implements Iterable<Entry<String, String>> {
 	 */
 	public String[] getArray(String key) {
 		String value = get(key);
-		return value == null ? null : value.replaceFirst("^\\[", "").replaceFirst("\\]$", "").split(",\\s?");	// Trim optional outer brackets and split on array delimiter
+		return value == null ? null : parseArray(value);
+	}
+	static String[] parseArray(String value) {
+		return value.replaceFirst("^\\[", "").replaceFirst("\\]$", "").split(",\\s?");	// Trim optional outer brackets and split on array delimiter
 	}
 	
 	/** 
@@ -207,7 +215,7 @@ public final class Properties implements Iterable<Entry<String, String>> {
 	
 	private void put(String value) {
 		String filler;
-		while (fillers.contains((filler = UUID.randomUUID().toString())));	// Randomize until unique filler
+		while (props.containsKey((filler = FILLER_PREFIX + fillerCount++)));	// Count until unique filler
 		
 		fillers.add(filler);
 		put(filler, value);
@@ -216,6 +224,15 @@ public final class Properties implements Iterable<Entry<String, String>> {
 		return fillers.contains(key);
 	}
 	
+	/**
+	 * Returns an immutable snapshot of the current properties, excluding comments and blank lines.
+	 * The snapshot is unaffected by subsequent changes to this instance, and may be read concurrently by any number of threads.
+	 * @return snapshot of properties
+	 */
+	public FrozenProperties freeze() {
+		return new FrozenProperties(this);
+	}
+
 	/** @return {@code true} if this object contains zero properties */
 	public boolean isEmpty() {
 		return size() <= 0;
@@ -235,36 +252,26 @@ public final class Properties implements Iterable<Entry<String, String>> {
 	}
 	
 	/**
-	 * Parses properties and filler from a path and applies them to this instance.
+	 * Parses properties and filler from a UTF-8 file and applies them to this instance.
+	 * The file is memory-mapped and scanned in place.
 	 * @param file path to properties to read
 	 * @throws UncheckedIOException if an I/O error occurs
 	 */
 	public void load(Path file) {
-		try {
-			load(Files.newInputStream(file));
+		try (FileChannel channel = FileChannel.open(file)) {
+			new PropertiesParser(this).parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
 		} catch (IOException e) {
 			throw new UncheckedIOException(e);
 		}
 	}
 	/**
-	 * Parses properties and filler from an input stream and applies them to this instance.
+	 * Parses properties and filler from a UTF-8 input stream and applies them to this instance.
 	 * @param stream input stream of properties to read
 	 * @throws UncheckedIOException if an I/O error occurs
 	 */
 	public void load(InputStream stream) {
-		try (BufferedReader in = new BufferedReader(new InputStreamReader(stream))) {
-			String line;
-			while ((line = in.readLine()) != null) {
-				String[] splitLine = line.split("\\s*" + PROPERTY_DELIMETER + "\\s*", 2);	// Trim whitespace around delimiter
-
-				if (splitLine.length < 1) putBlankLine();
-				else if (isComment(splitLine[0])) putComment(splitLine[0]);
-				else if (splitLine.length < 2) {
-					if (splitLine[0].length() < 1) putBlankLine();
-					else put(splitLine[0], "");
-				}
-				else put(splitLine[0], splitLine[1]);
-			}
+		try (InputStream in = stream) {
+			new PropertiesParser(this).parse(ByteBuffer.wrap(in.readAllBytes()));
 		} catch (IOException e) {
 			throw new UncheckedIOException(e);
 		}
@@ -292,7 +299,7 @@ public final class Properties implements Iterable<Entry<String, String>> {
 	 * @throws UncheckedIOException if an I/O error occurs
 	 */
 	public void save(OutputStream stream) {
-		try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(stream))) {
+		try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8))) {
 			for (Entry<String, String> prop : props.entrySet()) {
 				out.write(toString(prop));
 				out.newLine();
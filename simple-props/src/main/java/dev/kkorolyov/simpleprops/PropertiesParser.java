@@ -0,0 +1,107 @@
+// Copyright (c) 2017, Kirill Korolyov
+// All rights reserved.
+// 
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+// 
+// * Redistributions of source code must retain the above copyright notice, this
+//   list of conditions and the following disclaimer.
+// 
+// * Redistributions in binary form must reproduce the above copyright notice,
+//   this list of conditions and the following disclaimer in the documentation
+//   and/or other materials provided with the distribution.
+// 
+// * Neither the name of SimpleProps nor the names of its
+//   contributors may be used to endorse or promote products derived from
+//   this software without specific prior written permission.
+// 
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+// OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package dev.kkorolyov.simpleprops;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses properties, comments, and blank lines from bytes with a single-pass scanner.
+ * Each line is split on its first {@code =}, with whitespace around it trimmed; a line with no {@code =} is a key with an empty value, and a line starting with {@code #} is a comment.
+ * Lines end at {@code \n}, {@code \r}, or {@code \r\n}.
+ * <p>Bytes are decoded as UTF-8, but only the key and value of each line are decoded, and lines of only ASCII bytes are copied straight into strings without decoding.</p>
+ */
+final class PropertiesParser {
+	private static final byte DELIMITER = '=';
+	private static final byte COMMENT = '#';
+
+	private final Properties props;
+	private byte[] scratch = new byte[256];
+
+	PropertiesParser(Properties props) {
+		this.props = props;
+	}
+
+	/**
+	 * Parses all lines from the current position to the limit of a buffer, and applies them to this parser's properties.
+	 * @param bytes bytes to parse
+	 */
+	void parse(ByteBuffer bytes) {
+		int limit = bytes.limit();
+		int lineStart = bytes.position();
+
+		while (lineStart < limit) {
+			int delimiter = -1;
+			int bits = 0;	// OR of all bytes, negative if any non-ASCII
+
+			int lineEnd = lineStart;
+			for (byte b; lineEnd < limit && (b = bytes.get(lineEnd)) != '\n' && b != '\r'; lineEnd++) {
+				if (b == DELIMITER && delimiter < 0) delimiter = lineEnd;
+				bits |= b;
+			}
+			parseLine(bytes, lineStart, lineEnd, delimiter, bits >= 0 ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+
+			lineStart = lineEnd + 1;
+			if (lineEnd < limit && bytes.get(lineEnd) == '\r' && lineStart < limit && bytes.get(lineStart) == '\n') lineStart++;
+		}
+	}
+	private void parseLine(ByteBuffer bytes, int start, int end, int delimiter, Charset charset) {
+		int keyEnd = end;
+		int valueStart = end;
+		if (delimiter >= 0) {
+			keyEnd = delimiter;
+			while (keyEnd > start && isWhitespace(bytes.get(keyEnd - 1))) keyEnd--;
+			valueStart = delimiter + 1;
+			while (valueStart < end && isWhitespace(bytes.get(valueStart))) valueStart++;
+		}
+		if (keyEnd > start && bytes.get(start) == COMMENT) props.putComment(decode(bytes, start, keyEnd, charset));
+		else if (delimiter >= 0) props.put(decode(bytes, start, keyEnd, charset), decode(bytes, valueStart, end, charset));
+		else if (keyEnd > start) props.put(decode(bytes, start, keyEnd, charset), "");
+		else props.putBlankLine();
+	}
+
+	private String decode(ByteBuffer bytes, int start, int end, Charset charset) {
+		int length = end - start;
+		if (length == 0) return "";
+
+		if (bytes.hasArray()) return new String(bytes.array(), bytes.arrayOffset() + start, length, charset);
+
+		if (scratch.length < length) scratch = new byte[Math.max(length, scratch.length * 2)];
+		bytes.position(start);
+		bytes.get(scratch, 0, length);
+		return new String(scratch, 0, length, charset);
+	}
+
+	/** @return {@code true} if {@code b} matches the regex {@code \s} */
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+	}
+}
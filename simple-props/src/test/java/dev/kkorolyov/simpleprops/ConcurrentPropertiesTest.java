@@ -0,0 +1,203 @@
+// Copyright (c) 2017, Kirill Korolyov
+// All rights reserved.
+// 
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+// 
+// * Redistributions of source code must retain the above copyright notice, this
+//   list of conditions and the following disclaimer.
+// 
+// * Redistributions in binary form must reproduce the above copyright notice,
+//   this list of conditions and the following disclaimer in the documentation
+//   and/or other materials provided with the distribution.
+// 
+// * Neither the name of SimpleProps nor the names of its
+//   contributors may be used to endorse or promote products derived from
+//   this software without specific prior written permission.
+// 
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+// OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package dev.kkorolyov.simpleprops;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentPropertiesTest {
+	@Test
+	public void shouldReturnOriginalValueOnGetWhenPut() {
+		ConcurrentProperties props = new ConcurrentProperties();
+
+		assertNull(props.put("Key", "Value"));
+		assertEquals("Value", props.get("Key"));
+		assertEquals("Value", props.put("Key", "Other"));
+		assertEquals("Other", props.get("Key"));
+	}
+	@Test
+	public void shouldReturnNullOnGetWhenRemoved() {
+		ConcurrentProperties props = new ConcurrentProperties(generateProperties(100));
+
+		assertEquals("Val-4", props.remove("Key-4"));
+		assertNull(props.get("Key-4"));
+		assertNull(props.remove("Key-4"));
+		assertEquals(99, props.size());
+	}
+	@Test
+	public void shouldGetArrayLikeProperties() {
+		Properties original = new Properties();
+		original.put("Array", "1", "2", "3");
+		ConcurrentProperties props = new ConcurrentProperties(original);
+
+		assertArrayEquals(original.getArray("Array"), props.getArray("Array"));
+	}
+
+	@Test
+	public void shouldIteratePropertiesInInsertionOrder() {
+		Properties original = generateProperties(500);
+		ConcurrentProperties props = new ConcurrentProperties(original);
+		props.put("Key-7", "Updated");
+		original.put("Key-7", "Updated");
+
+		Iterator<Entry<String, String>> expected = original.iterator();
+		for (Entry<String, String> prop : props) assertEquals(expected.next(), prop);
+		assertFalse(expected.hasNext());
+	}
+	@Test
+	public void shouldMatchPropertiesAfterRandomChanges() {
+		Properties expected = new Properties();
+		ConcurrentProperties props = new ConcurrentProperties();
+		Random rand = new Random(7);
+
+		for (int i = 0; i < 20_000; i++) {
+			String key = "Key-" + rand.nextInt(2_000);
+			if (rand.nextInt(3) == 0) assertEquals(expected.remove(key), props.remove(key));
+			else {
+				String value = "Val-" + i;
+				assertEquals(expected.put(key, value), props.put(key, value));
+			}
+		}
+		assertEquals(expected.size(), props.size());
+		assertEquals(expected.toString().replace(Properties.class.getName(), ""), props.toString().replace(ConcurrentProperties.class.getName(), ""));
+	}
+	@Test
+	public void shouldStoreKeysWithCollidingHashes() {
+		ConcurrentProperties props = new ConcurrentProperties();
+		props.update(batch -> batch.put("Aa", "1").put("BB", "2"));	// Same String hash code
+
+		assertEquals("1", props.get("Aa"));
+		assertEquals("2", props.get("BB"));
+
+		props.remove("Aa");
+
+		assertNull(props.get("Aa"));
+		assertEquals("2", props.get("BB"));
+	}
+
+	@Test
+	public void shouldApplyBatchAtomically() throws Exception {
+		ConcurrentProperties props = new ConcurrentProperties();
+		props.update(batch -> batch.put("A", "0").put("B", "0"));
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		AtomicBoolean done = new AtomicBoolean();
+		Future<Boolean> reader = executor.submit(() -> {
+			boolean consistent = true;
+			while (!done.get()) {
+				FrozenProperties snapshot = props.freeze();
+				consistent &= snapshot.get("A").equals(snapshot.get("B"));
+			}
+			return consistent;
+		});
+		Future<?> writer = executor.submit(() -> {
+			for (int i = 1; i <= 10_000; i++) {
+				String value = String.valueOf(i);
+				props.update(batch -> batch.put("A", value).put("B", value));
+			}
+			done.set(true);
+		});
+		writer.get();
+
+		assertTrue(reader.get());
+		assertEquals("10000", props.get("A"));
+
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.SECONDS);
+	}
+	@Test
+	public void shouldApplyAllConcurrentBatches() throws Exception {
+		ConcurrentProperties props = new ConcurrentProperties();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		List<Future<?>> writers = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			int thread = t;
+			writers.add(executor.submit(() -> {
+				for (int i = 0; i < 1_000; i++) {
+					String key = thread + "-" + i;
+					props.update(batch -> batch.put(key, "a").put(key + "-b", "b"));
+				}
+			}));
+		}
+		for (Future<?> writer : writers) writer.get();
+
+		assertEquals(8_000, props.size());
+
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void shouldReplaceAllProperties() {
+		ConcurrentProperties props = new ConcurrentProperties(generateProperties(10));
+		Properties replacement = new Properties();
+		replacement.put("New", "Value");
+
+		props.replace(replacement);
+
+		assertEquals(1, props.size());
+		assertNull(props.get("Key-0"));
+		assertEquals("Value", props.get("New"));
+	}
+	@Test
+	public void shouldCountChangesInBatch() {
+		ConcurrentProperties props = new ConcurrentProperties(generateProperties(2));
+
+		assertEquals(2, props.update(batch -> batch.put("Key-0", "Val-0").put("Key-1", "Changed").remove("Missing").put("New", "Value")));
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void shouldRejectNullValues() {
+		new ConcurrentProperties().put("Key", null);
+	}
+
+	private static Properties generateProperties(int num) {
+		Properties props = new Properties();
+		for (int i = 0; i < num; i++) props.put("Key-" + i, "Val-" + i);
+		return props;
+	}
+}
@@ -0,0 +1,158 @@
+// Copyright (c) 2017, Kirill Korolyov
+// All rights reserved.
+// 
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+// 
+// * Redistributions of source code must retain the above copyright notice, this
+//   list of conditions and the following disclaimer.
+// 
+// * Redistributions in binary form must reproduce the above copyright notice,
+//   this list of conditions and the following disclaimer in the documentation
+//   and/or other materials provided with the distribution.
+// 
+// * Neither the name of SimpleProps nor the names of its
+//   contributors may be used to endorse or promote products derived from
+//   this software without specific prior written permission.
+// 
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+// OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+
+package dev.kkorolyov.simpleprops;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FrozenPropertiesTest {
+	@Test
+	public void shouldGetAllPropertiesWhenFrozen() {
+		Properties props = generateProperties(1000);
+		FrozenProperties frozen = props.freeze();
+
+		assertEquals(props.size(), frozen.size());
+		for (Entry<String, String> prop : props) assertEquals(prop.getValue(), frozen.get(prop.getKey()));
+	}
+	@Test
+	public void shouldReturnNullOnGetWhenMissingKey() {
+		FrozenProperties frozen = generateProperties(100).freeze();
+
+		assertNull(frozen.get("Missing"));
+		assertNull(frozen.get(null));
+		assertFalse(frozen.contains("Missing"));
+	}
+	@Test
+	public void shouldBeEmptyWhenFrozenEmpty() {
+		FrozenProperties frozen = new Properties().freeze();
+
+		assertTrue(frozen.isEmpty());
+		assertNull(frozen.get("Key"));
+	}
+
+	@Test
+	public void shouldExcludeFiller() {
+		Properties props = new Properties();
+		props.putComment("#Comment");
+		props.put("Key", "Value");
+		props.putBlankLine();
+		FrozenProperties frozen = props.freeze();
+
+		assertEquals(1, frozen.size());
+		assertEquals("Value", frozen.get("Key"));
+	}
+	@Test
+	public void shouldIteratePropertiesInInsertionOrder() {
+		Properties props = generateProperties(50);
+		FrozenProperties frozen = props.freeze();
+
+		Iterator<Entry<String, String>> expected = props.iterator();
+		for (Entry<String, String> prop : frozen) assertEquals(expected.next(), prop);
+		assertFalse(expected.hasNext());
+	}
+
+	@Test
+	public void shouldNotReflectChangesAfterFrozen() {
+		Properties props = generateProperties(10);
+		FrozenProperties frozen = props.freeze();
+
+		props.put("Key-0", "Changed");
+		props.put("New", "Value");
+
+		assertEquals("Val-0", frozen.get("Key-0"));
+		assertFalse(frozen.contains("New"));
+	}
+
+	@Test
+	public void shouldGetArrayLikeProperties() {
+		Properties props = new Properties();
+		props.put("Array", "1", "2", "3");
+		props.put("Single", "Value");
+		FrozenProperties frozen = props.freeze();
+
+		assertArrayEquals(props.getArray("Array"), frozen.getArray("Array"));
+		assertArrayEquals(props.getArray("Single"), frozen.getArray("Single"));
+		assertNull(frozen.getArray("Missing"));
+	}
+	@Test
+	public void shouldReturnCopyOnGetArray() {
+		Properties props = new Properties();
+		props.put("Array", "1", "2");
+		FrozenProperties frozen = props.freeze();
+
+		String[] first = frozen.getArray("Array");
+		first[0] = "Modified";
+
+		assertNotSame(first, frozen.getArray("Array"));
+		assertEquals("1", frozen.getArray("Array")[0]);
+	}
+
+	@Test
+	public void shouldGetConcurrently() throws Exception {
+		Properties props = generateProperties(1000);
+		FrozenProperties frozen = props.freeze();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		List<Future<Boolean>> results = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			results.add(executor.submit(() -> {
+				for (int i = 0; i < 1000; i++) {
+					if (!("Val-" + i).equals(frozen.get("Key-" + i))) return false;
+				}
+				return true;
+			}));
+		}
+		for (Future<Boolean> result : results) assertTrue(result.get());
+
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.SECONDS);
+	}
+
+	private static Properties generateProperties(int num) {
+		Properties props = new Properties();
+		for (int i = 0; i < num; i++) props.put("Key-" + i, "Val-" + i);
+		return props;
+	}
+}
@@ -30,7 +30,10 @@ package dev.kkorolyov.simpleprops;
 
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
@@ -254,6 +257,43 @@ public class PropertiesTest {
 		assertTrue(original.identical(new Properties(file)));
 	}
 	
+	@Test
+	public void shouldSplitLinesOnFirstDelimiter() {
+		Properties expected = new Properties();
+		expected.put("key", "value");
+		expected.put("spaced", "value = more\t ");
+		expected.put("empty", "");
+		expected.put("bare", "");
+		expected.put("", "keyless");
+		expected.put("  indented", "value");
+		expected.put("\u043a\u043b\u044e\u0447", "\u0437\u043d\u0430\u0447\u0435\u043d\u0438\u0435");
+		expected.putComment("#comment");
+		expected.putBlankLine();
+
+		Properties loaded = load("key=value\nspaced \t=  value = more\t \nempty =\nbare\n=keyless\n  indented=value\n\u043a\u043b\u044e\u0447 = \u0437\u043d\u0430\u0447\u0435\u043d\u0438\u0435\n#comment = trimmed\n\n");
+
+		assertTrue(expected.identical(loaded));
+	}
+	@Test
+	public void shouldSplitLinesOnAnyLineTerminator() {
+		Properties expected = new Properties();
+		expected.put("a", "1");
+		expected.putBlankLine();
+		expected.put("b", "2");
+		expected.put("c", "3");
+		expected.put("d", "4");
+
+		assertTrue(expected.identical(load("a=1\r\n\nb=2\rc=3\r\nd=4")));
+	}
+	@Test
+	public void shouldLoadSameFromPathAndStream() throws IOException {
+		Properties original = randomize(new Properties(), generateProperties(40), generateComments(16), 49);
+		Path file = generateNewFile();
+		original.save(file);
+
+		assertTrue(new Properties(file).identical(new Properties(Files.newInputStream(file))));
+	}
+
 	@Test
 	public void shouldEqualsDefaultsWhenInitialized() {
 		Properties defaults = randomize(new Properties(), generateProperties(14), generateComments(80), 46);
@@ -346,6 +386,10 @@ public class PropertiesTest {
 		assertEquals(expectedIt.hasNext(), actualIt.hasNext());
 	}
 	
+	private static Properties load(String content) {
+		return new Properties(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+	}
+
 	private static Properties randomize(Properties props, Map<String, String> properties, Iterable<String> comments, int blankLines) {
 		Random rand = new Random();
 		